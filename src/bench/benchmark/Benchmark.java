@@ -0,0 +1,33 @@
+package benchmark;
+
+// Represents one benchmarked operation. For each calendar size, setUp is called once; then the runner repeatedly
+// calls beforeBatch, times a batch of calls to run, and calls afterBatch. Only the calls to run are timed, so work
+// needed to keep the calendar the same size from batch to batch can be done in beforeBatch and afterBatch.
+interface Benchmark {
+
+    // EFFECTS: returns the name the benchmark is reported and selected by
+    String name();
+
+    // EFFECTS: returns the number of calls to run to time between beforeBatch and afterBatch
+    default int batchSize(int size) {
+        return 1000;
+    }
+
+    // EFFECTS: prepares a calendar with the given number of events
+    void setUp(int size) throws Exception;
+
+    // EFFECTS: prepares for a batch of the given number of calls to run
+    default void beforeBatch(int batch) throws Exception {
+    }
+
+    // EFFECTS: performs call number i of the batch and returns its result, so that it can not be optimized away
+    Object run(int i) throws Exception;
+
+    // EFFECTS: undoes whatever the batch of the given number of calls changed
+    default void afterBatch(int batch) throws Exception {
+    }
+
+    // EFFECTS: releases whatever setUp created
+    default void tearDown() throws Exception {
+    }
+}
@@ -0,0 +1,142 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Runs the calendar benchmarks and prints the average time per operation for each calendar size, along with the
+// standard deviation across measured iterations. Each benchmark is first run for a number of warmup iterations,
+// which are not reported, so that the JIT compiler has settled. Usage:
+//   java benchmark.BenchmarkRunner [-sizes 10,1000,...] [-warmup n] [-iterations n] [-time millis] [name...]
+// Only benchmarks whose names contain one of the given names are run. The largest sizes need a big heap,
+// e.g. -Xmx4g.
+public class BenchmarkRunner {
+    // results are stored here so the JIT compiler can not discard the work that produced them
+    static volatile Object sink;
+
+    private List<Integer> sizes = Arrays.asList(10, 1000, 100_000, 1_000_000);
+    private int warmup = 3;
+    private int iterations = 5;
+    private long iterationMillis = 1000;
+    private List<String> names = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        runner.parse(args);
+        runner.runAll();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the options given on the command line
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-sizes":
+                    sizes = new ArrayList<>();
+                    for (String size : args[++i].split(",")) {
+                        sizes.add(Integer.parseInt(size));
+                    }
+                    break;
+                case "-warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-time":
+                    iterationMillis = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    names.add(args[i]);
+            }
+        }
+    }
+
+    // EFFECTS: runs every selected benchmark at every size and prints the results
+    private void runAll() throws Exception {
+        System.out.printf("%-28s %9s %14s   %12s  %s%n", "Benchmark", "(size)", "Score", "Error", "Units");
+        for (Benchmark b : CalendarBenchmarks.all()) {
+            if (!isSelected(b)) {
+                continue;
+            }
+            for (int size : sizes) {
+                double[] scores = measure(b, size);
+                System.out.printf(Locale.ROOT, "%-28s %9d %14.3f \u00b1 %12.3f  ns/op%n",
+                        b.name(), size, mean(scores), deviation(scores));
+            }
+        }
+    }
+
+    // EFFECTS: returns true if no names were given or the benchmark's name contains one of them
+    private boolean isSelected(Benchmark b) {
+        if (names.isEmpty()) {
+            return true;
+        }
+        for (String name : names) {
+            if (b.name().contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // EFFECTS: runs the benchmark at the given size and returns the time per operation of each measured iteration
+    private double[] measure(Benchmark b, int size) throws Exception {
+        b.setUp(size);
+        try {
+            for (int i = 0; i < warmup; i++) {
+                iteration(b, size);
+            }
+            double[] scores = new double[iterations];
+            for (int i = 0; i < iterations; i++) {
+                scores[i] = iteration(b, size);
+            }
+            return scores;
+        } finally {
+            b.tearDown();
+        }
+    }
+
+    // EFFECTS: runs batches of the benchmark for at least iterationMillis (and at least one batch), and returns the
+    //          average time of the timed calls in nanoseconds
+    private double iteration(Benchmark b, int size) throws Exception {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+        long timed = 0;
+        long ops = 0;
+        do {
+            int batch = b.batchSize(size);
+            b.beforeBatch(batch);
+            long start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                sink = b.run(i);
+            }
+            timed += System.nanoTime() - start;
+            ops += batch;
+            b.afterBatch(batch);
+        } while (System.nanoTime() < deadline);
+        return (double) timed / ops;
+    }
+
+    // EFFECTS: returns the mean of the scores
+    private static double mean(double[] scores) {
+        double total = 0;
+        for (double score : scores) {
+            total += score;
+        }
+        return total / scores.length;
+    }
+
+    // EFFECTS: returns the sample standard deviation of the scores, 0 if there is only one
+    private static double deviation(double[] scores) {
+        if (scores.length < 2) {
+            return 0;
+        }
+        double mean = mean(scores);
+        double squares = 0;
+        for (double score : scores) {
+            squares += (score - mean) * (score - mean);
+        }
+        return Math.sqrt(squares / (scores.length - 1));
+    }
+}
@@ -0,0 +1,275 @@
+package benchmark;
+
+import model.Calendar;
+import model.CalendarEvent;
+import persistence.CalendarSaveReader;
+import persistence.CalendarSaveWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The benchmarks of the model and persistence operations that grow with the size of a calendar
+final class CalendarBenchmarks {
+    static final long SEED = 2022;
+    // most events added or deleted outside the timed calls per batch, so large calendars do not take too long
+    static final long UNTIMED_WORK = 10_000_000;
+
+    private CalendarBenchmarks() {
+    }
+
+    // EFFECTS: returns every benchmark
+    static List<Benchmark> all() {
+        return Arrays.asList(new AddEvent(), new DeleteEvent(), new GetEvent(), new GetEventByDates(),
+                new IsThereSimilarEvent(), new SetDates(), new ToJson(),
+                new Read(false), new Read(true), new Write(false), new Write(true));
+    }
+
+    // A benchmark on a generated calendar, with a sample of its events to look up or change
+    abstract static class OnCalendar implements Benchmark {
+        static final int SAMPLE = 1024;
+
+        Calendar cal;
+        CalendarEvent[] sample;
+
+        @Override
+        public void setUp(int size) {
+            CalendarGenerator generator = new CalendarGenerator(SEED);
+            cal = generator.generate(size);
+            sample = new CalendarEvent[SAMPLE];
+            List<CalendarEvent> events = cal.getListOfEvents();
+            for (int i = 0; i < SAMPLE; i++) {
+                sample[i] = events.get((int) ((long) i * events.size() / SAMPLE));
+            }
+        }
+
+        @Override
+        public int batchSize(int size) {
+            return (int) Math.max(1, Math.min(1000, UNTIMED_WORK / size));
+        }
+    }
+
+    // Times adding new events to the end of the calendar; they are deleted again after each batch
+    static class AddEvent extends OnCalendar {
+        ArrayList<CalendarEvent> added = new ArrayList<>();
+        CalendarGenerator generator = new CalendarGenerator(SEED + 1);
+
+        @Override
+        public String name() {
+            return "addEvent";
+        }
+
+        @Override
+        public void beforeBatch(int batch) {
+            added.clear();
+            for (int i = 0; i < batch; i++) {
+                added.add(generator.nextEvent(SAMPLE));
+            }
+        }
+
+        @Override
+        public Object run(int i) throws Exception {
+            cal.addEvent(added.get(i));
+            return cal;
+        }
+
+        @Override
+        public void afterBatch(int batch) throws Exception {
+            for (CalendarEvent e : added) {
+                cal.deleteEvent(e);
+            }
+        }
+    }
+
+    // Times deleting the most recently added events, which are added before each batch
+    static class DeleteEvent extends AddEvent {
+        @Override
+        public String name() {
+            return "deleteEvent";
+        }
+
+        @Override
+        public void beforeBatch(int batch) {
+            super.beforeBatch(batch);
+            for (CalendarEvent e : added) {
+                cal.addEvent(e);
+            }
+        }
+
+        @Override
+        public Object run(int i) throws Exception {
+            cal.deleteEvent(added.get(i));
+            return cal;
+        }
+
+        @Override
+        public void afterBatch(int batch) {
+        }
+    }
+
+    // Times looking up an event by title
+    static class GetEvent extends OnCalendar {
+        @Override
+        public String name() {
+            return "getEvent(title)";
+        }
+
+        @Override
+        public Object run(int i) {
+            return cal.getEvent(sample[i % SAMPLE].getTitle());
+        }
+    }
+
+    // Times looking up an event by title and dates
+    static class GetEventByDates extends OnCalendar {
+        @Override
+        public String name() {
+            return "getEvent(title,start,end)";
+        }
+
+        @Override
+        public Object run(int i) {
+            CalendarEvent e = sample[i % SAMPLE];
+            return cal.getEvent(e.getTitle(), e.getStartDate(), e.getEndDate());
+        }
+    }
+
+    // Times checking whether a title is shared by more than one event
+    static class IsThereSimilarEvent extends OnCalendar {
+        @Override
+        public String name() {
+            return "isThereSimilarEvent";
+        }
+
+        @Override
+        public Object run(int i) {
+            return cal.isThereSimilarEvent(sample[i % SAMPLE].getTitle());
+        }
+    }
+
+    // Times moving an event on the calendar back and forth between two sets of dates
+    static class SetDates extends OnCalendar {
+        @Override
+        public String name() {
+            return "setDates";
+        }
+
+        @Override
+        public Object run(int i) throws Exception {
+            CalendarEvent e = sample[i % SAMPLE];
+            int start = e.getStartDate() % CalendarGenerator.DAYS + 1;
+            e.setDates(start, start);
+            return e;
+        }
+    }
+
+    // Times converting the whole calendar to a JSON tree
+    static class ToJson extends OnCalendar {
+        @Override
+        public String name() {
+            return "toJson";
+        }
+
+        @Override
+        public int batchSize(int size) {
+            return 1;
+        }
+
+        @Override
+        public Object run(int i) {
+            return cal.toJson();
+        }
+    }
+
+    // A benchmark reading or writing a calendar file in a temporary directory
+    abstract static class OnFile extends OnCalendar {
+        final boolean streaming;
+        File file;
+
+        OnFile(boolean streaming) {
+            this.streaming = streaming;
+        }
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            try {
+                file = File.createTempFile("calendar-bench", ".json");
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not create a temporary file", e);
+            }
+            file.deleteOnExit();
+        }
+
+        @Override
+        public int batchSize(int size) {
+            return 1;
+        }
+
+        // EFFECTS: writes cal to the file
+        Object write() throws IOException {
+            CalendarSaveWriter writer = new CalendarSaveWriter(file.getPath());
+            writer.open();
+            if (streaming) {
+                writer.writeStreaming(cal);
+            } else {
+                writer.write(cal);
+            }
+            writer.close();
+            return writer;
+        }
+
+        @Override
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    // Times reading a calendar file
+    static class Read extends OnFile {
+        Read(boolean streaming) {
+            super(streaming);
+        }
+
+        @Override
+        public String name() {
+            return streaming ? "readStreaming" : "read";
+        }
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            try {
+                write();
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not write the calendar to read", e);
+            }
+            cal = null;
+        }
+
+        @Override
+        public Object run(int i) throws IOException {
+            CalendarSaveReader reader = new CalendarSaveReader(file.getPath());
+            return streaming ? reader.readStreaming() : reader.read();
+        }
+    }
+
+    // Times writing a calendar file
+    static class Write extends OnFile {
+        Write(boolean streaming) {
+            super(streaming);
+        }
+
+        @Override
+        public String name() {
+            return streaming ? "writeStreaming" : "write";
+        }
+
+        @Override
+        public Object run(int i) throws IOException {
+            return write();
+        }
+    }
+}
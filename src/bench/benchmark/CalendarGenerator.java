@@ -0,0 +1,207 @@
+package benchmark;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import persistence.CalendarSaveWriter;
+
+import java.io.IOException;
+import java.util.Random;
+
+// Represents a source of made-up calendars for benchmarks and load tests. Events start on a uniformly random day
+// and last for a number of days drawn from the span distribution (cut off at the end of the month). Categories are
+// drawn according to their weights, and titles from a fixed number of distinct titles, so that some are shared.
+// By default spans are uniform from one to seven days, categories are equally likely, and there are about a
+// quarter as many titles as events. The same seed and settings always give the same calendars.
+// Usage, to write a calendar file:
+//   java benchmark.CalendarGenerator -events n -out path [-binary] [generator options]
+// where the generator options are those accepted by setOption.
+public class CalendarGenerator {
+    public enum Spans { SINGLE_DAY, UNIFORM, GEOMETRIC }
+
+    static final String[] CATEGORIES = {"school", "work", "family", "friends", "personal"};
+    static final int DAYS = 28;
+
+    private final Random random;
+    private Spans spans = Spans.UNIFORM;
+    private int maxSpan = 7;
+    private int[] categoryWeights = {1, 1, 1, 1, 1};
+    // number of distinct titles, or 0 for a quarter of the number of events
+    private int titles;
+
+    // EFFECTS: constructs a generator with the default settings whose output is determined by seed
+    public CalendarGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        CalendarGenerator generator = new CalendarGenerator(CalendarBenchmarks.SEED);
+        int events = 1000;
+        String out = null;
+        boolean binary = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-binary")) {
+                binary = true;
+            } else if (args[i].equals("-events")) {
+                events = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-out")) {
+                out = args[++i];
+            } else if (!generator.setOption(args[i], args[++i])) {
+                throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Missing -out path");
+        }
+        generator.write(events, out, binary);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the generator option with the given name, returning false if there is no such option:
+    //            -spans single|uniform|geometric  the distribution of event lengths
+    //            -maxSpan n                       the most days an event lasts
+    //            -categories w,w,w,w,w            relative weights of school, work, family, friends, personal
+    //            -titles n                        the number of distinct titles
+    //            -seed n                          restarts the random numbers from the given seed
+    public boolean setOption(String name, String value) {
+        switch (name) {
+            case "-spans":
+                spans = Spans.valueOf(value.equals("single") ? "SINGLE_DAY" : value.toUpperCase());
+                return true;
+            case "-maxSpan":
+                maxSpan = Integer.parseInt(value);
+                return true;
+            case "-categories":
+                setCategoryWeights(value.split(","));
+                return true;
+            case "-titles":
+                titles = Integer.parseInt(value);
+                return true;
+            case "-seed":
+                random.setSeed(Long.parseLong(value));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // REQUIRES: maxSpan >= 1
+    // MODIFIES: this
+    // EFFECTS: sets the distribution of event lengths and the most days an event lasts
+    public void setSpans(Spans spans, int maxSpan) {
+        this.spans = spans;
+        this.maxSpan = maxSpan;
+    }
+
+    // REQUIRES: one non-negative weight per category, in the order of CATEGORIES, not all 0
+    // MODIFIES: this
+    // EFFECTS: sets how likely each category is relative to the others
+    public void setCategoryWeights(int... weights) {
+        categoryWeights = weights.clone();
+    }
+
+    // REQUIRES: titles >= 0
+    // MODIFIES: this
+    // EFFECTS: sets the number of distinct titles; 0 means a quarter of the number of events generated
+    public void setTitles(int titles) {
+        this.titles = titles;
+    }
+
+    // EFFECTS: returns a calendar holding the given number of generated events
+    public Calendar generate(int events) {
+        Calendar cal = new Calendar("FEBRUARY", 2022);
+        int titleCount = titleCount(events);
+        for (int i = 0; i < events; i++) {
+            cal.addEvent(nextEvent(titleCount));
+        }
+        return cal;
+    }
+
+    // EFFECTS: generates a calendar with the given number of events and saves it to path through
+    //          CalendarSaveWriter, in the binary format if binary is true and as streamed JSON otherwise
+    public void write(int events, String path, boolean binary) throws IOException {
+        Calendar cal = generate(events);
+        CalendarSaveWriter writer = new CalendarSaveWriter(path);
+        writer.open();
+        if (binary) {
+            writer.writeBinary(cal);
+        } else {
+            writer.writeStreaming(cal);
+        }
+        writer.close();
+    }
+
+    // EFFECTS: returns the number of distinct titles to use for a calendar of the given number of events
+    int titleCount(int events) {
+        return titles > 0 ? titles : Math.max(1, events / 4);
+    }
+
+    // EFFECTS: returns a new event whose title is one of the given number of titles
+    public CalendarEvent nextEvent(int titleCount) {
+        int start = 1 + random.nextInt(DAYS);
+        int end = Math.min(DAYS, start + nextSpan() - 1);
+        return makeEvent(nextTitle(titleCount), start, end, nextCategory());
+    }
+
+    // EFFECTS: returns one of the given number of titles
+    String nextTitle(int titleCount) {
+        return "Event " + random.nextInt(titleCount);
+    }
+
+    // EFFECTS: returns a number of days from 1 to maxSpan drawn from the span distribution
+    int nextSpan() {
+        switch (spans) {
+            case SINGLE_DAY:
+                return 1;
+            case UNIFORM:
+                return 1 + random.nextInt(maxSpan);
+            default:
+                int span = 1;
+                while (span < maxSpan && random.nextBoolean()) {
+                    span++;
+                }
+                return span;
+        }
+    }
+
+    // EFFECTS: returns a category drawn according to the category weights
+    String nextCategory() {
+        int total = 0;
+        for (int weight : categoryWeights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            pick -= categoryWeights[i];
+            if (pick < 0) {
+                return CATEGORIES[i];
+            }
+        }
+        return CATEGORIES[CATEGORIES.length - 1];
+    }
+
+    // EFFECTS: returns a uniformly random int from 0 to bound - 1
+    int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the category weights from their text form
+    private void setCategoryWeights(String[] weights) {
+        int[] parsed = new int[CATEGORIES.length];
+        for (int i = 0; i < parsed.length && i < weights.length; i++) {
+            parsed[i] = Integer.parseInt(weights[i].trim());
+        }
+        setCategoryWeights(parsed);
+    }
+
+    // EFFECTS: returns the event with the given fields, which must be valid
+    static CalendarEvent makeEvent(String title, int start, int end, String category) {
+        try {
+            return new CalendarEvent(title, start, end, category);
+        } catch (InvalidCategory | InvalidDates e) {
+            throw new IllegalStateException("Generated an invalid event", e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import model.Calendar;
+import persistence.CalendarSaveReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+
+// Measures how long loading a calendar file takes and how much heap it needs, for CalendarSaveReader.read, which
+// parses the whole document into a JSONObject before building the calendar, and readStreaming, which builds it as
+// the file is parsed. A calendar of the given number of events is generated and written as streamed JSON to a
+// temporary file, which each reader then loads the given number of times. Before each load the heap is collected
+// and the peak usage of every heap pool is reset; after it, the peak is the sum of the pools' peaks less what was
+// in use before the load, so it includes the loaded calendar itself. Summing per-pool peaks can overstate the true
+// peak, but does so alike for both readers. Usage:
+//   java benchmark.LoadMemory [-events n] [-repeat n] [generator options]
+// where the generator options are those accepted by CalendarGenerator.setOption. The default of 1,000,000 events
+// needs a big heap for read, e.g. -Xmx4g; run each reader in its own JVM by naming it (read or readStreaming) to
+// keep one reader's garbage from counting against the other.
+public class LoadMemory {
+    private final CalendarGenerator generator = new CalendarGenerator(CalendarBenchmarks.SEED);
+    private int events = 1_000_000;
+    private int repeat = 3;
+    private String only;
+
+    public static void main(String[] args) throws Exception {
+        LoadMemory load = new LoadMemory();
+        load.parse(args);
+        load.run();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the options given on the command line
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-events":
+                    events = Integer.parseInt(args[++i]);
+                    break;
+                case "-repeat":
+                    repeat = Integer.parseInt(args[++i]);
+                    break;
+                case "read":
+                case "readStreaming":
+                    only = args[i];
+                    break;
+                default:
+                    if (i + 1 >= args.length || !generator.setOption(args[i], args[i + 1])) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+                    i++;
+            }
+        }
+    }
+
+    // EFFECTS: writes the calendar file, loads it with each selected reader and prints the results
+    private void run() throws IOException {
+        File file = File.createTempFile("calendar-load", ".json");
+        try {
+            generator.write(events, file.getPath(), false);
+            System.out.printf(Locale.ROOT, "%d events, %.1f MB file%n", events, file.length() / 1e6);
+            System.out.printf("%-14s %4s %12s %14s%n", "reader", "run", "load ms", "peak heap MB");
+            for (String reader : new String[] {"read", "readStreaming"}) {
+                if (only == null || only.equals(reader)) {
+                    measure(reader, file);
+                }
+            }
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    // EFFECTS: loads file with the named reader repeat times, printing the time and peak heap of each load
+    private void measure(String reader, File file) throws IOException {
+        for (int run = 1; run <= repeat; run++) {
+            long before = settledHeap();
+            long start = System.nanoTime();
+            CalendarSaveReader in = new CalendarSaveReader(file.getPath());
+            Calendar cal = reader.equals("read") ? in.read() : in.readStreaming();
+            long elapsed = System.nanoTime() - start;
+            long peak = peakHeap() - before;
+            BenchmarkRunner.sink = cal;
+            if (cal.size() != events) {
+                throw new IllegalStateException(reader + " loaded " + cal.size() + " events, not " + events);
+            }
+            System.out.printf(Locale.ROOT, "%-14s %4d %12.1f %14.1f%n", reader, run, elapsed / 1e6, peak / 1e6);
+            BenchmarkRunner.sink = null;
+        }
+    }
+
+    // EFFECTS: collects the heap, resets the peak usage of every heap pool and returns the heap now in use
+    private static long settledHeap() {
+        System.gc();
+        System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    // EFFECTS: returns the sum of the peak usage of every heap pool since their peaks were last reset
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
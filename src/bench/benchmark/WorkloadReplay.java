@@ -0,0 +1,202 @@
+package benchmark;
+
+import model.Calendar;
+import model.CalendarEvent;
+import persistence.CalendarSaveWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Replays a stream of user-like changes against a generated calendar through the Calendar API and reports the
+// throughput and latency percentiles of each kind of change. Each operation is an add, an edit (title, dates or
+// category, equally likely) or a delete, in the percentages given by -mix. Like a real user, edits and deletes
+// mostly touch recently added events: half of them pick one of the RECENT most recently added events, the rest any
+// event. Usage:
+//   java benchmark.WorkloadReplay [-events n] [-ops n] [-mix add,edit,delete] [-save path] [generator options]
+// where -events is the size of the starting calendar, -ops the number of changes to replay, and the generator
+// options are those accepted by CalendarGenerator.setOption. With -save, the final calendar is written to path.
+public class WorkloadReplay {
+    static final int RECENT = 100;
+
+    private enum Op { ADD, SET_TITLE, SET_DATES, SET_CATEGORY, DELETE }
+
+    private final CalendarGenerator generator = new CalendarGenerator(CalendarBenchmarks.SEED);
+    private int events = 10_000;
+    private int ops = 100_000;
+    private int[] mix = {30, 50, 20};
+    private String save;
+    private Calendar cal;
+    // the events on the calendar, oldest first, so that targets can be picked without copying the calendar's list;
+    // deletes keep the rest in order, since pickTarget relies on the most recently added events being at the end
+    private ArrayList<CalendarEvent> live;
+    private long[][] latencies;
+    private int[] counts;
+
+    public static void main(String[] args) throws Exception {
+        WorkloadReplay replay = new WorkloadReplay();
+        replay.parse(args);
+        replay.run();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the options given on the command line
+    private void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-events":
+                    events = Integer.parseInt(value);
+                    break;
+                case "-ops":
+                    ops = Integer.parseInt(value);
+                    break;
+                case "-mix":
+                    mix = parseMix(value);
+                    break;
+                case "-save":
+                    save = value;
+                    break;
+                default:
+                    if (!generator.setOption(args[i], value)) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+            }
+        }
+    }
+
+    // EFFECTS: returns the percentages of adds, edits and deletes in value, written add,edit,delete; throws
+    //          IllegalArgumentException if there are not three of them, any is negative, or they do not sum to 100
+    private static int[] parseMix(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Usage: -mix add,edit,delete, three percentages summing to 100");
+        }
+        int[] percentages = new int[parts.length];
+        int sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            percentages[i] = Integer.parseInt(parts[i].trim());
+            if (percentages[i] < 0) {
+                throw new IllegalArgumentException("Usage: -mix percentages can not be negative: " + value);
+            }
+            sum += percentages[i];
+        }
+        if (sum != 100) {
+            throw new IllegalArgumentException("Usage: -mix percentages must sum to 100, not " + sum);
+        }
+        return percentages;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: generates the starting calendar, replays the changes, prints the report and saves the calendar
+    private void run() throws Exception {
+        cal = generator.generate(events);
+        live = new ArrayList<>(cal.getListOfEvents());
+        latencies = new long[Op.values().length][ops];
+        counts = new int[Op.values().length];
+        int titles = generator.titleCount(events);
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            replayOne(titles);
+        }
+        long elapsed = System.nanoTime() - start;
+        report(elapsed);
+        if (save != null) {
+            CalendarSaveWriter writer = new CalendarSaveWriter(save);
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: picks the next change, applies it to the calendar, and records how long it took
+    private void replayOne(int titles) throws Exception {
+        Op op = nextOp();
+        CalendarEvent fresh = op == Op.ADD ? generator.nextEvent(titles) : null;
+        int target = op == Op.ADD ? -1 : pickTarget();
+        CalendarEvent e = op == Op.ADD ? fresh : live.get(target);
+        String title = op == Op.SET_TITLE ? generator.nextTitle(titles) : null;
+        CalendarEvent shape = op == Op.SET_DATES || op == Op.SET_CATEGORY ? generator.nextEvent(titles) : null;
+        long start = System.nanoTime();
+        apply(op, e, title, shape);
+        long latency = System.nanoTime() - start;
+        latencies[op.ordinal()][counts[op.ordinal()]++] = latency;
+        if (op == Op.ADD) {
+            live.add(fresh);
+        } else if (op == Op.DELETE) {
+            live.remove(target);
+        }
+    }
+
+    // MODIFIES: cal, e
+    // EFFECTS: applies the change to the calendar; shape gives the new dates or category
+    private void apply(Op op, CalendarEvent e, String title, CalendarEvent shape) throws Exception {
+        switch (op) {
+            case ADD:
+                cal.addEvent(e);
+                break;
+            case SET_TITLE:
+                e.setTitle(title);
+                break;
+            case SET_DATES:
+                e.setDates(shape.getStartDate(), shape.getEndDate());
+                break;
+            case SET_CATEGORY:
+                e.setCategory(shape.getCategory());
+                break;
+            default:
+                cal.deleteEvent(e);
+        }
+    }
+
+    // EFFECTS: returns the next kind of change according to the mix; changes other than adds need an event to
+    //          change, so only adds are picked while the calendar is empty
+    private Op nextOp() {
+        int pick = generator.nextInt(mix[0] + mix[1] + mix[2]);
+        if (live.isEmpty() || pick < mix[0]) {
+            return Op.ADD;
+        } else if (pick < mix[0] + mix[1]) {
+            return Op.values()[Op.SET_TITLE.ordinal() + generator.nextInt(3)];
+        }
+        return Op.DELETE;
+    }
+
+    // REQUIRES: live is not empty
+    // EFFECTS: returns the index in live of the event to change: half the time one of the most recently added
+    //          events, otherwise any event
+    private int pickTarget() {
+        if (generator.nextInt(2) == 0) {
+            int recent = Math.min(RECENT, live.size());
+            return live.size() - 1 - generator.nextInt(recent);
+        }
+        return generator.nextInt(live.size());
+    }
+
+    // EFFECTS: prints the overall throughput and, for each kind of change, how many there were and the
+    //          percentiles of their latencies in microseconds
+    private void report(long elapsedNanos) {
+        System.out.printf(Locale.ROOT, "%d changes to a calendar of %d events in %.3f s: %.0f ops/s%n",
+                ops, events, elapsedNanos / 1e9, ops / (elapsedNanos / 1e9));
+        System.out.printf("%-13s %9s %10s %10s %10s %10s %10s%n",
+                "op", "count", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (Op op : Op.values()) {
+            long[] sorted = Arrays.copyOf(latencies[op.ordinal()], counts[op.ordinal()]);
+            if (sorted.length == 0) {
+                continue;
+            }
+            Arrays.sort(sorted);
+            System.out.printf(Locale.ROOT, "%-13s %9d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    op.name().toLowerCase(), sorted.length, percentile(sorted, 50), percentile(sorted, 90),
+                    percentile(sorted, 99), percentile(sorted, 99.9), sorted[sorted.length - 1] / 1e3);
+        }
+    }
+
+    // REQUIRES: sorted is sorted and not empty
+    // EFFECTS: returns the given percentile of the nanosecond values in microseconds (nearest rank)
+    private static double percentile(long[] sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e3;
+    }
+}
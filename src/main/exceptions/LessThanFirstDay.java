@@ -0,0 +1,4 @@
+package exceptions;
+
+public class LessThanFirstDay extends InvalidDates{
+}
@@ -0,0 +1,44 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Represents a count of something that happened, e.g. events read from a file. Any number of threads can add to
+// it at once without locking; while metrics are disabled, adding to it does nothing.
+public class Counter {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    // EFFECTS: constructs a counter at zero with the given name
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds one to the count if metrics are enabled
+    public void increment() {
+        add(1);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds n to the count if metrics are enabled
+    public void add(long n) {
+        if (Metrics.enabled) {
+            count.add(n);
+        }
+    }
+
+    // EFFECTS: returns the count
+    public long get() {
+        return count.sum();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the count back to zero
+    void reset() {
+        count.reset();
+    }
+}
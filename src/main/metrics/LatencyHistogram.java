@@ -0,0 +1,121 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Represents the distribution of how long an operation takes, in nanoseconds. Like HdrHistogram, it counts values
+// in buckets whose width grows with the value, so it takes fixed memory and recording is a single atomic increment,
+// yet percentiles are accurate to within about 3%: values below 64 have a bucket each, and above that every power
+// of two range is split into 32 equal buckets. Any number of threads can record at once without locking; while
+// metrics are disabled, recording does nothing. Typical use:
+//   long start = Metrics.start();
+//   ... the operation ...
+//   histogram.recordSince(start);
+public class LatencyHistogram {
+    static final int SUB_BUCKETS = 32;
+    static final int BUCKETS = 60 * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // EFFECTS: constructs an empty histogram with the given name
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the time since start, a value returned by Metrics.start; does nothing if start is 0,
+    //          which is what Metrics.start returns while metrics are disabled
+    public void recordSince(long start) {
+        if (start != 0) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records one operation that took the given number of nanoseconds, if metrics are enabled;
+    //          negative values are recorded as 0
+    public void record(long nanos) {
+        if (!Metrics.enabled) {
+            return;
+        }
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    // EFFECTS: returns the number of operations recorded
+    public long getCount() {
+        return count.sum();
+    }
+
+    // EFFECTS: returns the mean time of the operations recorded, 0 if there are none
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    // EFFECTS: returns the longest time recorded, 0 if there are none
+    public long getMax() {
+        return max.get();
+    }
+
+    // REQUIRES: 0 <= percent <= 100
+    // EFFECTS: returns (the low end of the bucket of) the time that the given percent of the operations recorded
+    //          took at most, 0 if there are none
+    public long getPercentile(double percent) {
+        long n = count.sum();
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.min(lowestValueOf(b), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forgets everything recorded
+    void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    // REQUIRES: value >= 0
+    // EFFECTS: returns the bucket value is counted in
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // EFFECTS: returns the smallest value counted in the given bucket
+    static long lowestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket - shift * SUB_BUCKETS) << shift;
+    }
+}
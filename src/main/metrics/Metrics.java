@@ -0,0 +1,119 @@
+package metrics;
+
+import org.json.JSONObject;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The registry of every counter and latency histogram in the application, found by name. Code that is measured
+// keeps its counters and histograms in static final fields, so recording costs no lookup. Metrics are disabled
+// unless the system property calendar.metrics is true or they are enabled later (e.g. over JMX); while disabled,
+// recording only costs a check of one flag. The registry can be dumped as JSON or text, and read and controlled
+// over JMX once registerMBean has been called.
+public final class Metrics {
+    public static final String MBEAN_NAME = "calendar:type=Metrics";
+
+    static volatile boolean enabled = Boolean.getBoolean("calendar.metrics");
+
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    // EFFECTS: returns the counter with the given name, creating it if there is none
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    // EFFECTS: returns the latency histogram with the given name, creating it if there is none
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // EFFECTS: starts or stops recording metrics
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // EFFECTS: returns the current time for timing an operation with LatencyHistogram.recordSince,
+    //          or 0 if metrics are disabled
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // MODIFIES: every counter and histogram
+    // EFFECTS: sets every counter to zero and empties every histogram
+    public static void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    // EFFECTS: returns every counter's count and every histogram's count, mean, percentiles and max (in
+    //          nanoseconds) as JSON, with names in alphabetical order
+    public static JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("enabled", enabled);
+        JSONObject counts = new JSONObject();
+        for (Counter c : allCounters().values()) {
+            counts.put(c.getName(), c.get());
+        }
+        json.put("counters", counts);
+        JSONObject latencies = new JSONObject();
+        for (LatencyHistogram h : allHistograms().values()) {
+            JSONObject summary = new JSONObject();
+            summary.put("count", h.getCount());
+            summary.put("mean", Math.round(h.getMean()));
+            summary.put("p50", h.getPercentile(50));
+            summary.put("p90", h.getPercentile(90));
+            summary.put("p99", h.getPercentile(99));
+            summary.put("max", h.getMax());
+            latencies.put(h.getName(), summary);
+        }
+        json.put("latencies", latencies);
+        return json;
+    }
+
+    // EFFECTS: returns every counter and histogram as a table, one per line, with times in microseconds
+    public static String toText() {
+        StringBuilder text = new StringBuilder();
+        for (Counter c : allCounters().values()) {
+            text.append(String.format(Locale.ROOT, "%-40s %12d%n", c.getName(), c.get()));
+        }
+        text.append(String.format("%-40s %12s %10s %10s %10s %10s %10s%n",
+                "latency (us)", "count", "mean", "p50", "p90", "p99", "max"));
+        for (LatencyHistogram h : allHistograms().values()) {
+            text.append(String.format(Locale.ROOT, "%-40s %12d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    h.getName(), h.getCount(), h.getMean() / 1e3, h.getPercentile(50) / 1e3,
+                    h.getPercentile(90) / 1e3, h.getPercentile(99) / 1e3, h.getMax() / 1e3));
+        }
+        return text.toString();
+    }
+
+    // EFFECTS: makes the metrics readable and controllable over JMX under MBEAN_NAME, if they are not already
+    public static void registerMBean() throws JMException {
+        ObjectName name = new ObjectName(MBEAN_NAME);
+        if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), name);
+        }
+    }
+
+    // EFFECTS: returns every counter by name, in alphabetical order
+    static Map<String, Counter> allCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    // EFFECTS: returns every histogram by name, in alphabetical order
+    static Map<String, LatencyHistogram> allHistograms() {
+        return new TreeMap<>(histograms);
+    }
+}
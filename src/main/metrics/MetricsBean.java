@@ -0,0 +1,51 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Offers the metrics registry over JMX
+class MetricsBean implements MetricsMXBean {
+
+    @Override
+    public boolean isEnabled() {
+        return Metrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        Metrics.setEnabled(enabled);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        TreeMap<String, Long> counts = new TreeMap<>();
+        for (Counter c : Metrics.allCounters().values()) {
+            counts.put(c.getName(), c.get());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getP99Latencies() {
+        TreeMap<String, Long> latencies = new TreeMap<>();
+        for (LatencyHistogram h : Metrics.allHistograms().values()) {
+            latencies.put(h.getName(), h.getPercentile(99));
+        }
+        return latencies;
+    }
+
+    @Override
+    public String getJson() {
+        return Metrics.toJson().toString(4);
+    }
+
+    @Override
+    public String getText() {
+        return Metrics.toText();
+    }
+
+    @Override
+    public void reset() {
+        Metrics.reset();
+    }
+}
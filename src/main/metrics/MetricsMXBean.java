@@ -0,0 +1,26 @@
+package metrics;
+
+import java.util.Map;
+
+// The view of the metrics registry offered over JMX, e.g. in JConsole under calendar:type=Metrics
+public interface MetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    // EFFECTS: returns every counter's count by name
+    Map<String, Long> getCounters();
+
+    // EFFECTS: returns the 99th percentile latency of every histogram, in nanoseconds, by name
+    Map<String, Long> getP99Latencies();
+
+    // EFFECTS: returns the whole registry as JSON
+    String getJson();
+
+    // EFFECTS: returns the whole registry as a text table
+    String getText();
+
+    // EFFECTS: sets every counter to zero and empties every histogram
+    void reset();
+}
@@ -5,15 +5,71 @@ import org.json.JSONObject;
 import persistence.Writable;
 
 import exceptions.CanNotFindEvent;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 // This class represents the Calendar object which has a month, a year, and a list of events scheduled on it.
-// A Calendar is allowed to have more than one event of the same name
+// A Calendar is allowed to have more than one event of the same name. Each event on a calendar has an id that no
+// other event on it has, so events can be found and checked for in constant time, and added and deleted in constant
+// amortized time. Events that repeat are held as RecurrenceRules, one per repeating event however often it repeats;
+// their occurrences are only worked out for the calendar's month, when they are asked for.
+// A Calendar may be used from many threads at once: any number of threads can read it at the same time, while
+// changes (to the calendar or to the events on it) are made one at a time. getListOfEvents returns an unmodifiable
+// copy, so it can be iterated while others change the calendar, and snapshot gives a consistent view of the whole
+// calendar that readers can use without any locking.
 
 public class Calendar implements Writable {
     String month;
     int year;
-    ArrayList<CalendarEvent> listOfEvents;
+    // the last day of the month: its length if the month is a real one, otherwise the most days any month has
+    final int lastDay;
+    // the events on the calendar, in the order they were added
+    EventSlots listOfEvents;
+    // maps the id of each event on the calendar to the event
+    HashMap<Long, CalendarEvent> eventsById;
+    // the id given to the next event added without one of its own; greater than the id of every event added so far
+    long nextId = 1;
+    // the order given to the next event added, so that listOfEvents is sorted by order
+    long nextOrder;
+    // eventsByDay.get(d) holds the events occurring on day d, in the order they were put there; index 0 is unused
+    ArrayList<LinkedHashSet<CalendarEvent>> eventsByDay;
+    // maps each title to the events with that title, in the order they were given it
+    HashMap<String, SameTitle> eventsByTitle;
+    // maps the id of each recurring event on the calendar to the rule, in the order the rules were added
+    LinkedHashMap<Long, RecurrenceRule> rulesById;
+    long nextRuleId = 1;
+    CopyOnWriteArrayList<CalendarObserver> observers;
+    // guards listOfEvents, the indexes, and the fields of the events on this calendar
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // the copy of listOfEvents handed out by getListOfEvents, null once listOfEvents has changed since
+    private volatile List<CalendarEvent> eventsView;
+    // the calendar as it is now, kept up to date once snapshot has first been called; null until then
+    private volatile CalendarSnapshot latest;
+    // the conflicts on the calendar, kept up to date once conflicts has first been called; null until then
+    private volatile ConflictEngine conflicts;
+    // the free days on the calendar, kept up to date once freeSlots has first been called; null until then
+    private volatile FreeSlotFinder freeSlots;
+
+    private static final LatencyHistogram ADD_EVENT = Metrics.histogram("calendar.addEvent");
+    private static final LatencyHistogram DELETE_EVENT = Metrics.histogram("calendar.deleteEvent");
+    private static final LatencyHistogram IS_ON_CALENDAR = Metrics.histogram("calendar.isOnCalendar");
+    private static final LatencyHistogram IS_THERE_SIMILAR_EVENT = Metrics.histogram("calendar.isThereSimilarEvent");
+    private static final LatencyHistogram GET_EVENT = Metrics.histogram("calendar.getEvent");
+    private static final LatencyHistogram GET_EVENT_BY_DATES = Metrics.histogram("calendar.getEventByDates");
+    private static final LatencyHistogram EVENTS_ON = Metrics.histogram("calendar.eventsOn");
+    private static final LatencyHistogram EVENTS_BETWEEN = Metrics.histogram("calendar.eventsBetween");
 
     private static final int WIDTH = 700;
     private static final int HEIGHT = 500;
@@ -24,83 +80,410 @@ public class Calendar implements Writable {
     public Calendar(String month, int year) {
         this.month = month;
         this.year = year;
-        listOfEvents = new ArrayList<>();
+        YearMonth ym = getYearMonth();
+        lastDay = ym == null ? CalendarEvent.maxDay : ym.lengthOfMonth();
+        listOfEvents = new EventSlots();
+        eventsById = new HashMap<>();
+        eventsByDay = new ArrayList<>();
+        for (int d = 0; d <= CalendarEvent.maxDay; d++) {
+            eventsByDay.add(new LinkedHashSet<>());
+        }
+        eventsByTitle = new HashMap<>();
+        rulesById = new LinkedHashMap<>();
+        observers = new CopyOnWriteArrayList<>();
     }
 
 
-    // MODIFIES: this
-    // EFFECTS: adds given event to list of events
+    // MODIFIES: this, e
+    // EFFECTS: adds given event to list of events, giving it an id unless it has one no other event here has;
+    //          does nothing if the event is already on the calendar. Throws IllegalArgumentException if the event
+    //          is on another calendar, since an event keeps its id and place on the one calendar it is on, or if it
+    //          ends after the last day of the month (see fits).
     public void addEvent(CalendarEvent e) {
-        listOfEvents.add(e);
-        EventLog.getInstance().logEvent(new Event("Event created with... \tTitle: " + e.getTitle()
-                + "\tStart date: " + e.getStartDate() + "\tEnd date: " + e.getEndDate() + "\tCategory: "
-                + e.getCategory()));
+        long startNanos = Metrics.start();
+        lock.writeLock().lock();
+        try {
+            if (!adopt(e)) {
+                return;
+            }
+            EventLog.getInstance().logAdded(e);
+            for (CalendarObserver o : observers) {
+                o.eventAdded(e);
+            }
+        } finally {
+            lock.writeLock().unlock();
+            ADD_EVENT.recordSince(startNanos);
+        }
     }
 
 
+    // REQUIRES: the write lock is held
+    // MODIFIES: this, e
+    // EFFECTS: puts e on this calendar and indexes it, holding UNOWNED so that e is not changed meanwhile; returns
+    //          false if e is already on this calendar. Throws IllegalArgumentException if e is on another calendar.
+    private boolean adopt(CalendarEvent e) {
+        CalendarEvent.UNOWNED.lock();
+        try {
+            if (eventsById.get(e.id) == e) {
+                return false;
+            }
+            if (e.calendar != null) {
+                throw new IllegalArgumentException("The event is on another calendar");
+            }
+            if (e.getEndDate() > lastDay) {
+                throw new IllegalArgumentException("The event ends after the last day of the month");
+            }
+            assignId(e);
+            e.order = nextOrder++;
+            listOfEvents.add(e);
+            eventsView = null;
+            indexDays(e, e.getStartDate(), e.getEndDate());
+            indexTitle(e, e.getTitle());
+            e.calendar = this;
+            return true;
+        } finally {
+            CalendarEvent.UNOWNED.unlock();
+        }
+    }
+
     // MODIFIES: this
     // EFFECTS: deletes the given event from the calendar
     public void deleteEvent(CalendarEvent e) throws CanNotFindEvent {
-        if (listOfEvents.contains(e)) {
+        long startNanos = Metrics.start();
+        lock.writeLock().lock();
+        try {
+            if (eventsById.get(e.id) != e) {
+                throw new CanNotFindEvent();
+            }
             listOfEvents.remove(e);
-            EventLog.getInstance().logEvent(new Event("Event named " + e.getTitle() + " deleted."));
-        } else {
-            throw new CanNotFindEvent();
+            eventsById.remove(e.id);
+            eventsView = null;
+            unindexDays(e, e.getStartDate(), e.getEndDate());
+            unindexTitle(e, e.getTitle());
+            e.calendar = null;
+            EventLog.getInstance().logDeleted(e);
+            for (CalendarObserver o : observers) {
+                o.eventDeleted(e);
+            }
+        } finally {
+            lock.writeLock().unlock();
+            DELETE_EVENT.recordSince(startNanos);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the recurring event r to the calendar, giving it an id unless it has one no other rule here has;
+    //          does nothing if the rule is already on the calendar. None of its occurrences are worked out yet.
+    //          Throws IllegalArgumentException if the rule is on another calendar.
+    public void addRule(RecurrenceRule r) {
+        lock.writeLock().lock();
+        try {
+            if (!adoptRule(r)) {
+                return;
+            }
+            for (CalendarObserver o : observers) {
+                o.ruleAdded(r);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // REQUIRES: the write lock is held
+    // MODIFIES: this, r
+    // EFFECTS: puts r on the calendar as addRule describes and returns true, or returns false if it already is;
+    //          holds UNOWNED so that r can not be changed while it moves onto the calendar
+    private boolean adoptRule(RecurrenceRule r) {
+        CalendarEvent.UNOWNED.lock();
+        try {
+            if (rulesById.get(r.id) == r) {
+                return false;
+            }
+            if (r.calendar != null) {
+                throw new IllegalArgumentException("The rule is on another calendar");
+            }
+            if (r.id <= 0 || rulesById.containsKey(r.id)) {
+                r.id = nextRuleId;
+            }
+            nextRuleId = Math.max(nextRuleId, r.id + 1);
+            rulesById.put(r.id, r);
+            r.calendar = this;
+            return true;
+        } finally {
+            CalendarEvent.UNOWNED.unlock();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: deletes the recurring event r, and so all of its occurrences, from the calendar
+    public void deleteRule(RecurrenceRule r) throws CanNotFindEvent {
+        lock.writeLock().lock();
+        try {
+            if (rulesById.get(r.id) != r) {
+                throw new CanNotFindEvent();
+            }
+            rulesById.remove(r.id);
+            r.calendar = null;
+            for (CalendarObserver o : observers) {
+                o.ruleDeleted(r);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // EFFECTS: Returns a copy of the recurring events on the calendar, in the order they were added
+    public List<RecurrenceRule> getRules() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(rulesById.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: Returns the recurring event on the calendar with the given id, or null if there is none
+    public RecurrenceRule getRuleById(long id) {
+        lock.readLock().lock();
+        try {
+            return rulesById.get(id);
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
+    // EFFECTS: Returns the occurrences of the recurring events that are on the given day of the calendar's month,
+    //          in the order the rules were added; empty if the day is not in the month or the month's name is not
+    //          that of a month
+    public List<RecurrenceRule.Occurrence> occurrencesOn(int day) {
+        return occurrencesBetween(day, day);
+    }
+
+    // EFFECTS: Returns the occurrences of the recurring events that are on at least one day from start to end of
+    //          the calendar's month, in the order the rules were added and then by date. Only the occurrences in
+    //          the calendar's month are worked out, and each rule keeps them for the next call.
+    public List<RecurrenceRule.Occurrence> occurrencesBetween(int start, int end) {
+        YearMonth ym = getYearMonth();
+        List<RecurrenceRule.Occurrence> found = new ArrayList<>();
+        if (ym == null || Math.max(start, 1) > Math.min(end, ym.lengthOfMonth())) {
+            return found;
+        }
+        LocalDate first = ym.atDay(Math.max(start, 1));
+        LocalDate last = ym.atDay(Math.min(end, ym.lengthOfMonth()));
+        lock.readLock().lock();
+        try {
+            for (RecurrenceRule r : rulesById.values()) {
+                for (RecurrenceRule.Occurrence o : r.occurrencesIn(ym)) {
+                    if (!o.getStart().isAfter(last) && !o.getEnd().isBefore(first)) {
+                        found.add(o);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: registers o to be told about every later change to this calendar and its events
+    public void addObserver(CalendarObserver o) {
+        observers.add(o);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops telling o about changes to this calendar
+    public void removeObserver(CalendarObserver o) {
+        observers.remove(o);
+    }
+
     // EFFECTS: Returns true if the event is on the calendar,
     //          if not found, return false
     public boolean isOnCalendar(CalendarEvent e) {
-        return listOfEvents.contains(e);
+        long startNanos = Metrics.start();
+        lock.readLock().lock();
+        try {
+            return eventsById.get(e.id) == e;
+        } finally {
+            lock.readLock().unlock();
+            IS_ON_CALENDAR.recordSince(startNanos);
+        }
+    }
+
+    // EFFECTS: Returns the event on the calendar with the given id, or null if there is none
+    public CalendarEvent getEventById(long id) {
+        lock.readLock().lock();
+        try {
+            return eventsById.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     // EFFECTS: ReturnCs true if there is more than one occurrence of
     //          an event with a given name(but may be on different days)
     public boolean isThereSimilarEvent(String s) {
-        int count = 0;
-        for (CalendarEvent i : listOfEvents) {
-            if (s.equals(i.getTitle())) {
-                count++;
-            }
+        long startNanos = Metrics.start();
+        lock.readLock().lock();
+        try {
+            SameTitle same = eventsByTitle.get(s);
+            return same != null && same.size() > 1;
+        } finally {
+            lock.readLock().unlock();
+            IS_THERE_SIMILAR_EVENT.recordSince(startNanos);
         }
-        return (count > 1);
     }
 
     // EFFECTS: finds and returns the event with the specified name
+    //          (the most recently added one if several share the name), or null if there is none
     public CalendarEvent getEvent(String eventName) {
-        CalendarEvent i = null;
-        for (CalendarEvent e : listOfEvents) {
-            if (e.getTitle().equals(eventName)) {
-                i = e;
-            }
+        long startNanos = Metrics.start();
+        lock.readLock().lock();
+        try {
+            SameTitle same = eventsByTitle.get(eventName);
+            return same == null ? null : same.last();
+        } finally {
+            lock.readLock().unlock();
+            GET_EVENT.recordSince(startNanos);
         }
-        return i;
     }
 
 
     // EFFECTS: Returns the event with the specified name and start/end dates
     public CalendarEvent getEvent(String eventName, int start, int end) {
-        ArrayList<CalendarEvent> same = sameNames(eventName);
-        for (CalendarEvent e : same) {
-            if (e.getStartDate() == start && e.getEndDate() == end) {
-                return e;
+        long startNanos = Metrics.start();
+        lock.readLock().lock();
+        try {
+            for (CalendarEvent e : sameNames(eventName)) {
+                if (e.getStartDate() == start && e.getEndDate() == end) {
+                    return e;
+                }
             }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+            GET_EVENT_BY_DATES.recordSince(startNanos);
         }
-        return null;
     }
 
-    // EFFECTS: Helper method for getEvent. Returns list of events with
-    //          the same name.
-    private ArrayList<CalendarEvent> sameNames(String name) {
-        ArrayList<CalendarEvent> sameNames = new ArrayList<>();
-        for (CalendarEvent e : listOfEvents) {
-            if (e.getTitle().equals(name)) {
-                sameNames.add(e);
+    // EFFECTS: Returns a copy of the events occurring on the given day, in the order they were added.
+    //          Returns an empty list if the day is not in the month.
+    public List<CalendarEvent> eventsOn(int day) {
+        if (day < 1 || day > CalendarEvent.maxDay) {
+            return Collections.emptyList();
+        }
+        long startNanos = Metrics.start();
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(eventsByDay.get(day)));
+        } finally {
+            lock.readLock().unlock();
+            EVENTS_ON.recordSince(startNanos);
+        }
+    }
+
+    // EFFECTS: Returns every event occurring on at least one day from start to end (inclusive),
+    //          each event listed once
+    public List<CalendarEvent> eventsBetween(int start, int end) {
+        LinkedHashSet<CalendarEvent> found = new LinkedHashSet<>();
+        long startNanos = Metrics.start();
+        lock.readLock().lock();
+        try {
+            for (int d = Math.max(start, 1); d <= Math.min(end, CalendarEvent.maxDay); d++) {
+                found.addAll(eventsByDay.get(d));
             }
+        } finally {
+            lock.readLock().unlock();
+            EVENTS_BETWEEN.recordSince(startNanos);
+        }
+        return new ArrayList<>(found);
+    }
+
+    // REQUIRES: the write lock is held
+    // MODIFIES: this
+    // EFFECTS: Moves e from the day buckets of oldStart..oldEnd to those of its current dates
+    void reindexDays(CalendarEvent e, int oldStart, int oldEnd) {
+        unindexDays(e, oldStart, oldEnd);
+        indexDays(e, e.getStartDate(), e.getEndDate());
+    }
+
+    // REQUIRES: the write lock is held
+    // EFFECTS: Tells the observers that e, an event on this calendar, has been changed
+    void eventChanged(CalendarEvent e) {
+        for (CalendarObserver o : observers) {
+            o.eventChanged(e);
         }
+    }
 
+    // REQUIRES: the write lock is held
+    // EFFECTS: Tells the observers that r, which is on the calendar, has changed
+    void ruleChanged(RecurrenceRule r) {
+        for (CalendarObserver o : observers) {
+            o.ruleChanged(r);
+        }
+    }
+
+    // REQUIRES: the write lock is held
+    // MODIFIES: this, e
+    // EFFECTS: Gives e the next id unless it already has one that no event on the calendar has, then maps its id
+    //          to it
+    private void assignId(CalendarEvent e) {
+        if (e.id <= 0 || eventsById.containsKey(e.id)) {
+            e.id = nextId;
+        }
+        nextId = Math.max(nextId, e.id + 1);
+        eventsById.put(e.id, e);
+    }
 
+    // REQUIRES: the write lock is held
+    // MODIFIES: this
+    // EFFECTS: Moves e from the title index entry of oldTitle to that of its current title
+    void reindexTitle(CalendarEvent e, String oldTitle) {
+        unindexTitle(e, oldTitle);
+        indexTitle(e, e.getTitle());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds e to the title index under title
+    private void indexTitle(CalendarEvent e, String title) {
+        eventsByTitle.computeIfAbsent(title, t -> new SameTitle()).add(e);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes e from the title index entry of title, dropping the entry once it is empty
+    private void unindexTitle(CalendarEvent e, String title) {
+        SameTitle same = eventsByTitle.get(title);
+        if (same != null) {
+            same.remove(e);
+            if (same.isEmpty()) {
+                eventsByTitle.remove(title);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds e to the bucket of every day from start to end that lies in the month
+    private void indexDays(CalendarEvent e, int start, int end) {
+        for (int d = Math.max(start, 1); d <= Math.min(end, CalendarEvent.maxDay); d++) {
+            eventsByDay.get(d).add(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes e from the bucket of every day from start to end that lies in the month
+    private void unindexDays(CalendarEvent e, int start, int end) {
+        for (int d = Math.max(start, 1); d <= Math.min(end, CalendarEvent.maxDay); d++) {
+            eventsByDay.get(d).remove(e);
+        }
+    }
+
+    // EFFECTS: Helper method for getEvent by dates. Returns the events with the given name, in the order they
+    //          were given it; they are the title index's own and must not be changed.
+    private Iterable<CalendarEvent> sameNames(String name) {
+        SameTitle sameNames = eventsByTitle.get(name);
+        if (sameNames == null) {
+            return Collections.emptyList();
+        }
         return sameNames;
     }
 
@@ -113,16 +496,157 @@ public class Calendar implements Writable {
         return year;
     }
 
-    public ArrayList<CalendarEvent> getListOfEvents() {
-        return listOfEvents;
+    // EFFECTS: Returns the last day of the calendar's month, or the most days any month has if the month's name is
+    //          not that of a month
+    public int getLastDay() {
+        return lastDay;
+    }
+
+    // EFFECTS: Returns true if the event ends on or before the last day of the calendar's month, so it can be added
+    public boolean fits(CalendarEvent e) {
+        return e.getEndDate() <= lastDay;
+    }
+
+    // EFFECTS: Returns the calendar's month and year, or null if the month's name (in any case) is not that of a
+    //          month
+    public YearMonth getYearMonth() {
+        try {
+            return YearMonth.of(year, Month.valueOf(month.toUpperCase()));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    // EFFECTS: Returns an unmodifiable copy of the events on the calendar, in the order they were added.
+    //          The same copy is returned until the calendar next changes.
+    public List<CalendarEvent> getListOfEvents() {
+        List<CalendarEvent> view = eventsView;
+        if (view != null) {
+            return view;
+        }
+        lock.readLock().lock();
+        try {
+            view = Collections.unmodifiableList(listOfEvents.toList());
+            eventsView = view;
+            return view;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: Returns the number of events on the calendar, without copying them
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return listOfEvents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: Calls action on each event on the calendar, in the order they were added, holding the read lock so
+    //          that no event changes meanwhile; unlike getListOfEvents, the events are not copied first. Throws
+    //          whatever action throws, calling it on no more events. The action must not change the calendar, as
+    //          whileUnchanged describes.
+    public <X extends Exception> void forEachEvent(EventAction<X> action) throws X {
+        lock.readLock().lock();
+        try {
+            for (CalendarEvent e : listOfEvents) {
+                action.accept(e);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: Runs action holding the read lock, so that nothing on the calendar changes, and no observer is told
+    //          of a change, until it returns; throws whatever action throws. The action may read the calendar from
+    //          this thread but must not change it, or wait for another thread that does, since that would wait
+    //          forever.
+    public <X extends Exception> void whileUnchanged(ReadAction<X> action) throws X {
+        lock.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: Returns an immutable snapshot of the calendar as it is now. The first call takes time proportional
+    //          to the number of events; after that, taking a snapshot is O(1) and never waits for writers, while
+    //          each change to the calendar's events does O(log n) extra work to keep the latest snapshot up to
+    //          date, and each change to its recurring events copies them.
+    public CalendarSnapshot snapshot() {
+        CalendarSnapshot current = latest;
+        if (current != null) {
+            return current;
+        }
+        lock.writeLock().lock();
+        try {
+            if (latest == null) {
+                ArrayList<CalendarSnapshot.Entry> entries = new ArrayList<>();
+                for (CalendarEvent e : listOfEvents) {
+                    entries.add(new CalendarSnapshot.Entry(e));
+                }
+                ArrayList<CalendarSnapshot.RuleEntry> rules = new ArrayList<>();
+                for (RecurrenceRule r : rulesById.values()) {
+                    rules.add(new CalendarSnapshot.RuleEntry(r));
+                }
+                latest = new CalendarSnapshot(month, year, PersistentList.of(entries), rules);
+                observers.add(new SnapshotKeeper());
+            }
+            return latest;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // EFFECTS: Returns the engine that finds the events on this calendar sharing a day. The first call takes time
+    //          proportional to the number of events; after that, the engine is kept up to date as the calendar
+    //          changes, at a cost proportional to the number of days each change touches.
+    public ConflictEngine conflicts() {
+        ConflictEngine current = conflicts;
+        if (current != null) {
+            return current;
+        }
+        lock.writeLock().lock();
+        try {
+            if (conflicts == null) {
+                conflicts = new ConflictEngine(this);
+            }
+            return conflicts;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // EFFECTS: Returns the finder of free days on this calendar. The first call takes time proportional to the
+    //          number of events; after that, the finder is kept up to date as the calendar changes, at a cost
+    //          logarithmic in the number of days of the month.
+    public FreeSlotFinder freeSlots() {
+        FreeSlotFinder current = freeSlots;
+        if (current != null) {
+            return current;
+        }
+        lock.writeLock().lock();
+        try {
+            if (freeSlots == null) {
+                freeSlots = new FreeSlotFinder(this);
+            }
+            return freeSlots;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     // EFFECTS: Checks if listOfEvents contains an event with name
     public Boolean isEventOnCalendar(String name) {
-        for (CalendarEvent e : listOfEvents) {
-            return (e.getTitle().equals(name));
+        lock.readLock().lock();
+        try {
+            return eventsByTitle.containsKey(name);
+        } finally {
+            lock.readLock().unlock();
         }
-        return false;
     }
 
 
@@ -134,7 +658,17 @@ public class Calendar implements Writable {
         JSONObject json = new JSONObject();
         json.put("month", month);
         json.put("year", year);
-        json.put("Events", eventsToJson());
+        lock.readLock().lock();
+        try {
+            json.put("Events", eventsToJson());
+            JSONArray jsonRules = new JSONArray();
+            for (RecurrenceRule r : rulesById.values()) {
+                jsonRules.put(r.toJson());
+            }
+            json.put("Rules", jsonRules);
+        } finally {
+            lock.readLock().unlock();
+        }
         return json;
     }
 
@@ -150,4 +684,47 @@ public class Calendar implements Writable {
 
         return jsonArray;
     }
+
+    // Represents work done on a calendar while it can not change (see whileUnchanged)
+    public interface ReadAction<X extends Exception> {
+        void run() throws X;
+    }
+
+    // Represents work done on each event of a calendar (see forEachEvent)
+    public interface EventAction<X extends Exception> {
+        void accept(CalendarEvent e) throws X;
+    }
+
+    // Applies every change to the calendar to the latest snapshot, making a new version of it
+    private class SnapshotKeeper implements CalendarObserver {
+        @Override
+        public void eventAdded(CalendarEvent e) {
+            latest = latest.withAdded(e);
+        }
+
+        @Override
+        public void eventDeleted(CalendarEvent e) {
+            latest = latest.withDeleted(e);
+        }
+
+        @Override
+        public void eventChanged(CalendarEvent e) {
+            latest = latest.withChanged(e);
+        }
+
+        @Override
+        public void ruleAdded(RecurrenceRule r) {
+            latest = latest.withRule(r);
+        }
+
+        @Override
+        public void ruleDeleted(RecurrenceRule r) {
+            latest = latest.withoutRule(r);
+        }
+
+        @Override
+        public void ruleChanged(RecurrenceRule r) {
+            latest = latest.withRule(r);
+        }
+    }
 }
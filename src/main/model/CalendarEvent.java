@@ -3,30 +3,57 @@ package model;
 import exceptions.GreaterThanLastDay;
 import exceptions.InvalidCategory;
 import exceptions.InvalidDates;
+import exceptions.LessThanFirstDay;
 import exceptions.StartGreaterThanEnd;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import org.json.JSONObject;
 import persistence.Writable;
 
 //TODO: Convert category into an ENUMERATION
 
-import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 // This class represents the Event object. The event object consists of a title (name), a start date, an end date,
-// a specific category (School, Work, Family, Friends, or Personal), and a list of days indicating which days the event
-// occurs on
+// a specific category (School, Work, Family, Friends, or Personal), and a bit mask indicating which days the event
+// occurs on (bit d is set if the event occurs on day d)
 
 public class CalendarEvent implements Writable {
-    static final int maxDay = LocalDate.now().lengthOfMonth();
+    // the most days any month has, so that events of any month (not just the current one) are valid
+    static final int maxDay = 31;
 
-    String title;
-    int startDate;
-    int endDate;
-    String category;
-    ArrayList<Integer> listOfDays = new ArrayList<>();
+    private static final LatencyHistogram SET_TITLE = Metrics.histogram("event.setTitle");
+    private static final LatencyHistogram SET_DATES = Metrics.histogram("event.setDates");
+    private static final LatencyHistogram SET_CATEGORY = Metrics.histogram("event.setCategory");
+    // held while changing an event or rule that is on no calendar, and by a calendar while it takes one on, so
+    // that the calendar never indexes a change that is only half made
+    static final ReentrantLock UNOWNED = new ReentrantLock();
+
+    // The fields below are changed holding the write lock of the event's calendar (or UNOWNED), and are volatile
+    // so that the getters, which take no lock, see the latest values from any thread.
+    // identifies the event on its calendar: 0 until the event is first added to one, then kept from then on,
+    // including through saving and loading, unless it is added to a calendar where another event has that id
+    volatile long id;
+    // when the event was added to its calendar, relative to the others there; the calendar's list is in this order
+    long order;
+    // where the event is in its calendar's EventSlots
+    int slot;
+    // the events before and after this one in its calendar's SameTitle for its title; null at either end
+    CalendarEvent prevSameTitle;
+    CalendarEvent nextSameTitle;
+    volatile String title;
+    volatile int startDate;
+    volatile int endDate;
+    volatile String category;
+    volatile long dayMask;
+    // the days built by the last call to getListOfDays, with the dayMask they were built from; null until then
+    volatile Days listOfDays;
+    // the calendar this event is on, so changes can update its indexes and notify its observers; null if none
+    volatile Calendar calendar;
 
 
     // EFFECTS: Instantiates an event object with a title, start/end date, and a category
-    //          Also adds a list of the dates the event occurs on to listOfDays
+    //          Also records the dates the event occurs on in dayMask
     public CalendarEvent(String title, int startDate, int endDate, String category) throws InvalidCategory,
             InvalidDates {
         checkInvalidDates(startDate, endDate);
@@ -35,44 +62,116 @@ public class CalendarEvent implements Writable {
         this.startDate = startDate;
         this.endDate = endDate;
         this.category = category;
-        for (int x = startDate; x <= endDate; x++) {
-            listOfDays.add(x);
-        }
+        dayMask = maskOf(startDate, endDate);
+    }
+
+    // EFFECTS: Instantiates an event like the constructor above, with the id it was saved with; a calendar it is
+    //          added to keeps that id unless another event there already has it
+    public CalendarEvent(long id, String title, int startDate, int endDate, String category) throws InvalidCategory,
+            InvalidDates {
+        this(title, startDate, endDate, category);
+        this.id = id;
     }
 
     // MODIFIES: this
     // EFFECTS: Changes the title of the event
     public void setTitle(String title) {
-        EventLog.getInstance().logEvent(new Event("Event title changed from " + this.title
-                + "  to " + title));
-        this.title = title;
+        long startNanos = Metrics.start();
+        Calendar owner = lockCalendar();
+        try {
+            String oldTitle = this.title;
+            this.title = title;
+            EventLog.getInstance().logTitleChanged(this, oldTitle);
+            if (owner != null) {
+                owner.reindexTitle(this, oldTitle);
+                owner.eventChanged(this);
+            }
+        } finally {
+            unlock(owner);
+            SET_TITLE.recordSince(startNanos);
+        }
     }
 
 
     // MODIFIES: this
-    // EFFECTS: Changes the start date and end date of the event
+    // EFFECTS: Changes the start date and end date of the event; throws GreaterThanLastDay if the event is on a
+    //          calendar and would end after the last day of its month
     public void setDates(int start, int end) throws InvalidDates {
         checkInvalidDates(start, end);
-        startDate = start;
-        endDate = end;
-        listOfDays.clear();
-        for (int x = start; x <= end; x++) {
-            listOfDays.add(x);
+        long startNanos = Metrics.start();
+        Calendar owner = lockCalendar();
+        try {
+            if (owner != null && end > owner.getLastDay()) {
+                throw new GreaterThanLastDay();
+            }
+            int oldStart = startDate;
+            int oldEnd = endDate;
+            startDate = start;
+            endDate = end;
+            dayMask = maskOf(start, end);
+            if (owner != null) {
+                owner.reindexDays(this, oldStart, oldEnd);
+                owner.eventChanged(this);
+            }
+            EventLog.getInstance().logDatesChanged(this);
+        } finally {
+            unlock(owner);
+            SET_DATES.recordSince(startNanos);
         }
-        EventLog.getInstance().logEvent(new Event("Event titled " + title + ": Start date changed to "
-                + start + " and end date changed to " + end));
     }
 
     // MODIFIES: this
     // EFFECTS: Changes the category of the event
     public void setCategory(String category) throws InvalidCategory {
         checkInvalidCategory(category);
-        EventLog.getInstance().logEvent(new Event("Event titled " + title + ": Category changed from "
-                + this.category + " to " + category));
-        this.category = category;
+        long startNanos = Metrics.start();
+        Calendar owner = lockCalendar();
+        try {
+            String oldCategory = this.category;
+            this.category = category;
+            EventLog.getInstance().logCategoryChanged(this, oldCategory);
+            if (owner != null) {
+                owner.eventChanged(this);
+            }
+        } finally {
+            unlock(owner);
+            SET_CATEGORY.recordSince(startNanos);
+        }
+    }
+
+    // EFFECTS: Takes the write lock of the calendar this event is on and returns that calendar, or takes UNOWNED
+    //          and returns null if it is on none. Checks the event is still on the same calendar once the lock is
+    //          held, and tries again if it is not, since the event may be deleted or added meanwhile.
+    private Calendar lockCalendar() {
+        while (true) {
+            Calendar owner = calendar;
+            if (owner == null) {
+                UNOWNED.lock();
+            } else {
+                owner.lock.writeLock().lock();
+            }
+            if (calendar == owner) {
+                return owner;
+            }
+            unlock(owner);
+        }
+    }
+
+    // EFFECTS: Releases the lock taken by lockCalendar
+    static void unlock(Calendar owner) {
+        if (owner == null) {
+            UNOWNED.unlock();
+        } else {
+            owner.lock.writeLock().unlock();
+        }
     }
 
 
+    // EFFECTS: Returns the id of the event on its calendar, 0 if it has never been added to one
+    public long getId() {
+        return id;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -89,8 +188,39 @@ public class CalendarEvent implements Writable {
         return category;
     }
 
+    // EFFECTS: Returns the days the event occurs on, in order. Built from dayMask, and built again only once the
+    //          dates have changed, so that it matches the dates even if they are changed by another thread.
     public ArrayList<Integer> getListOfDays() {
-        return listOfDays;
+        Days days = listOfDays;
+        long mask = dayMask;
+        if (days == null || days.mask != mask) {
+            ArrayList<Integer> list = new ArrayList<>();
+            for (int x = 1; x <= maxDay; x++) {
+                if ((mask & (1L << x)) != 0) {
+                    list.add(x);
+                }
+            }
+            days = new Days(mask, list);
+            listOfDays = days;
+        }
+        return days.list;
+    }
+
+    // EFFECTS: Returns true if the event occurs on the given day
+    public boolean occursOn(int day) {
+        return day >= 1 && day <= maxDay && (dayMask & (1L << day)) != 0;
+    }
+
+    // EFFECTS: Returns true if this event and other occur on at least one common day
+    public boolean overlaps(CalendarEvent other) {
+        return (dayMask & other.dayMask) != 0;
+    }
+
+    // EFFECTS: Returns a mask with the bits for days start to end (inclusive) set
+    private static long maskOf(int start, int end) {
+        long upTo = (1L << (end + 1)) - 1;
+        long below = (1L << start) - 1;
+        return upTo & ~below;
     }
 
 
@@ -99,13 +229,15 @@ public class CalendarEvent implements Writable {
     private void checkInvalidDates(int start, int end) throws InvalidDates {
         if (start > end) {
             throw new StartGreaterThanEnd();
+        } else if (start < 1) {
+            throw new LessThanFirstDay();
         } else if (start > maxDay || end > maxDay) {
             throw new GreaterThanLastDay();
         }
     }
 
     //EFFECTS: Checks whether the given category is invalid. If it is, throw an exception, if not, do nothing
-    private void checkInvalidCategory(String cat) throws InvalidCategory {
+    static void checkInvalidCategory(String cat) throws InvalidCategory {
         if (!(cat.equals("school") || cat.equals("work") || cat.equals("family")
                 || cat.equals("friends") || cat.equals("personal"))) {
             throw new InvalidCategory();
@@ -119,6 +251,7 @@ public class CalendarEvent implements Writable {
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
 
+        json.put("id", id);
         json.put("title", title);
         json.put("start date", startDate);
         json.put("end date", endDate);
@@ -126,4 +259,15 @@ public class CalendarEvent implements Writable {
 
         return json;
     }
+
+    // Represents the list of days built from a day mask
+    private static final class Days {
+        final long mask;
+        final ArrayList<Integer> list;
+
+        Days(long mask, ArrayList<Integer> list) {
+            this.mask = mask;
+            this.list = list;
+        }
+    }
 }
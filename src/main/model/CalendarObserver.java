@@ -0,0 +1,28 @@
+package model;
+
+// Represents something that is told about every change made to a Calendar and the events on it
+// (Observer Design Pattern). Observers are told after the change has been made. Observers that only follow the
+// calendar's single events need not override the methods about its recurring events, which do nothing.
+public interface CalendarObserver {
+
+    // EFFECTS: called after e has been added to the end of the calendar's list of events
+    void eventAdded(CalendarEvent e);
+
+    // EFFECTS: called after e has been deleted from the calendar's list of events
+    void eventDeleted(CalendarEvent e);
+
+    // EFFECTS: called after the title, dates or category of e, which is on the calendar, has been changed
+    void eventChanged(CalendarEvent e);
+
+    // EFFECTS: called after the recurring event r has been added to the calendar
+    default void ruleAdded(RecurrenceRule r) {
+    }
+
+    // EFFECTS: called after the recurring event r has been deleted from the calendar
+    default void ruleDeleted(RecurrenceRule r) {
+    }
+
+    // EFFECTS: called after an occurrence of the recurring event r, which is on the calendar, has been skipped
+    default void ruleChanged(RecurrenceRule r) {
+    }
+}
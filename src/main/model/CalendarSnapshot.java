@@ -0,0 +1,235 @@
+package model;
+
+import org.json.JSONObject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+// Represents the state of a calendar at one moment: its month, year, the title, dates and category each of its
+// events had then, and its recurring events with the occurrences they skipped then. A snapshot never changes, so
+// any number of threads can read it without locking while the calendar itself keeps changing. Successive snapshots
+// of a calendar share almost all of their events, so keeping old ones (e.g. for undo) is cheap; the recurring
+// events, of which there are few, are copied whenever one of them changes.
+public final class CalendarSnapshot implements Iterable<CalendarSnapshot.Entry> {
+    private final String month;
+    private final int year;
+    private final PersistentList<Entry> events;
+    private final List<RuleEntry> rules;
+
+    CalendarSnapshot(String month, int year, PersistentList<Entry> events, List<RuleEntry> rules) {
+        this.month = month;
+        this.year = year;
+        this.events = events;
+        this.rules = Collections.unmodifiableList(rules);
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    // EFFECTS: returns the number of events on the calendar at the time of the snapshot
+    public int size() {
+        return events.size();
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns the event at index, in the order events were added to the calendar
+    public Entry get(int index) {
+        return events.get(index);
+    }
+
+    // EFFECTS: returns the recurring events on the calendar at the time of the snapshot, in the order they were added
+    public List<RuleEntry> getRules() {
+        return rules;
+    }
+
+    // EFFECTS: returns the events that occurred on the given day, in the order they were added
+    public List<Entry> eventsOn(int day) {
+        ArrayList<Entry> found = new ArrayList<>();
+        for (Entry e : events) {
+            if (e.occursOn(day)) {
+                found.add(e);
+            }
+        }
+        return found;
+    }
+
+    // EFFECTS: returns an iterator over the events, in the order they were added
+    @Override
+    public Iterator<Entry> iterator() {
+        return events.iterator();
+    }
+
+    // EFFECTS: returns this snapshot with e added at the end
+    CalendarSnapshot withAdded(CalendarEvent e) {
+        return new CalendarSnapshot(month, year, events.add(new Entry(e)), rules);
+    }
+
+    // REQUIRES: e is in this snapshot
+    // EFFECTS: returns this snapshot with the entry of e replaced by the current state of e
+    CalendarSnapshot withChanged(CalendarEvent e) {
+        return new CalendarSnapshot(month, year, events.set(indexOf(e), new Entry(e)), rules);
+    }
+
+    // REQUIRES: e is in this snapshot
+    // EFFECTS: returns this snapshot without the entry of e
+    CalendarSnapshot withDeleted(CalendarEvent e) {
+        return new CalendarSnapshot(month, year, events.remove(indexOf(e)), rules);
+    }
+
+    // EFFECTS: returns this snapshot with the entry of r replaced by the current state of r, or that added at the
+    //          end if r is not in this snapshot
+    CalendarSnapshot withRule(RecurrenceRule r) {
+        List<RuleEntry> changed = new ArrayList<>(rules);
+        int i = ruleIndexOf(r);
+        if (i < 0) {
+            changed.add(new RuleEntry(r));
+        } else {
+            changed.set(i, new RuleEntry(r));
+        }
+        return new CalendarSnapshot(month, year, events, changed);
+    }
+
+    // REQUIRES: r is in this snapshot
+    // EFFECTS: returns this snapshot without the entry of r
+    CalendarSnapshot withoutRule(RecurrenceRule r) {
+        List<RuleEntry> changed = new ArrayList<>(rules);
+        changed.remove(ruleIndexOf(r));
+        return new CalendarSnapshot(month, year, events, changed);
+    }
+
+    // EFFECTS: returns the index of the entry of r, or -1 if there is none
+    private int ruleIndexOf(RecurrenceRule r) {
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).rule == r) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns the index of the entry of e, found in O(log n) time since the entries are in the order
+    //          their events were added to the calendar
+    private int indexOf(CalendarEvent e) {
+        return events.indexOf(entry -> entry.order, e.order);
+    }
+
+    // Represents an event as it was when the snapshot was taken
+    public static final class Entry {
+        private final CalendarEvent event;
+        // the event's place in the order events were added to the calendar
+        private final long order;
+        private final long id;
+        private final String title;
+        private final int startDate;
+        private final int endDate;
+        private final String category;
+
+        Entry(CalendarEvent event) {
+            this.event = event;
+            order = event.order;
+            id = event.getId();
+            title = event.getTitle();
+            startDate = event.getStartDate();
+            endDate = event.getEndDate();
+            category = event.getCategory();
+        }
+
+        // EFFECTS: returns the event this entry was taken from, which may have changed since
+        public CalendarEvent getEvent() {
+            return event;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public int getStartDate() {
+            return startDate;
+        }
+
+        public int getEndDate() {
+            return endDate;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        // EFFECTS: returns true if the event occurred on the given day
+        public boolean occursOn(int day) {
+            return day >= startDate && day <= endDate;
+        }
+    }
+
+    // Represents a recurring event as it was when the snapshot was taken. The entry keeps its own copy of the rule,
+    // which is never changed or handed out, so it keeps the skipped occurrences the rule had then.
+    public static final class RuleEntry {
+        private final RecurrenceRule rule;
+        private final RecurrenceRule copy;
+
+        RuleEntry(RecurrenceRule rule) {
+            this.rule = rule;
+            copy = rule.copy();
+        }
+
+        // EFFECTS: returns the rule this entry was taken from, which may have changed since
+        public RecurrenceRule getRule() {
+            return rule;
+        }
+
+        public long getId() {
+            return copy.getId();
+        }
+
+        public String getTitle() {
+            return copy.getTitle();
+        }
+
+        public LocalDate getStart() {
+            return copy.getStart();
+        }
+
+        public int getDays() {
+            return copy.getDays();
+        }
+
+        public String getCategory() {
+            return copy.getCategory();
+        }
+
+        public RecurrenceRule.Frequency getFrequency() {
+            return copy.getFrequency();
+        }
+
+        public int getInterval() {
+            return copy.getInterval();
+        }
+
+        // EFFECTS: returns the last date an occurrence could start on, or null if the rule repeated forever
+        public LocalDate getUntil() {
+            return copy.getUntil();
+        }
+
+        // EFFECTS: returns the start dates of the occurrences that had been skipped, in order
+        public List<LocalDate> getExceptions() {
+            return copy.getExceptions();
+        }
+
+        // EFFECTS: returns the rule as it was in JSON format, the same as the rule's own toJson gave then
+        public JSONObject toJson() {
+            return copy.toJson();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package model;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+// Represents what is double-booked on a calendar: how many events there are on each day, which days have more than
+// one, and which events overlap which. The number of events on each day, counting each occurrence of a recurring
+// event in the calendar's month as one, is kept up to date as the calendar changes, in time proportional to the
+// number of days a change touches, so checking whether an event, an occurrence or a day has a conflict never looks
+// at the other events. The overlapping pairs of single events are found only when asked for, by a sweep over the
+// start and end dates, and kept until the calendar next changes; the occurrences sharing a day with an event are
+// found from the calendar's rules.
+// A calendar's engine is made by Calendar.conflicts(); like the calendar, it may be used from many threads.
+public final class ConflictEngine {
+    private final Calendar cal;
+    // occupancy[d] is the number of events and occurrences on day d; index 0 is unused
+    private final int[] occupancy = new int[CalendarEvent.maxDay + 1];
+    // the days of each event on the calendar, by id, as they were when the engine last counted them
+    private final HashMap<Long, Long> masks = new HashMap<>();
+    // the occurrences in the calendar's month of each recurring event on it, by id, as they were when counted
+    private final HashMap<Long, List<RecurrenceRule.Occurrence>> occurrences = new HashMap<>();
+    // the overlapping pairs found by the last sweep, null once the calendar has changed since
+    private volatile List<Conflict> pairs;
+
+    // REQUIRES: the calendar's write lock is held
+    // EFFECTS: counts the events and occurrences on cal and registers to follow its later changes
+    ConflictEngine(Calendar cal) {
+        this.cal = cal;
+        for (CalendarEvent e : cal.listOfEvents) {
+            count(e, 1);
+        }
+        for (RecurrenceRule r : cal.rulesById.values()) {
+            countRule(r);
+        }
+        cal.addObserver(new Counter());
+    }
+
+    // EFFECTS: returns the number of events and occurrences on the given day, 0 if the day is not in the month
+    public int occupancy(int day) {
+        if (day < 1 || day > CalendarEvent.maxDay) {
+            return 0;
+        }
+        cal.lock.readLock().lock();
+        try {
+            return occupancy[day];
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: returns the days that have more than one event or occurrence, in order
+    public List<Integer> doubleBookedDays() {
+        List<Integer> days = new ArrayList<>();
+        cal.lock.readLock().lock();
+        try {
+            for (int d = 1; d <= CalendarEvent.maxDay; d++) {
+                if (occupancy[d] > 1) {
+                    days.add(d);
+                }
+            }
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+        return days;
+    }
+
+    // EFFECTS: returns true if e is on the calendar and shares at least one of its days with another event or an
+    //          occurrence
+    public boolean hasConflict(CalendarEvent e) {
+        cal.lock.readLock().lock();
+        try {
+            return cal.eventsById.get(e.id) == e && anyDoubleBooked(e.startDate, e.endDate);
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: returns true if o is an occurrence in the calendar's month of a recurring event on the calendar,
+    //          and shares at least one of its days with an event or another occurrence
+    public boolean hasConflict(RecurrenceRule.Occurrence o) {
+        YearMonth ym = cal.getYearMonth();
+        cal.lock.readLock().lock();
+        try {
+            List<RecurrenceRule.Occurrence> counted = occurrences.get(o.getRule().id);
+            return counted != null && counted.contains(o) && anyDoubleBooked(o.firstDayIn(ym), o.lastDayIn(ym));
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // REQUIRES: a lock of the calendar is held
+    // EFFECTS: returns true if any day from start to end that is in the month has more than one event or occurrence
+    private boolean anyDoubleBooked(int start, int end) {
+        for (int d = Math.max(start, 1); d <= Math.min(end, CalendarEvent.maxDay); d++) {
+            if (occupancy[d] > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // EFFECTS: returns the other events sharing at least one day with e, in the order they were put on those
+    //          days; takes time proportional to the number of days of e times the events on each
+    public List<CalendarEvent> conflictsWith(CalendarEvent e) {
+        LinkedHashSet<CalendarEvent> found = new LinkedHashSet<>();
+        cal.lock.readLock().lock();
+        try {
+            for (int d = Math.max(e.startDate, 1); d <= Math.min(e.endDate, CalendarEvent.maxDay); d++) {
+                found.addAll(cal.eventsByDay.get(d));
+            }
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+        found.remove(e);
+        return new ArrayList<>(found);
+    }
+
+    // EFFECTS: returns the occurrences of the recurring events on the calendar sharing at least one day with e, in
+    //          the order the rules were added and then by date
+    public List<RecurrenceRule.Occurrence> occurrencesConflictingWith(CalendarEvent e) {
+        return cal.occurrencesBetween(e.getStartDate(), e.getEndDate());
+    }
+
+    // EFFECTS: returns every pair of events that share at least one day, each pair once, with the one added to
+    //          the calendar first as the first of the pair. Takes O(n + k) time for n events and k pairs.
+    public List<Conflict> overlappingPairs() {
+        List<Conflict> found = pairs;
+        if (found != null) {
+            return found;
+        }
+        cal.lock.readLock().lock();
+        try {
+            found = Collections.unmodifiableList(sweep());
+            pairs = found;
+            return found;
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // REQUIRES: a lock of the calendar is held
+    // EFFECTS: returns the overlapping pairs by sweeping over the days in order, keeping the events that have
+    //          started but not ended; each event that starts is paired with all of those. The start and end
+    //          dates are sorted by putting them in per-day buckets, since there are only as many as days.
+    private List<Conflict> sweep() {
+        List<List<CalendarEvent>> starting = new ArrayList<>();
+        List<List<CalendarEvent>> ending = new ArrayList<>();
+        for (int d = 0; d <= CalendarEvent.maxDay + 1; d++) {
+            starting.add(new ArrayList<>());
+            ending.add(new ArrayList<>());
+        }
+        for (CalendarEvent e : cal.listOfEvents) {
+            starting.get(e.startDate).add(e);
+            ending.get(e.endDate + 1).add(e);
+        }
+        List<Conflict> found = new ArrayList<>();
+        LinkedHashSet<CalendarEvent> active = new LinkedHashSet<>();
+        for (int d = 1; d <= CalendarEvent.maxDay; d++) {
+            active.removeAll(ending.get(d));
+            for (CalendarEvent e : starting.get(d)) {
+                for (CalendarEvent other : active) {
+                    found.add(other.order < e.order ? new Conflict(other, e) : new Conflict(e, other));
+                }
+                active.add(e);
+            }
+        }
+        return found;
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: adds by (1 or -1) to the count of every day e is on now, and records or forgets those days
+    private void count(CalendarEvent e, int by) {
+        for (int d = Math.max(e.startDate, 1); d <= Math.min(e.endDate, CalendarEvent.maxDay); d++) {
+            occupancy[d] += by;
+        }
+        if (by > 0) {
+            masks.put(e.id, e.dayMask);
+        } else {
+            masks.remove(e.id);
+        }
+        pairs = null;
+    }
+
+    // REQUIRES: the calendar's write lock is held, and r is on it
+    // MODIFIES: this
+    // EFFECTS: adds 1 to the count of every day of each occurrence of r in the calendar's month, and records them
+    private void countRule(RecurrenceRule r) {
+        YearMonth ym = cal.getYearMonth();
+        if (ym == null) {
+            return;
+        }
+        List<RecurrenceRule.Occurrence> found = r.occurrencesIn(ym);
+        for (RecurrenceRule.Occurrence o : found) {
+            for (int d = o.firstDayIn(ym); d <= o.lastDayIn(ym); d++) {
+                occupancy[d]++;
+            }
+        }
+        occurrences.put(r.id, found);
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: takes away the counts of the occurrences of the recurring event with the given id, as they were when
+    //          they were counted
+    private void uncountRule(long ruleId) {
+        List<RecurrenceRule.Occurrence> counted = occurrences.remove(ruleId);
+        if (counted == null) {
+            return;
+        }
+        YearMonth ym = cal.getYearMonth();
+        for (RecurrenceRule.Occurrence o : counted) {
+            for (int d = o.firstDayIn(ym); d <= o.lastDayIn(ym); d++) {
+                occupancy[d]--;
+            }
+        }
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: takes 1 from the count of every day in mask
+    private void uncount(long mask) {
+        for (int d = 1; d <= CalendarEvent.maxDay; d++) {
+            if ((mask & (1L << d)) != 0) {
+                occupancy[d]--;
+            }
+        }
+    }
+
+    // Represents two events that share at least one day
+    public static final class Conflict {
+        private final CalendarEvent first;
+        private final CalendarEvent second;
+
+        Conflict(CalendarEvent first, CalendarEvent second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        public CalendarEvent getFirst() {
+            return first;
+        }
+
+        public CalendarEvent getSecond() {
+            return second;
+        }
+
+        // EFFECTS: returns the first day both events are on
+        public int getFirstSharedDay() {
+            return Math.max(first.getStartDate(), second.getStartDate());
+        }
+
+        // EFFECTS: returns the last day both events are on
+        public int getLastSharedDay() {
+            return Math.min(first.getEndDate(), second.getEndDate());
+        }
+    }
+
+    // Keeps the counts up to date as events are added, deleted, or moved to other days, and as recurring events are
+    // added, deleted, or have an occurrence skipped
+    private class Counter implements CalendarObserver {
+        @Override
+        public void eventAdded(CalendarEvent e) {
+            count(e, 1);
+        }
+
+        @Override
+        public void eventDeleted(CalendarEvent e) {
+            count(e, -1);
+        }
+
+        @Override
+        public void eventChanged(CalendarEvent e) {
+            Long mask = masks.get(e.id);
+            if (mask != null && mask != e.dayMask) {
+                uncount(mask);
+                count(e, 1);
+            }
+        }
+
+        @Override
+        public void ruleAdded(RecurrenceRule r) {
+            countRule(r);
+        }
+
+        @Override
+        public void ruleDeleted(RecurrenceRule r) {
+            uncountRule(r.id);
+        }
+
+        @Override
+        public void ruleChanged(RecurrenceRule r) {
+            uncountRule(r.id);
+            countRule(r);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package model;
+
+// Represents the number of events on each day of a month as a segment tree, so that adding an event to a run of
+// days, summing the counts over a run of days, and finding the first run of days with no events all take
+// O(log d) time for a month of d days.
+// Each node covers a run of days and holds, for that run: the smallest count, the sum of the counts, and the
+// lengths of the longest run of days at the smallest count starting at its first day, ending at its last day,
+// and anywhere. Adding to all of a node's days does not change which days have the smallest count, so it only
+// updates the node's own smallest count and sum and records the amount added in the node, rather than in its
+// descendants. The true count of a day is therefore the sum of what is recorded along the path to it; queries add
+// this up on the way down and never change the tree, so many can run at once.
+final class DayLoadTree {
+    private final int days;
+    private final int[] min;
+    private final long[] sum;
+    private final int[] added;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] longest;
+
+    // REQUIRES: days >= 1
+    // EFFECTS: constructs a tree for days 1 to days, with no events on any of them
+    DayLoadTree(int days) {
+        this.days = days;
+        int size = 4 * days;
+        min = new int[size];
+        sum = new long[size];
+        added = new int[size];
+        prefix = new int[size];
+        suffix = new int[size];
+        longest = new int[size];
+        build(1, 1, days);
+    }
+
+    // EFFECTS: returns the number of days the tree covers
+    int getDays() {
+        return days;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds by to the count of every day from start to end, cut off at the ends of the month
+    void add(int start, int end, int by) {
+        int from = Math.max(start, 1);
+        int to = Math.min(end, days);
+        if (from <= to) {
+            add(1, 1, days, from, to, by);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds by to the counts of the days from start to end within the node covering lo to hi
+    private void add(int node, int lo, int hi, int start, int end, int by) {
+        if (start <= lo && hi <= end) {
+            min[node] += by;
+            sum[node] += (long) by * (hi - lo + 1);
+            added[node] += by;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (start <= mid) {
+            add(2 * node, lo, mid, start, end, by);
+        }
+        if (end > mid) {
+            add(2 * node + 1, mid + 1, hi, start, end, by);
+        }
+        pull(node, lo, hi);
+    }
+
+    // EFFECTS: returns the sum of the counts of the days from start to end, cut off at the ends of the month
+    long sum(int start, int end) {
+        int from = Math.max(start, 1);
+        int to = Math.min(end, days);
+        return from <= to ? sum(1, 1, days, from, to, 0) : 0;
+    }
+
+    // EFFECTS: returns the sum of the counts of the days from start to end within the node covering lo to hi,
+    //          where offset has been added to all of the node's days by its ancestors
+    private long sum(int node, int lo, int hi, int start, int end, int offset) {
+        if (start <= lo && hi <= end) {
+            return sum[node] + (long) offset * (hi - lo + 1);
+        }
+        int mid = (lo + hi) >>> 1;
+        int below = offset + added[node];
+        long total = 0;
+        if (start <= mid) {
+            total += sum(2 * node, lo, mid, start, end, below);
+        }
+        if (end > mid) {
+            total += sum(2 * node + 1, mid + 1, hi, start, end, below);
+        }
+        return total;
+    }
+
+    // REQUIRES: length >= 1
+    // EFFECTS: returns the first day of the earliest run of length days whose counts are all 0, or -1 if there is
+    //          no such run
+    int earliestFree(int length) {
+        if (min[1] != 0 || longest[1] < length) {
+            return -1;
+        }
+        return earliestFree(1, 1, days, length, 0);
+    }
+
+    // REQUIRES: the node covering lo to hi has a run of at least length days with count 0, where offset has been
+    //           added to all of its days by its ancestors
+    // EFFECTS: returns the first day of the earliest such run; looks in the left half first, then at the runs
+    //          crossing the middle, then in the right half
+    private int earliestFree(int node, int lo, int hi, int length, int offset) {
+        if (lo == hi) {
+            return lo;
+        }
+        int left = 2 * node;
+        int right = left + 1;
+        int mid = (lo + hi) >>> 1;
+        int below = offset + added[node];
+        boolean leftFree = min[left] + below == 0;
+        boolean rightFree = min[right] + below == 0;
+        if (leftFree && longest[left] >= length) {
+            return earliestFree(left, lo, mid, length, below);
+        }
+        int crossing = leftFree ? suffix[left] : 0;
+        if (crossing + (rightFree ? prefix[right] : 0) >= length) {
+            return mid - crossing + 1;
+        }
+        return earliestFree(right, mid + 1, hi, length, below);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets up the nodes covering lo to hi, with every count 0
+    private void build(int node, int lo, int hi) {
+        if (lo == hi) {
+            prefix[node] = 1;
+            suffix[node] = 1;
+            longest[node] = 1;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        build(2 * node, lo, mid);
+        build(2 * node + 1, mid + 1, hi);
+        pull(node, lo, hi);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: recomputes the node covering lo to hi from its children and the amount added to the node itself
+    private void pull(int node, int lo, int hi) {
+        int left = 2 * node;
+        int right = left + 1;
+        int mid = (lo + hi) >>> 1;
+        int low = Math.min(min[left], min[right]);
+        int leftRun = min[left] == low ? 1 : 0;
+        int rightRun = min[right] == low ? 1 : 0;
+        min[node] = low + added[node];
+        sum[node] = sum[left] + sum[right] + (long) added[node] * (hi - lo + 1);
+        prefix[node] = leftRun * prefix[left];
+        if (prefix[node] == mid - lo + 1) {
+            prefix[node] += rightRun * prefix[right];
+        }
+        suffix[node] = rightRun * suffix[right];
+        if (suffix[node] == hi - mid) {
+            suffix[node] += leftRun * suffix[left];
+        }
+        longest[node] = Math.max(leftRun * longest[left], rightRun * longest[right]);
+        longest[node] = Math.max(longest[node], leftRun * rightRun * (suffix[left] + prefix[right]));
+    }
+}
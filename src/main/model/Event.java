@@ -1,6 +1,5 @@
 package model;
 
-import java.util.Calendar;
 import java.util.Date;
 
 
@@ -19,7 +18,18 @@ public class Event {
      * @param description a description of the event
      */
     public Event(String description) {
-        dateLogged = Calendar.getInstance().getTime();
+        this(description, new Date());
+    }
+
+    /**
+     * Creates an event with the given description
+     * and date/time stamp.
+     *
+     * @param description a description of the event
+     * @param dateLogged  when the event happened
+     */
+    Event(String description, Date dateLogged) {
+        this.dateLogged = dateLogged;
         this.description = description;
     }
 
@@ -1,64 +1,406 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Represents a log of alarm system events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ * The log keeps only the most recent events, up to its capacity;
+ * older events are overwritten and counted as dropped. Any number of
+ * threads may log events at once without waiting for each other, and
+ * iterating the log works on a snapshot, so it never holds up threads that
+ * are logging. Only clearing the log or changing its capacity keeps threads
+ * from logging, for as long as it takes to swap in the new ring, so that no
+ * event goes into a ring that has already been replaced.
+ * Changes to calendars are logged as structured entries (what kind of change,
+ * the event, the values involved and the time in milliseconds); their
+ * descriptions are only built when the log is iterated, so logging a change
+ * creates nothing but the log entry itself.
+ * Every entry has a sequence number that keeps increasing across clears, so a
+ * reader can follow the log with read(). One reader may also have the log keep
+ * the entries it has not read yet: an event that would overwrite one of them is
+ * not logged but counted as refused, so logging never waits, even while the
+ * calendar that logs the change is locked.
  */
 public class EventLog implements Iterable<Event> {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The kinds of entry in the log.
+     */
+    public enum Type {
+        TEXT, EVENT_ADDED, EVENT_DELETED, TITLE_CHANGED, DATES_CHANGED, CATEGORY_CHANGED
+    }
+
     /**
      * the only EventLog in the system (Singleton Design Pattern)
      */
-    private static EventLog theLog;
-    private Collection<Event> events;
+    private static final EventLog theLog = new EventLog();
+    private volatile Ring events;
+    // shared by threads logging, taken alone to replace events
+    private final ReentrantReadWriteLock resize = new ReentrantReadWriteLock();
+    // the position of the reader whose unread events are never overwritten, or null
+    private volatile AtomicLong protectedReader;
+    private final AtomicLong refused = new AtomicLong();
 
     /**
      * Prevent external construction.
      * (Singleton Design Pattern).
      */
     private EventLog() {
-        events = new ArrayList<Event>();
+        events = new Ring(DEFAULT_CAPACITY, 0);
     }
 
     /**
-     * Gets instance of EventLog - creates it
-     * if it doesn't already exist.
+     * Gets instance of EventLog.
      * (Singleton Design Pattern)
      *
      * @return instance of EventLog
      */
     public static EventLog getInstance() {
-        if (theLog == null) {
-            theLog = new EventLog();
-        }
-
         return theLog;
     }
 
     /**
-     * Adds an event to the event log.
+     * Adds an event to the event log, overwriting the oldest
+     * event if the log is full.
      *
      * @param e the event to be added
      */
     public void logEvent(Event e) {
-        events.add(e);
+        add(new Slot(Type.TEXT, e, null, null, null, 0, 0));
+    }
+
+    /**
+     * Logs that an event has been added to a calendar.
+     *
+     * @param e the event that was added
+     */
+    public void logAdded(CalendarEvent e) {
+        add(new Slot(Type.EVENT_ADDED, null, e.getTitle(), null, e.getCategory(),
+                e.getStartDate(), e.getEndDate()));
+    }
+
+    /**
+     * Logs that an event has been deleted from a calendar.
+     *
+     * @param e the event that was deleted
+     */
+    public void logDeleted(CalendarEvent e) {
+        add(new Slot(Type.EVENT_DELETED, null, e.getTitle(), null, null, 0, 0));
+    }
+
+    /**
+     * Logs that the title of an event has been changed.
+     *
+     * @param e        the event, already holding its new title
+     * @param oldTitle the title it had before
+     */
+    public void logTitleChanged(CalendarEvent e, String oldTitle) {
+        add(new Slot(Type.TITLE_CHANGED, null, e.getTitle(), oldTitle, e.getTitle(), 0, 0));
+    }
+
+    /**
+     * Logs that the dates of an event have been changed.
+     *
+     * @param e the event, already holding its new dates
+     */
+    public void logDatesChanged(CalendarEvent e) {
+        add(new Slot(Type.DATES_CHANGED, null, e.getTitle(), null, null,
+                e.getStartDate(), e.getEndDate()));
+    }
+
+    /**
+     * Logs that the category of an event has been changed.
+     *
+     * @param e           the event, already holding its new category
+     * @param oldCategory the category it had before
+     */
+    public void logCategoryChanged(CalendarEvent e, String oldCategory) {
+        add(new Slot(Type.CATEGORY_CHANGED, null, e.getTitle(), oldCategory, e.getCategory(), 0, 0));
+    }
+
+    /**
+     * Puts the slot in the log, or counts it as refused if there is no room
+     * for it without overwriting an event the protected reader has not read.
+     */
+    private void add(Slot slot) {
+        resize.readLock().lock();
+        try {
+            if (!events.add(slot, protectedReader)) {
+                refused.incrementAndGet();
+            }
+        } finally {
+            resize.readLock().unlock();
+        }
     }
 
     /**
      * Clears the event log and logs the event.
      */
     public void clear() {
-        events.clear();
+        replace(events.capacity());
         logEvent(new Event("Event log cleared."));
     }
 
+    /**
+     * Clears the event log and changes the number of events it keeps.
+     *
+     * @param capacity the number of most recent events to keep; must be positive
+     */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        replace(capacity);
+    }
+
+    /**
+     * Replaces the ring with an empty one of the given capacity once no thread
+     * is logging, so that the new ring's sequence numbers start after every
+     * event put in the old one.
+     */
+    private void replace(int capacity) {
+        resize.writeLock().lock();
+        try {
+            events = new Ring(capacity, events.end());
+        } finally {
+            resize.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of most recent events the log keeps.
+     *
+     * @return the capacity of the log
+     */
+    public int getCapacity() {
+        return events.capacity();
+    }
+
+    /**
+     * Gets the number of events logged since the log was last cleared
+     * that have been overwritten and are no longer in the log.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return events.dropped();
+    }
+
+    /**
+     * Gets the number of events that were not logged because they would have
+     * overwritten events the protected reader had not read. Clearing the log
+     * does not reset it.
+     *
+     * @return the number of refused events
+     */
+    public long getRefusedCount() {
+        return refused.get();
+    }
+
+    /**
+     * Gets the sequence number of the oldest event still in the log
+     * (or of the next event logged, if the log is empty).
+     *
+     * @return the sequence number to start reading the log from
+     */
+    public long getFirstSeq() {
+        return events.first();
+    }
+
+    /**
+     * Copies up to max events, starting at sequence number from, into the given list,
+     * oldest first. Events that were overwritten or cleared before being read are
+     * skipped; reading stops at an event that is still being logged.
+     *
+     * @param from the sequence number of the first event to read
+     * @param max  the most events to read
+     * @param into the list the events are added to
+     * @return the sequence number to read from next time
+     */
+    public long read(long from, int max, List<Event> into) {
+        return events.read(from, max, into);
+    }
+
+    /**
+     * Keeps the events that the reader whose next sequence number is held by
+     * position has not read yet: while the log has no room for an event
+     * without overwriting one of them, the event is refused instead. Passing
+     * null lets new events overwrite the oldest again.
+     *
+     * @param position the sequence number the reader will read next, or null
+     */
+    public void setProtectedReader(AtomicLong position) {
+        protectedReader = position;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the events in the log, oldest first.
+     * Events logged after this is called are not included.
+     */
     @Override
     public Iterator<Event> iterator() {
-        return events.iterator();
+        return events.snapshot().iterator();
+    }
+
+    /**
+     * A fixed-size ring of log slots. Each event is given the next sequence
+     * number and stored in slot (sequence mod capacity), replacing whatever
+     * was there. A slot records the sequence number it was written for, so a
+     * snapshot can tell whether a slot still holds the event it expects.
+     * Sequence numbers start at base, where the previous ring left off.
+     */
+    private final class Ring {
+        private final AtomicReferenceArray<Slot> slots;
+        private final AtomicLong next;
+        private final long base;
+
+        Ring(int capacity, long base) {
+            slots = new AtomicReferenceArray<>(capacity);
+            next = new AtomicLong(base);
+            this.base = base;
+        }
+
+        int capacity() {
+            return slots.length();
+        }
+
+        long end() {
+            return next.get();
+        }
+
+        // returns false, without logging the slot, if it would overwrite an event the reader has not read
+        boolean add(Slot slot, AtomicLong reader) {
+            long seq = reader == null ? next.getAndIncrement() : claim(reader);
+            if (seq < 0) {
+                return false;
+            }
+            int index = (int) (seq % slots.length());
+            slot.seq = seq;
+            while (true) {
+                Slot current = slots.get(index);
+                if (current != null && current.seq > seq) {
+                    return true; // a newer event already took the slot, so this one counts as dropped
+                }
+                if (slots.compareAndSet(index, current, slot)) {
+                    return true;
+                }
+            }
+        }
+
+        // takes the next sequence number if its slot holds no event the reader has not read, else returns -1;
+        // events from before this ring started were cleared, so they need no room
+        private long claim(AtomicLong reader) {
+            while (true) {
+                long seq = next.get();
+                if (seq - Math.max(reader.get(), base) >= slots.length()) {
+                    return -1;
+                }
+                if (next.compareAndSet(seq, seq + 1)) {
+                    return seq;
+                }
+            }
+        }
+
+        long first() {
+            return Math.max(base, next.get() - slots.length());
+        }
+
+        long dropped() {
+            return Math.max(0, next.get() - base - slots.length());
+        }
+
+        long read(long from, int max, List<Event> into) {
+            long end = next.get();
+            long seq = Math.max(from, base);
+            Slot oldest = slots.get((int) (seq % slots.length()));
+            if (end - seq > slots.length() && oldest != null && oldest.seq > seq) {
+                seq = end - slots.length(); // the reader fell behind and lost what it had not read
+            }
+            for (int n = 0; seq < end && n < max; seq++) {
+                Slot slot = slots.get((int) (seq % slots.length()));
+                if (slot == null || slot.seq < seq) {
+                    break; // still being logged
+                }
+                if (slot.seq == seq) {
+                    into.add(slot.toEvent());
+                    n++;
+                }
+            }
+            return seq;
+        }
+
+        ArrayList<Event> snapshot() {
+            long end = next.get();
+            ArrayList<Event> copy = new ArrayList<>();
+            for (long seq = Math.max(base, end - slots.length()); seq < end; seq++) {
+                Slot slot = slots.get((int) (seq % slots.length()));
+                if (slot != null && slot.seq == seq) {
+                    copy.add(slot.toEvent());
+                }
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * One entry in the log: its sequence number, the time it was logged, and
+     * either a ready-made Event (for TEXT entries) or the values needed to
+     * describe the change, copied so the log does not keep events alive.
+     */
+    private static final class Slot {
+        private long seq;
+        private final long time;
+        private final Type type;
+        private final Event text;
+        private final String title;
+        private final String from;
+        private final String to;
+        private final int start;
+        private final int end;
+
+        Slot(Type type, Event text, String title, String from, String to, int start, int end) {
+            this.time = System.currentTimeMillis();
+            this.type = type;
+            this.text = text;
+            this.title = title;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.end = end;
+        }
+
+        Event toEvent() {
+            if (type == Type.TEXT) {
+                return text;
+            }
+            return new Event(describe(), new Date(time));
+        }
+
+        String describe() {
+            switch (type) {
+                case EVENT_ADDED:
+                    return "Event created with... \tTitle: " + title + "\tStart date: " + start + "\tEnd date: "
+                            + end + "\tCategory: " + to;
+                case EVENT_DELETED:
+                    return "Event named " + title + " deleted.";
+                case TITLE_CHANGED:
+                    return "Event title changed from " + from + "  to " + to;
+                case DATES_CHANGED:
+                    return "Event titled " + title + ": Start date changed to " + start + " and end date changed to "
+                            + end;
+                default:
+                    return "Event titled " + title + ": Category changed from " + from + " to " + to;
+            }
+        }
     }
 }
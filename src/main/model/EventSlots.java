@@ -0,0 +1,99 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Represents the events on a calendar in the order they were added, so that adding and deleting an event both take
+// O(1) amortized time. Each event records the slot it is in; deleting it empties the slot rather than shifting the
+// events after it, and once empty slots outnumber the events, the events are moved down into a new list of slots
+// in one pass, which costs no more than the deletes that emptied them.
+final class EventSlots implements Iterable<CalendarEvent> {
+    // the fewest empty slots that are worth moving the events down for
+    private static final int MIN_COMPACT = 16;
+
+    private ArrayList<CalendarEvent> slots = new ArrayList<>();
+    private int size;
+
+    // EFFECTS: returns the number of events
+    int size() {
+        return size;
+    }
+
+    // EFFECTS: returns true if there are no events
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // REQUIRES: e is not in the list
+    // MODIFIES: this, e
+    // EFFECTS: adds e after every other event
+    void add(CalendarEvent e) {
+        e.slot = slots.size();
+        slots.add(e);
+        size++;
+    }
+
+    // REQUIRES: e is in the list
+    // MODIFIES: this, e
+    // EFFECTS: removes e, leaving the others in order
+    void remove(CalendarEvent e) {
+        slots.set(e.slot, null);
+        size--;
+        int empty = slots.size() - size;
+        if (empty >= MIN_COMPACT && empty > size) {
+            compact();
+        }
+    }
+
+    // EFFECTS: returns a new list of the events, in order
+    ArrayList<CalendarEvent> toList() {
+        ArrayList<CalendarEvent> list = new ArrayList<>(size);
+        for (CalendarEvent e : this) {
+            list.add(e);
+        }
+        return list;
+    }
+
+    // EFFECTS: returns an iterator over the events, in order; the list must not change while it is used
+    @Override
+    public Iterator<CalendarEvent> iterator() {
+        return new Iterator<CalendarEvent>() {
+            private int next = skipEmpty(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < slots.size();
+            }
+
+            @Override
+            public CalendarEvent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                CalendarEvent e = slots.get(next);
+                next = skipEmpty(next + 1);
+                return e;
+            }
+        };
+    }
+
+    // EFFECTS: returns the first slot from the given one on that holds an event, or the number of slots if none does
+    private int skipEmpty(int from) {
+        int slot = from;
+        while (slot < slots.size() && slots.get(slot) == null) {
+            slot++;
+        }
+        return slot;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves the events down into a new list of slots with none empty
+    private void compact() {
+        ArrayList<CalendarEvent> live = toList();
+        for (int i = 0; i < live.size(); i++) {
+            live.get(i).slot = i;
+        }
+        slots = live;
+    }
+}
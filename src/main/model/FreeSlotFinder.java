@@ -0,0 +1,232 @@
+package model;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Finds room on a calendar for new events: the earliest run of days with no events, or no events of a given
+// category; the run of days with the fewest events; and how many events there are over a run of days. Each
+// occurrence of a recurring event in the calendar's month counts as an event. The number of events on each day,
+// overall and per category, is kept in a DayLoadTree, which is updated as the calendar changes in O(log d) time
+// for a month of d days, so each query also takes O(log d) time. The load of every run of a given length is kept
+// in a WindowLoadTree, made the first time leastLoaded is asked about that length, so from then on leastLoaded
+// takes O(1) time.
+// A calendar's finder is made by Calendar.freeSlots(); like the calendar, it may be used from many threads.
+public final class FreeSlotFinder {
+    private final Calendar cal;
+    private final int days;
+    private final DayLoadTree all;
+    private final HashMap<String, DayLoadTree> byCategory = new HashMap<>();
+    // the load of every run of days, by the runs' length; made by readers, so it has to be safe for them to share
+    private final ConcurrentHashMap<Integer, WindowLoadTree> windows = new ConcurrentHashMap<>();
+    // where each event on the calendar was counted, by id, so it can be taken away again once it has changed
+    private final HashMap<Long, Placement> placements = new HashMap<>();
+    // the occurrences in the month of each recurring event on the calendar, by id, as they were when counted
+    private final HashMap<Long, List<RecurrenceRule.Occurrence>> occurrences = new HashMap<>();
+
+    // REQUIRES: the calendar's write lock is held
+    // EFFECTS: counts the events and occurrences on cal over the days of its month and registers to follow its
+    //          later changes
+    FreeSlotFinder(Calendar cal) {
+        this.cal = cal;
+        YearMonth ym = cal.getYearMonth();
+        days = ym == null ? CalendarEvent.maxDay : ym.lengthOfMonth();
+        all = new DayLoadTree(days);
+        for (CalendarEvent e : cal.listOfEvents) {
+            place(e);
+        }
+        for (RecurrenceRule r : cal.rulesById.values()) {
+            placeRule(r);
+        }
+        cal.addObserver(new Counter());
+    }
+
+    // EFFECTS: returns the number of days in the calendar's month, which the finder searches
+    public int getDays() {
+        return days;
+    }
+
+    // REQUIRES: length >= 1
+    // EFFECTS: returns the first day of the earliest run of length days with no events, or -1 if there is none
+    public int earliestFree(int length) {
+        cal.lock.readLock().lock();
+        try {
+            return all.earliestFree(length);
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // REQUIRES: length >= 1
+    // EFFECTS: returns the first day of the earliest run of length days with no events of the given category, or
+    //          -1 if there is none
+    public int earliestFree(int length, String category) {
+        cal.lock.readLock().lock();
+        try {
+            DayLoadTree tree = byCategory.get(category);
+            if (tree == null) {
+                return length <= days ? 1 : -1;
+            }
+            return tree.earliestFree(length);
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // REQUIRES: length >= 1
+    // EFFECTS: returns the first day of the run of length days with the fewest events, counting an event once for
+    //          each of those days it is on; the earliest such run if there are several, -1 if the month is shorter
+    //          than length
+    public int leastLoaded(int length) {
+        if (length > days) {
+            return -1;
+        }
+        cal.lock.readLock().lock();
+        try {
+            return windows.computeIfAbsent(length, l -> new WindowLoadTree(l, all)).leastLoaded();
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // EFFECTS: returns the number of events on the days from start to end, counting an event once for each of
+    //          those days it is on; days outside the month are not counted
+    public long load(int start, int end) {
+        cal.lock.readLock().lock();
+        try {
+            return all.sum(start, end);
+        } finally {
+            cal.lock.readLock().unlock();
+        }
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: counts e on its days, overall and in its category
+    private void place(CalendarEvent e) {
+        Placement p = new Placement(e.startDate, e.endDate, e.category);
+        count(p.start, p.end, p.category, 1);
+        placements.put(e.id, p);
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: takes away the counts of the event with the given id, as it was when it was counted
+    private void remove(long id) {
+        Placement p = placements.remove(id);
+        if (p != null) {
+            count(p.start, p.end, p.category, -1);
+        }
+    }
+
+    // REQUIRES: the calendar's write lock is held, and r is on it
+    // MODIFIES: this
+    // EFFECTS: counts each occurrence of r in the month on its days, overall and in its category
+    private void placeRule(RecurrenceRule r) {
+        YearMonth ym = cal.getYearMonth();
+        if (ym == null) {
+            return;
+        }
+        List<RecurrenceRule.Occurrence> found = r.occurrencesIn(ym);
+        for (RecurrenceRule.Occurrence o : found) {
+            count(o.firstDayIn(ym), o.lastDayIn(ym), o.getCategory(), 1);
+        }
+        occurrences.put(r.id, found);
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: takes away the counts of the occurrences of the recurring event with the given id, as they were when
+    //          they were counted
+    private void removeRule(long ruleId) {
+        List<RecurrenceRule.Occurrence> counted = occurrences.remove(ruleId);
+        if (counted == null) {
+            return;
+        }
+        YearMonth ym = cal.getYearMonth();
+        for (RecurrenceRule.Occurrence o : counted) {
+            count(o.firstDayIn(ym), o.lastDayIn(ym), o.getCategory(), -1);
+        }
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: adds by to the count of every day from start to end, overall and in the given category
+    private void count(int start, int end, String category, int by) {
+        count(start, end, by);
+        DayLoadTree tree = byCategory.get(category);
+        if (tree == null) {
+            tree = new DayLoadTree(days);
+            byCategory.put(category, tree);
+        }
+        tree.add(start, end, by);
+    }
+
+    // REQUIRES: the calendar's write lock is held
+    // MODIFIES: this
+    // EFFECTS: adds by to the overall count of every day from start to end, and to the loads of the runs over them
+    private void count(int start, int end, int by) {
+        all.add(start, end, by);
+        for (WindowLoadTree window : windows.values()) {
+            window.add(start, end, by);
+        }
+    }
+
+    // Represents the days and category an event was counted under
+    private static final class Placement {
+        final int start;
+        final int end;
+        final String category;
+
+        Placement(int start, int end, String category) {
+            this.start = start;
+            this.end = end;
+            this.category = category;
+        }
+
+        // EFFECTS: returns true if e is still on these days and in this category
+        boolean matches(CalendarEvent e) {
+            return start == e.startDate && end == e.endDate && category.equals(e.category);
+        }
+    }
+
+    // Keeps the counts up to date as events are added, deleted, moved to other days, or put in other categories,
+    // and as recurring events are added, deleted, or have an occurrence skipped
+    private class Counter implements CalendarObserver {
+        @Override
+        public void eventAdded(CalendarEvent e) {
+            place(e);
+        }
+
+        @Override
+        public void eventDeleted(CalendarEvent e) {
+            remove(e.id);
+        }
+
+        @Override
+        public void eventChanged(CalendarEvent e) {
+            Placement p = placements.get(e.id);
+            if (p != null && !p.matches(e)) {
+                remove(e.id);
+                place(e);
+            }
+        }
+
+        @Override
+        public void ruleAdded(RecurrenceRule r) {
+            placeRule(r);
+        }
+
+        @Override
+        public void ruleDeleted(RecurrenceRule r) {
+            removeRule(r.id);
+        }
+
+        @Override
+        public void ruleChanged(RecurrenceRule r) {
+            removeRule(r.id);
+            placeRule(r);
+        }
+    }
+}
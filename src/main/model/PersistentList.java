@@ -0,0 +1,214 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+// Represents an immutable list. "Changing" it returns a new list that shares all but O(log n) of its nodes with
+// the old one, which is left as it was, so keeping old versions around is cheap. The list is stored as an AVL tree
+// ordered by position, where each node records the size of its subtree.
+final class PersistentList<T> implements Iterable<T> {
+    private final Node<T> root;
+
+    private PersistentList(Node<T> root) {
+        this.root = root;
+    }
+
+    // EFFECTS: returns a list holding the given items in order, built in O(n)
+    static <T> PersistentList<T> of(List<T> items) {
+        return new PersistentList<>(build(items, 0, items.size()));
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns the item at index
+    T get(int index) {
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    // REQUIRES: the items are sorted by key
+    // EFFECTS: returns the index of the item whose key is target, or -1 if there is none, in O(log n) time
+    int indexOf(ToLongFunction<? super T> key, long target) {
+        Node<T> node = root;
+        int before = 0;
+        while (node != null) {
+            long k = key.applyAsLong(node.value);
+            if (target < k) {
+                node = node.left;
+            } else if (target > k) {
+                before += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return before + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns this list with value added at the end
+    PersistentList<T> add(T value) {
+        return new PersistentList<>(insert(root, size(), value));
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns this list with the item at index replaced by value
+    PersistentList<T> set(int index, T value) {
+        return new PersistentList<>(replace(root, index, value));
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns this list without the item at index
+    PersistentList<T> remove(int index) {
+        return new PersistentList<>(delete(root, index));
+    }
+
+    // EFFECTS: returns an iterator over the items in order
+    @Override
+    public Iterator<T> iterator() {
+        return new InOrder<>(root);
+    }
+
+    // EFFECTS: returns a balanced tree of items[from, to)
+    private static <T> Node<T> build(List<T> items, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new Node<>(items.get(mid), build(items, from, mid), build(items, mid + 1, to));
+    }
+
+    // EFFECTS: returns a copy of the tree under node with value inserted at index
+    private static <T> Node<T> insert(Node<T> node, int index, T value) {
+        if (node == null) {
+            return new Node<>(value, null, null);
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.value, insert(node.left, index, value), node.right);
+        }
+        return balance(node.value, node.left, insert(node.right, index - leftSize - 1, value));
+    }
+
+    // EFFECTS: returns a copy of the tree under node with the item at index replaced by value
+    private static <T> Node<T> replace(Node<T> node, int index, T value) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node<>(node.value, replace(node.left, index, value), node.right);
+        } else if (index == leftSize) {
+            return new Node<>(value, node.left, node.right);
+        }
+        return new Node<>(node.value, node.left, replace(node.right, index - leftSize - 1, value));
+    }
+
+    // EFFECTS: returns a copy of the tree under node without the item at index
+    private static <T> Node<T> delete(Node<T> node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.value, delete(node.left, index), node.right);
+        } else if (index > leftSize) {
+            return balance(node.value, node.left, delete(node.right, index - leftSize - 1));
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+        Node<T> next = node.right;
+        while (next.left != null) {
+            next = next.left;
+        }
+        return balance(next.value, node.left, delete(node.right, 0));
+    }
+
+    // EFFECTS: returns a node holding value over left and right, rotated if needed so that the heights of its
+    //          subtrees differ by at most one (left and right must each be balanced and differ in height by at
+    //          most two)
+    private static <T> Node<T> balance(T value, Node<T> left, Node<T> right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            Node<T> mid = left.right;
+            return new Node<>(mid.value, new Node<>(left.value, left.left, mid.left),
+                    new Node<>(value, mid.right, right));
+        } else if (diff < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            Node<T> mid = right.left;
+            return new Node<>(mid.value, new Node<>(value, left, mid.left),
+                    new Node<>(right.value, mid.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node<T> {
+        final T value;
+        final Node<T> left;
+        final Node<T> right;
+        final int size;
+        final int height;
+
+        Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            size = size(left) + size(right) + 1;
+            height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    // Walks the tree in order, keeping the nodes still to visit on a stack
+    private static final class InOrder<T> implements Iterator<T> {
+        private final ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+
+        InOrder(Node<T> root) {
+            pushLeft(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = stack.pop();
+            pushLeft(node.right);
+            return node.value;
+        }
+
+        private void pushLeft(Node<T> node) {
+            for (Node<T> n = node; n != null; n = n.left) {
+                stack.push(n);
+            }
+        }
+    }
+}
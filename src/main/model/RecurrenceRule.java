@@ -0,0 +1,341 @@
+package model;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.Writable;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Represents an event that repeats: every interval days, weeks or months from its first start date, each time
+// lasting the same number of days, until an optional last start date, except on the start dates that have been
+// skipped. The rule is stored as it is, however many times it repeats; its occurrences in a month are only worked
+// out when that month is asked for, starting from the first one that can reach the month rather than from the
+// first one of all, and are then kept, for the EXPANDED_MONTHS months most recently asked for, until the rule next
+// changes.
+public final class RecurrenceRule implements Writable {
+    public enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    // the most months whose occurrences are kept at once
+    static final int EXPANDED_MONTHS = 12;
+
+    // identifies the rule on its calendar: 0 until the rule is first added to one, then kept from then on
+    volatile long id;
+    private final String title;
+    private final LocalDate start;
+    private final int days;
+    private final String category;
+    private final Frequency frequency;
+    private final int interval;
+    // the last date an occurrence may start on, null if the rule repeats forever
+    private final LocalDate until;
+    // the start dates of the occurrences that have been skipped
+    private final TreeSet<LocalDate> exceptions = new TreeSet<>();
+    // the occurrences in each of the months most recently asked for since the rule last changed, least recently
+    // asked for first
+    private final LinkedHashMap<YearMonth, List<Occurrence>> expanded =
+            new LinkedHashMap<YearMonth, List<Occurrence>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<YearMonth, List<Occurrence>> eldest) {
+                    return size() > EXPANDED_MONTHS;
+                }
+            };
+    // the calendar this rule is on, so changes can notify its observers, or null if none; changes are made holding
+    // that calendar's write lock, or CalendarEvent.UNOWNED if there is none
+    volatile Calendar calendar;
+
+    // REQUIRES: interval >= 1
+    // EFFECTS: Instantiates a rule for an event with the given title and category, whose first occurrence starts on
+    //          start and which repeats every interval days, weeks or months (as frequency says) for as long as
+    //          until allows (forever if it is null). Each occurrence lasts the given number of days. Throws
+    //          InvalidDates if days is not from 1 to the most days an event can last, or until is before start.
+    public RecurrenceRule(String title, LocalDate start, int days, String category, Frequency frequency,
+                          int interval, LocalDate until) throws InvalidCategory, InvalidDates {
+        checkInvalidDates(start, days, until);
+        CalendarEvent.checkInvalidCategory(category);
+        this.title = title;
+        this.start = start;
+        this.days = days;
+        this.category = category;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.until = until;
+    }
+
+    // EFFECTS: Instantiates a rule like the constructor above, with the id it was saved with; a calendar it is
+    //          added to keeps that id unless another rule there already has it
+    public RecurrenceRule(long id, String title, LocalDate start, int days, String category, Frequency frequency,
+                          int interval, LocalDate until) throws InvalidCategory, InvalidDates {
+        this(title, start, days, category, frequency, interval, until);
+        this.id = id;
+    }
+
+    // REQUIRES: other's monitor is held
+    // EFFECTS: Instantiates a copy of other, with its id and skipped occurrences, on no calendar
+    private RecurrenceRule(RecurrenceRule other) {
+        id = other.id;
+        title = other.title;
+        start = other.start;
+        days = other.days;
+        category = other.category;
+        frequency = other.frequency;
+        interval = other.interval;
+        until = other.until;
+        exceptions.addAll(other.exceptions);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    // EFFECTS: returns the last date an occurrence may start on, or null if the rule repeats forever
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    // EFFECTS: returns a copy of the rule as it is now, with its id and skipped occurrences, on no calendar
+    synchronized RecurrenceRule copy() {
+        return new RecurrenceRule(this);
+    }
+
+    // EFFECTS: returns the start dates of the skipped occurrences, in order
+    public synchronized List<LocalDate> getExceptions() {
+        return new ArrayList<>(exceptions);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips the occurrence starting on date, if there is one, and tells the rule's calendar; does nothing
+    //          if no occurrence starts on date or it is already skipped
+    public void addException(LocalDate date) {
+        if (!startsOn(date)) {
+            return;
+        }
+        Calendar owner = lockCalendar();
+        try {
+            boolean added;
+            synchronized (this) {
+                added = exceptions.add(date);
+                expanded.clear();
+            }
+            if (added && owner != null) {
+                owner.ruleChanged(this);
+            }
+        } finally {
+            CalendarEvent.unlock(owner);
+        }
+    }
+
+    // EFFECTS: returns the occurrences that are on at least one day of the given month, in order. Takes time
+    //          proportional to their number the first time a month is asked for, and no time after that until
+    //          the rule changes or EXPANDED_MONTHS other months have been asked for since.
+    public synchronized List<Occurrence> occurrencesIn(YearMonth month) {
+        List<Occurrence> found = expanded.get(month);
+        if (found == null) {
+            found = Collections.unmodifiableList(expand(month));
+            expanded.put(month, found);
+        }
+        return found;
+    }
+
+    // EFFECTS: returns the occurrences that are on at least one day of the given month
+    private List<Occurrence> expand(YearMonth month) {
+        LocalDate first = month.atDay(1);
+        LocalDate last = month.atEndOfMonth();
+        List<Occurrence> found = new ArrayList<>();
+        for (long n = firstReaching(month); ; n++) {
+            LocalDate occurrenceStart = nth(n);
+            if (occurrenceStart.isAfter(last) || until != null && occurrenceStart.isAfter(until)) {
+                return found;
+            }
+            LocalDate occurrenceEnd = occurrenceStart.plusDays(days - 1);
+            if (!occurrenceEnd.isBefore(first) && !exceptions.contains(occurrenceStart)) {
+                found.add(new Occurrence(this, occurrenceStart, occurrenceEnd));
+            }
+        }
+    }
+
+    // EFFECTS: returns true if an occurrence, skipped or not, starts on date
+    private boolean startsOn(LocalDate date) {
+        if (date.isBefore(start) || until != null && date.isAfter(until)) {
+            return false;
+        }
+        if (frequency == Frequency.MONTHLY) {
+            long months = ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(date));
+            return months % interval == 0 && nth(months / interval).equals(date);
+        }
+        long period = frequency == Frequency.WEEKLY ? 7L * interval : interval;
+        return (date.toEpochDay() - start.toEpochDay()) % period == 0;
+    }
+
+    // EFFECTS: returns the number of the first occurrence that can be on a day of the month, the first of all
+    //          being number 0, so expanding a month skips the occurrences before it without looking at them.
+    //          An occurrence lasts at most 31 days, so a monthly one on the month starts at most two months earlier.
+    private long firstReaching(YearMonth month) {
+        if (frequency == Frequency.MONTHLY) {
+            long months = ChronoUnit.MONTHS.between(YearMonth.from(start), month) - 2;
+            return Math.max(0, Math.floorDiv(months, interval));
+        }
+        long period = frequency == Frequency.WEEKLY ? 7L * interval : interval;
+        long behind = month.atDay(1).minusDays(days - 1).toEpochDay() - start.toEpochDay();
+        return behind <= 0 ? 0 : (behind + period - 1) / period;
+    }
+
+    // EFFECTS: returns the start date of occurrence number n, the first being number 0; a monthly occurrence that
+    //          would fall after the end of a short month falls on its last day
+    private LocalDate nth(long n) {
+        switch (frequency) {
+            case DAILY:
+                return start.plusDays(n * interval);
+            case WEEKLY:
+                return start.plusWeeks(n * interval);
+            default:
+                return start.plusMonths(n * interval);
+        }
+    }
+
+    // EFFECTS: Checks whether the length and last start date are invalid for a rule starting on start, throwing
+    //          InvalidDates if they are
+    private static void checkInvalidDates(LocalDate start, int days, LocalDate until) throws InvalidDates {
+        if (days < 1 || days > CalendarEvent.maxDay || until != null && until.isBefore(start)) {
+            throw new InvalidDates();
+        }
+    }
+
+    // EFFECTS: Takes the write lock of the calendar this rule is on and returns that calendar, or takes
+    //          CalendarEvent.UNOWNED and returns null if it is on none; tries again if the rule is added or deleted
+    //          before the lock is held
+    private Calendar lockCalendar() {
+        while (true) {
+            Calendar owner = calendar;
+            if (owner == null) {
+                CalendarEvent.UNOWNED.lock();
+            } else {
+                owner.lock.writeLock().lock();
+            }
+            if (calendar == owner) {
+                return owner;
+            }
+            CalendarEvent.unlock(owner);
+        }
+    }
+
+    // EFFECTS: Converts the rule into JSON format
+    @Override
+    public synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("title", title);
+        json.put("start", start.toString());
+        json.put("days", days);
+        json.put("category", category);
+        json.put("frequency", frequency.name().toLowerCase());
+        json.put("interval", interval);
+        if (until != null) {
+            json.put("until", until.toString());
+        }
+        JSONArray skipped = new JSONArray();
+        for (LocalDate date : exceptions) {
+            skipped.put(date.toString());
+        }
+        json.put("exceptions", skipped);
+        return json;
+    }
+
+    // Represents one occurrence of a recurring event
+    public static final class Occurrence {
+        private final RecurrenceRule rule;
+        private final LocalDate start;
+        private final LocalDate end;
+
+        Occurrence(RecurrenceRule rule, LocalDate start, LocalDate end) {
+            this.rule = rule;
+            this.start = start;
+            this.end = end;
+        }
+
+        public RecurrenceRule getRule() {
+            return rule;
+        }
+
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public LocalDate getEnd() {
+            return end;
+        }
+
+        public String getTitle() {
+            return rule.getTitle();
+        }
+
+        public String getCategory() {
+            return rule.getCategory();
+        }
+
+        // EFFECTS: returns true if the occurrence is on the given date
+        public boolean isOn(LocalDate date) {
+            return !date.isBefore(start) && !date.isAfter(end);
+        }
+
+        // EFFECTS: returns true if o is the same occurrence of the same rule
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Occurrence)) {
+                return false;
+            }
+            Occurrence other = (Occurrence) o;
+            return rule == other.rule && start.equals(other.start) && end.equals(other.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(rule) + start.hashCode();
+        }
+
+        // REQUIRES: the occurrence is on at least one day of month
+        // EFFECTS: returns the first day of month the occurrence is on
+        public int firstDayIn(YearMonth month) {
+            return start.isBefore(month.atDay(1)) ? 1 : start.getDayOfMonth();
+        }
+
+        // REQUIRES: the occurrence is on at least one day of month
+        // EFFECTS: returns the last day of month the occurrence is on
+        public int lastDayIn(YearMonth month) {
+            return end.isAfter(month.atEndOfMonth()) ? month.lengthOfMonth() : end.getDayOfMonth();
+        }
+    }
+}
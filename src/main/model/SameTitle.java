@@ -0,0 +1,85 @@
+package model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Represents the events on a calendar that share one title, in the order they were given it. The events are linked
+// to each other through their own fields, so adding an event, removing any one of them and finding the last are all
+// O(1) however many events share the title.
+final class SameTitle implements Iterable<CalendarEvent> {
+    private CalendarEvent first;
+    private CalendarEvent last;
+    private int size;
+
+    // EFFECTS: returns the number of events
+    int size() {
+        return size;
+    }
+
+    // EFFECTS: returns true if there are no events
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // EFFECTS: returns the event added last, or null if there are none
+    CalendarEvent last() {
+        return last;
+    }
+
+    // REQUIRES: e is not in this or any other SameTitle
+    // MODIFIES: this, e
+    // EFFECTS: adds e after every other event
+    void add(CalendarEvent e) {
+        e.prevSameTitle = last;
+        e.nextSameTitle = null;
+        if (last == null) {
+            first = e;
+        } else {
+            last.nextSameTitle = e;
+        }
+        last = e;
+        size++;
+    }
+
+    // REQUIRES: e is in the list
+    // MODIFIES: this, e
+    // EFFECTS: removes e, leaving the others in order
+    void remove(CalendarEvent e) {
+        if (e.prevSameTitle == null) {
+            first = e.nextSameTitle;
+        } else {
+            e.prevSameTitle.nextSameTitle = e.nextSameTitle;
+        }
+        if (e.nextSameTitle == null) {
+            last = e.prevSameTitle;
+        } else {
+            e.nextSameTitle.prevSameTitle = e.prevSameTitle;
+        }
+        e.prevSameTitle = null;
+        e.nextSameTitle = null;
+        size--;
+    }
+
+    // EFFECTS: returns an iterator over the events, in order; the list must not change while it is used
+    @Override
+    public Iterator<CalendarEvent> iterator() {
+        return new Iterator<CalendarEvent>() {
+            private CalendarEvent next = first;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public CalendarEvent next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                CalendarEvent e = next;
+                next = e.nextSameTitle;
+                return e;
+            }
+        };
+    }
+}
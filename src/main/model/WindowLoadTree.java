@@ -0,0 +1,108 @@
+package model;
+
+// Represents, for one window length, the number of events over every run of that many days in a month, as a
+// segment tree over the runs' first days. Each node holds the smallest load among the runs it covers and the first
+// run with that load, so the least loaded run is read off the root in O(1). Adding to a run of days changes the
+// runs that overlap it by how much they overlap: the same for the runs in the middle, which is one range update in
+// O(log d), and less towards either end, which takes one point update for each of the at most length - 1 runs
+// there. As in DayLoadTree, an amount added to all of a node's runs is recorded in the node rather than in its
+// descendants, so queries never change the tree.
+final class WindowLoadTree {
+    private final int length;
+    private final int days;
+    // the number of runs, numbered by their first day from 1
+    private final int runs;
+    private final long[] min;
+    private final int[] first;
+    private final long[] added;
+
+    // REQUIRES: 1 <= length <= loads.getDays()
+    // EFFECTS: constructs the tree for runs of length days, with the loads counted in loads
+    WindowLoadTree(int length, DayLoadTree loads) {
+        this.length = length;
+        this.days = loads.getDays();
+        this.runs = days - length + 1;
+        int size = 4 * runs;
+        min = new long[size];
+        first = new int[size];
+        added = new long[size];
+        build(1, 1, runs, loads);
+    }
+
+    // EFFECTS: returns the first day of the run with the fewest events, the earliest if there are several
+    int leastLoaded() {
+        return first[1];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds by to the count of every day from start to end, cut off at the ends of the month, updating
+    //          the load of every run that overlaps them
+    void add(int start, int end, int by) {
+        int from = Math.max(start, 1);
+        int to = Math.min(end, days);
+        if (from > to) {
+            return;
+        }
+        int lo = Math.max(1, from - length + 1);
+        int hi = Math.min(to, runs);
+        int flatLo = Math.max(lo, Math.min(from, to - length + 1));
+        int flatHi = Math.min(hi, Math.max(from, to - length + 1));
+        for (int run = lo; run < Math.min(flatLo, hi + 1); run++) {
+            add(1, 1, runs, run, run, (long) by * overlap(run, from, to));
+        }
+        if (flatLo <= flatHi) {
+            add(1, 1, runs, flatLo, flatHi, (long) by * overlap(flatLo, from, to));
+        }
+        for (int run = Math.max(flatHi + 1, lo); run <= hi; run++) {
+            add(1, 1, runs, run, run, (long) by * overlap(run, from, to));
+        }
+    }
+
+    // EFFECTS: returns the number of days the run starting on run shares with the days from start to end
+    private int overlap(int run, int start, int end) {
+        return Math.min(run + length - 1, end) - Math.max(run, start) + 1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds by to the loads of the runs from start to end within the node covering lo to hi
+    private void add(int node, int lo, int hi, int start, int end, long by) {
+        if (start <= lo && hi <= end) {
+            min[node] += by;
+            added[node] += by;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (start <= mid) {
+            add(2 * node, lo, mid, start, end, by);
+        }
+        if (end > mid) {
+            add(2 * node + 1, mid + 1, hi, start, end, by);
+        }
+        pull(node);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets up the nodes covering the runs from lo to hi with their loads in loads
+    private void build(int node, int lo, int hi, DayLoadTree loads) {
+        if (lo == hi) {
+            min[node] = loads.sum(lo, lo + length - 1);
+            first[node] = lo;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        build(2 * node, lo, mid, loads);
+        build(2 * node + 1, mid + 1, hi, loads);
+        pull(node);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: recomputes the node from its children and the amount added to the node itself, preferring the
+    //          left child's run on a tie so that the earliest run wins
+    private void pull(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        int better = min[right] < min[left] ? right : left;
+        min[node] = min[better] + added[node];
+        first[node] = first[better];
+    }
+}
@@ -0,0 +1,374 @@
+package persistence;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import model.RecurrenceRule;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+// Represents the compact binary save file format. A file is laid out as:
+//   header:  the bytes "CALB", then a version byte
+//   month:   string
+//   year:    signed varint
+//   journal: varint, the last journal record included in the file (0 if none)
+//   titles:  varint count, then that many strings; each distinct title is stored once
+//   events:  varint count, then for each event: varint id, varint title index, varint start date,
+//            varint (end date - start date), and one category code byte
+//   rules:   varint count, then for each recurring event: varint id, string title, one category code byte,
+//            signed varint first start date (as a day count from 1970-01-01), varint days, one frequency byte
+//            (its ordinal), varint interval, varint (last start date - first start date + 1, or 0 if none),
+//            varint count of skipped dates, then each as a signed varint (skipped date - first start date)
+// Version 1 files, written before events had ids, have no id in their event records; they can still be read.
+// Files before version 3 have no rules section.
+// Strings are a varint byte length followed by UTF-8 bytes. Varints store 7 bits per byte, low bits first,
+// with the top bit set on every byte but the last; signed varints are zigzag encoded first.
+class CalendarBinaryFormat {
+    static final byte[] MAGIC = {'C', 'A', 'L', 'B'};
+    static final int VERSION = 3;
+    static final int FIRST_VERSION_WITH_IDS = 2;
+    static final int FIRST_VERSION_WITH_RULES = 3;
+    static final String[] CATEGORIES = {"school", "work", "family", "friends", "personal"};
+
+    // the last journal record included in the file most recently read
+    private long journalSeq;
+
+    // EFFECTS: returns true if the file at path starts with the binary format header
+    static boolean isBinary(String path) throws IOException {
+        try (InputStream in = new FileInputStream(path)) {
+            byte[] start = new byte[MAGIC.length];
+            return readFully(in, start) && Arrays.equals(start, MAGIC);
+        }
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes cal to out in the binary format, recording journalSeq as the last journal record included.
+    //          The events are written straight from the calendar, which can not change until all of it has been
+    //          written.
+    void write(Calendar cal, long journalSeq, OutputStream out) throws IOException {
+        cal.whileUnchanged(() -> writeUnchanged(cal, journalSeq, out));
+    }
+
+    // REQUIRES: cal can not change until this returns
+    // MODIFIES: out
+    // EFFECTS: writes cal to out as write describes
+    private void writeUnchanged(Calendar cal, long journalSeq, OutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeString(out, cal.getMonth());
+        writeVarLong(out, zigzag(cal.getYear()));
+        writeVarLong(out, journalSeq);
+        HashMap<String, Integer> titleIndex = writeTitles(out, cal);
+        writeVarLong(out, cal.size());
+        cal.forEachEvent(e -> writeEvent(out, e, titleIndex.get(e.getTitle())));
+        List<RecurrenceRule> rules = cal.getRules();
+        writeVarLong(out, rules.size());
+        for (RecurrenceRule r : rules) {
+            writeRule(out, r);
+        }
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes each distinct title of the events on cal once, in the order they first appear, and returns
+    //          the index of each title
+    private static HashMap<String, Integer> writeTitles(OutputStream out, Calendar cal) throws IOException {
+        HashMap<String, Integer> titleIndex = new HashMap<>();
+        ArrayList<String> titles = new ArrayList<>();
+        cal.forEachEvent(e -> {
+            if (titleIndex.putIfAbsent(e.getTitle(), titles.size()) == null) {
+                titles.add(e.getTitle());
+            }
+        });
+        writeVarLong(out, titles.size());
+        for (String title : titles) {
+            writeString(out, title);
+        }
+        return titleIndex;
+    }
+
+    // MODIFIES: this, in
+    // EFFECTS: reads a calendar in the binary format from in and returns it, remembering the last journal
+    //          record included in it; events whose dates or category are invalid are skipped.
+    //          Throws IOException if in does not hold a calendar in a supported version of the format.
+    Calendar read(InputStream in) throws IOException {
+        return read(in, null);
+    }
+
+    // MODIFIES: this, in
+    // EFFECTS: same as read(in), also telling listener (unless it is null) about the calendar and each event as
+    //          they are read
+    Calendar read(InputStream in, ReadListener listener) throws IOException {
+        int version = readHeader(in);
+        boolean withIds = version >= FIRST_VERSION_WITH_IDS;
+        Calendar cal = new Calendar(readString(in), unzigzag(readVarLong(in)));
+        if (listener != null) {
+            listener.calendarCreated(cal);
+        }
+        journalSeq = readVarLong(in);
+        String[] titles = new String[readCount(in)];
+        for (int i = 0; i < titles.length; i++) {
+            titles[i] = readString(in);
+        }
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+            CalendarEvent e = readEvent(in, titles, withIds);
+            if (addIfFits(cal, e)) {
+                if (listener != null) {
+                    listener.eventRead(e);
+                }
+            }
+        }
+        return version >= FIRST_VERSION_WITH_RULES ? readRules(in, cal) : cal;
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: adds e to cal and returns true, unless e is null or ends after the last day of cal's month
+    static boolean addIfFits(Calendar cal, CalendarEvent e) {
+        if (e == null) {
+            return false;
+        }
+        if (!cal.fits(e)) {
+            System.out.println("The dates were invalid... ");
+            return false;
+        }
+        cal.addEvent(e);
+        return true;
+    }
+
+    // MODIFIES: in, cal
+    // EFFECTS: reads the rules section, adds the valid rules to cal, and returns cal
+    static Calendar readRules(InputStream in, Calendar cal) throws IOException {
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+            RecurrenceRule r = readRule(in);
+            if (r != null) {
+                cal.addRule(r);
+            }
+        }
+        return cal;
+    }
+
+    // EFFECTS: returns the last journal record included in the file most recently read, 0 if none
+    long getJournalSeq() {
+        return journalSeq;
+    }
+
+    // MODIFIES: in
+    // EFFECTS: reads the header and returns the version of the format; throws IOException if it is not that of a
+    //          supported version
+    static int readHeader(InputStream in) throws IOException {
+        byte[] start = new byte[MAGIC.length];
+        if (!readFully(in, start) || !Arrays.equals(start, MAGIC)) {
+            throw new IOException("Not a binary calendar file");
+        }
+        int version = in.read();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary calendar version " + version);
+        }
+        return version;
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes one event record
+    private static void writeEvent(OutputStream out, CalendarEvent e, int title) throws IOException {
+        writeVarLong(out, e.getId());
+        writeVarLong(out, title);
+        writeVarLong(out, e.getStartDate());
+        writeVarLong(out, e.getEndDate() - e.getStartDate());
+        out.write(categoryCode(e.getCategory()));
+    }
+
+    // MODIFIES: in
+    // EFFECTS: reads one event record, which starts with an id if withIds, and returns the event, or null if its
+    //          dates or category are invalid
+    private static CalendarEvent readEvent(InputStream in, String[] titles, boolean withIds) throws IOException {
+        long id = withIds ? readVarLong(in) : 0;
+        int title = readCount(in);
+        if (title >= titles.length) {
+            throw new IOException("Corrupt binary calendar file");
+        }
+        int start = (int) readVarLong(in);
+        int end = start + (int) readVarLong(in);
+        return makeEvent(id, titles[title], start, end, in.read());
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes one rule record
+    private static void writeRule(OutputStream out, RecurrenceRule r) throws IOException {
+        long start = r.getStart().toEpochDay();
+        writeVarLong(out, r.getId());
+        writeString(out, r.getTitle());
+        out.write(categoryCode(r.getCategory()));
+        writeVarLong(out, zigzag(Math.toIntExact(start)));
+        writeVarLong(out, r.getDays());
+        out.write(r.getFrequency().ordinal());
+        writeVarLong(out, r.getInterval());
+        writeVarLong(out, r.getUntil() == null ? 0 : r.getUntil().toEpochDay() - start + 1);
+        List<LocalDate> skipped = r.getExceptions();
+        writeVarLong(out, skipped.size());
+        for (LocalDate date : skipped) {
+            writeVarLong(out, zigzag(Math.toIntExact(date.toEpochDay() - start)));
+        }
+    }
+
+    // MODIFIES: in
+    // EFFECTS: reads one rule record and returns the rule, or null if its dates, category or frequency are invalid
+    private static RecurrenceRule readRule(InputStream in) throws IOException {
+        long id = readVarLong(in);
+        String title = readString(in);
+        int category = in.read();
+        LocalDate start = LocalDate.ofEpochDay(unzigzag(readVarLong(in)));
+        int days = readCount(in);
+        int frequency = in.read();
+        int interval = readCount(in);
+        long until = readVarLong(in);
+        long[] skipped = new long[readCount(in)];
+        for (int i = 0; i < skipped.length; i++) {
+            skipped[i] = unzigzag(readVarLong(in));
+        }
+        RecurrenceRule r = makeRule(id, title, start, days, category, frequency, interval,
+                until == 0 ? null : start.plusDays(until - 1));
+        for (int i = 0; r != null && i < skipped.length; i++) {
+            r.addException(start.plusDays(skipped[i]));
+        }
+        return r;
+    }
+
+    // EFFECTS: returns the rule with the given fields, or null if its dates, category or frequency are invalid;
+    //          throws IOException if the file ended before the frequency byte
+    private static RecurrenceRule makeRule(long id, String title, LocalDate start, int days, int category,
+                                           int frequency, int interval, LocalDate until) throws IOException {
+        if (category < 0 || frequency < 0) {
+            throw new EOFException("Binary calendar file ends in the middle of a rule");
+        }
+        RecurrenceRule.Frequency[] frequencies = RecurrenceRule.Frequency.values();
+        if (frequency >= frequencies.length) {
+            System.out.println("The frequency was invalid... ");
+            return null;
+        }
+        try {
+            String name = category < CATEGORIES.length ? CATEGORIES[category] : "";
+            return new RecurrenceRule(id, title, start, days, name, frequencies[frequency], Math.max(interval, 1),
+                    until);
+        } catch (InvalidCategory ex) {
+            System.out.println("The category was invalid... ");
+        } catch (InvalidDates ex) {
+            System.out.println("The dates were invalid... ");
+        }
+        return null;
+    }
+
+    // EFFECTS: returns the event with the given fields, or null if its dates or category are invalid;
+    //          throws IOException if the file ended before the category code
+    static CalendarEvent makeEvent(long id, String title, int start, int end, int category) throws IOException {
+        if (category < 0) {
+            throw new EOFException("Binary calendar file ends in the middle of an event");
+        }
+        try {
+            String name = category < CATEGORIES.length ? CATEGORIES[category] : "";
+            return new CalendarEvent(id, title, start, end, name);
+        } catch (InvalidCategory ex) {
+            System.out.println("The category was invalid... ");
+        } catch (InvalidDates ex) {
+            System.out.println("The dates were invalid... ");
+        }
+        return null;
+    }
+
+    // EFFECTS: returns the code stored for category
+    static int categoryCode(String category) {
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(category)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown category " + category);
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes s as a varint byte length followed by its UTF-8 bytes
+    private static void writeString(OutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    // MODIFIES: in
+    // EFFECTS: reads a string written by writeString
+    static String readString(InputStream in) throws IOException {
+        byte[] bytes = new byte[readCount(in)];
+        if (!readFully(in, bytes)) {
+            throw new EOFException("Binary calendar file ends in the middle of a string");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // MODIFIES: in, bytes
+    // EFFECTS: fills bytes from in; returns false if in ended first
+    private static boolean readFully(InputStream in, byte[] bytes) throws IOException {
+        int filled = 0;
+        while (filled < bytes.length) {
+            int n = in.read(bytes, filled, bytes.length - filled);
+            if (n < 0) {
+                return false;
+            }
+            filled += n;
+        }
+        return true;
+    }
+
+    // MODIFIES: out
+    // EFFECTS: writes the non-negative value as a varint
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // MODIFIES: in
+    // EFFECTS: reads a varint; throws IOException if the input ends first or the varint is too long
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Binary calendar file ends in the middle of a number");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary calendar file");
+    }
+
+    // MODIFIES: in
+    // EFFECTS: reads a varint that counts or indexes something, so must fit in a non-negative int
+    static int readCount(InputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt binary calendar file");
+        }
+        return (int) value;
+    }
+
+    // EFFECTS: maps a signed int onto a non-negative long so that small magnitudes stay small
+    private static long zigzag(int value) {
+        return Integer.toUnsignedLong((value << 1) ^ (value >> 31));
+    }
+
+    // EFFECTS: reverses zigzag
+    static int unzigzag(long value) {
+        int n = (int) value;
+        return (n >>> 1) ^ -(n & 1);
+    }
+}
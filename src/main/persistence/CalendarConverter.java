@@ -0,0 +1,36 @@
+package persistence;
+
+import model.Calendar;
+
+import java.io.IOException;
+
+// Converts calendar save files between the JSON format and the compact binary format.
+// Either conversion accepts a source file in either format, and keeps the record of which journal changes the
+// file already includes.
+public class CalendarConverter {
+
+    private CalendarConverter() {
+    }
+
+    // EFFECTS: reads the calendar saved at src and saves it at dest in the binary format;
+    //          throws IOException if either file can not be read or written
+    public static void toBinary(String src, String dest) throws IOException {
+        CalendarSaveReader reader = new CalendarSaveReader(src);
+        Calendar cal = reader.readStreaming();
+        CalendarSaveWriter writer = new CalendarSaveWriter(dest);
+        writer.open();
+        writer.writeBinary(cal, reader.getJournalSeq());
+        writer.close();
+    }
+
+    // EFFECTS: reads the calendar saved at src and saves it at dest as JSON;
+    //          throws IOException if either file can not be read or written
+    public static void toJson(String src, String dest) throws IOException {
+        CalendarSaveReader reader = new CalendarSaveReader(src);
+        Calendar cal = reader.readStreaming();
+        CalendarSaveWriter writer = new CalendarSaveWriter(dest);
+        writer.open();
+        writer.writeStreaming(cal, reader.getJournalSeq());
+        writer.close();
+    }
+}
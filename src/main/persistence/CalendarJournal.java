@@ -0,0 +1,299 @@
+package persistence;
+
+import exceptions.CanNotFindEvent;
+import exceptions.GreaterThanLastDay;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import model.CalendarObserver;
+import model.RecurrenceRule;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+// Represents an append-only journal of the changes made to a Calendar. Once attached to a calendar it writes one
+// line per added, deleted or changed event or recurring event, so saving a change costs time proportional to the
+// change rather than to the calendar. Each record has a sequence number; a snapshot written by compact stores the
+// number of the last record folded into it, so records already in the snapshot are skipped on replay even if the
+// program stopped before the journal could be emptied. A record that can not be written is not thrown out of the
+// change that caused it; the journal stops writing and reports the error from the next compact or detach.
+// Records are written by whichever thread changes the calendar, so the journal's state is guarded by its monitor,
+// which is always taken after the calendar's lock.
+public class CalendarJournal implements CalendarObserver {
+    private String path;
+    private long lastSeq;
+    // whether lastSeq has been read from the journal file by replay
+    private boolean replayed;
+    private BufferedWriter writer;
+    // the error that stopped the journal writing records since it was attached, null if there has been none
+    private IOException failure;
+
+    // EFFECTS: constructs a journal stored in the file at path
+    public CalendarJournal(String path) {
+        this.path = path;
+    }
+
+    // MODIFIES: this, cal
+    // EFFECTS: applies to cal, in order, every record in the journal file with a sequence number greater than
+    //          foldedSeq. Stops at the first record that can not be parsed (the end of a write that was cut off).
+    //          Does nothing if the journal file does not exist. Throws IOException if the file can not be read.
+    public synchronized void replay(Calendar cal, long foldedSeq) throws IOException {
+        lastSeq = foldedSeq;
+        replayed = true;
+        readRecords(cal, foldedSeq);
+    }
+
+    // MODIFIES: this, cal
+    // EFFECTS: reads the journal file as replay does, applying the records to cal unless it is null, and raises
+    //          lastSeq to the largest sequence number read
+    private void readRecords(Calendar cal, long foldedSeq) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                JSONObject record = new JSONObject(line);
+                long seq = record.getLong("seq");
+                if (cal != null && seq > foldedSeq) {
+                    apply(cal, record);
+                }
+                lastSeq = Math.max(lastSeq, seq);
+            }
+        } catch (NoSuchFileException e) {
+            // nothing has been journaled yet
+        } catch (JSONException | IndexOutOfBoundsException | DateTimeParseException e) {
+            System.out.println("The rest of the journal could not be read... ");
+        }
+    }
+
+    // MODIFIES: this, cal
+    // EFFECTS: opens the journal for appending and registers it to record every later change to cal. If the
+    //          journal has not been replayed, numbering continues from the last record already in the file.
+    //          Throws IOException if the journal file can not be read or opened for writing.
+    public synchronized void attach(Calendar cal) throws IOException {
+        if (!replayed) {
+            readRecords(null, 0);
+        }
+        writer = openWriter(true);
+        failure = null;
+        cal.addObserver(this);
+    }
+
+    // MODIFIES: this, cal
+    // EFFECTS: stops recording changes to cal and closes the journal; throws IOException if it can not be closed
+    //          or if a change since it was attached could not be written
+    public void detach(Calendar cal) throws IOException {
+        cal.removeObserver(this);
+        synchronized (this) {
+            writer.close();
+            checkFailure();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes all of cal, marked with the last journaled sequence number, using saver, then empties
+    //          the journal now that its records are part of the snapshot; the journal must be attached. Throws
+    //          IOException, without writing anything, if a change since the journal was attached could not be written.
+    //          Changes to cal wait until compacting is done, so each one is either in the snapshot or in the emptied
+    //          journal.
+    public void compact(Calendar cal, CalendarSaveWriter saver) throws IOException {
+        cal.whileUnchanged(() -> compactUnchanged(cal, saver));
+    }
+
+    // REQUIRES: cal can not change until this returns
+    // MODIFIES: this
+    // EFFECTS: compacts the journal as compact describes
+    private synchronized void compactUnchanged(Calendar cal, CalendarSaveWriter saver) throws IOException {
+        checkFailure();
+        writer.flush();
+        saver.open();
+        saver.writeStreaming(cal, lastSeq);
+        saver.close();
+        writer.close();
+        writer = openWriter(false);
+    }
+
+    // EFFECTS: returns the sequence number of the last record written or replayed
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    // EFFECTS: throws an IOException caused by the error that stopped the journal writing, if there was one
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Changes could not be written to the journal", failure);
+        }
+    }
+
+    @Override
+    public void eventAdded(CalendarEvent e) {
+        append(withFields(record("add").put("id", e.getId()), e));
+    }
+
+    @Override
+    public void eventDeleted(CalendarEvent e) {
+        append(record("delete").put("id", e.getId()));
+    }
+
+    @Override
+    public void eventChanged(CalendarEvent e) {
+        append(withFields(record("set").put("id", e.getId()), e));
+    }
+
+    @Override
+    public void ruleAdded(RecurrenceRule r) {
+        append(record("addRule").put("rule", r.toJson()));
+    }
+
+    @Override
+    public void ruleDeleted(RecurrenceRule r) {
+        append(record("deleteRule").put("id", r.getId()));
+    }
+
+    @Override
+    public void ruleChanged(RecurrenceRule r) {
+        JSONArray skipped = new JSONArray();
+        for (LocalDate date : r.getExceptions()) {
+            skipped.put(date.toString());
+        }
+        append(record("setRule").put("id", r.getId()).put("exceptions", skipped));
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: applies one journal record to cal
+    private void apply(Calendar cal, JSONObject record) {
+        String op = record.getString("op");
+        try {
+            if (op.endsWith("Rule")) {
+                applyRule(cal, op, record);
+            } else if (op.equals("add")) {
+                addEvent(cal, record);
+            } else if (op.equals("delete")) {
+                cal.deleteEvent(target(cal, record));
+            } else {
+                applyChange(target(cal, record), record);
+            }
+        } catch (InvalidCategory ex) {
+            System.out.println("The category was invalid... ");
+        } catch (InvalidDates ex) {
+            System.out.println("The dates were invalid... ");
+        } catch (CanNotFindEvent ex) {
+            System.out.println("The event to change was not found... ");
+        }
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: adds the event in record to cal; throws InvalidDates if its dates are invalid or it ends after the
+    //          last day of the month, and InvalidCategory if its category is invalid
+    private void addEvent(Calendar cal, JSONObject record) throws InvalidDates, InvalidCategory {
+        CalendarEvent e = new CalendarEvent(record.optLong("id", 0), record.getString("title"),
+                record.getInt("start"), record.getInt("end"), record.getString("category"));
+        if (!cal.fits(e)) {
+            throw new GreaterThanLastDay();
+        }
+        cal.addEvent(e);
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: applies one record of a recurring event to cal: adding it, deleting it, or skipping the dates in
+    //          the record; throws CanNotFindEvent if the rule to delete or change is not on cal
+    private void applyRule(Calendar cal, String op, JSONObject record) throws CanNotFindEvent {
+        if (op.equals("addRule")) {
+            RecurrenceRule r = CalendarSaveReader.parseRule(record.getJSONObject("rule"));
+            if (r != null) {
+                cal.addRule(r);
+            }
+            return;
+        }
+        RecurrenceRule r = cal.getRuleById(record.getLong("id"));
+        if (r == null) {
+            throw new CanNotFindEvent();
+        }
+        if (op.equals("deleteRule")) {
+            cal.deleteRule(r);
+            return;
+        }
+        JSONArray skipped = record.getJSONArray("exceptions");
+        for (int i = 0; i < skipped.length(); i++) {
+            r.addException(LocalDate.parse(skipped.getString(i)));
+        }
+    }
+
+    // EFFECTS: returns the event on cal that record changes: the one with the record's id, or for records written
+    //          before events had ids, the one at the record's index; throws CanNotFindEvent if there is none
+    private CalendarEvent target(Calendar cal, JSONObject record) throws CanNotFindEvent {
+        CalendarEvent e = record.has("id") ? cal.getEventById(record.getLong("id"))
+                : cal.getListOfEvents().get(record.getInt("index"));
+        if (e == null) {
+            throw new CanNotFindEvent();
+        }
+        return e;
+    }
+
+    // MODIFIES: e
+    // EFFECTS: sets whichever fields of e differ from those in record
+    private void applyChange(CalendarEvent e, JSONObject record) throws InvalidDates, InvalidCategory {
+        String title = record.getString("title");
+        int start = record.getInt("start");
+        int end = record.getInt("end");
+        String category = record.getString("category");
+        if (!e.getTitle().equals(title)) {
+            e.setTitle(title);
+        }
+        if (e.getStartDate() != start || e.getEndDate() != end) {
+            e.setDates(start, end);
+        }
+        if (!e.getCategory().equals(category)) {
+            e.setCategory(category);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a new record with the next sequence number and the given operation
+    private synchronized JSONObject record(String op) {
+        lastSeq++;
+        JSONObject record = new JSONObject();
+        record.put("seq", lastSeq);
+        record.put("op", op);
+        return record;
+    }
+
+    // MODIFIES: record
+    // EFFECTS: adds the title, dates and category of e to record and returns it
+    private JSONObject withFields(JSONObject record, CalendarEvent e) {
+        record.put("title", e.getTitle());
+        record.put("start", e.getStartDate());
+        record.put("end", e.getEndDate());
+        record.put("category", e.getCategory());
+        return record;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes record as one line at the end of the journal and flushes it to the file. If it can not be
+    //          written, records the error and writes nothing more, since replay could not skip the missing record.
+    private synchronized void append(JSONObject record) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            writer.write(record.toString());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    // EFFECTS: opens a writer on the journal file, either appending to it or emptying it first
+    BufferedWriter openWriter(boolean append) throws FileNotFoundException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path, append),
+                StandardCharsets.UTF_8));
+    }
+}
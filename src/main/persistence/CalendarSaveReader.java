@@ -1,36 +1,150 @@
 package persistence;
 
+import exceptions.GreaterThanLastDay;
 import exceptions.InvalidCategory;
 import exceptions.InvalidDates;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import model.CalendarEvent;
+import model.RecurrenceRule;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import model.Calendar;
 
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.stream.Stream;
 
 // Represents a reader that reads cal from JSON data stored in the date file
 // Some methods taken from JSONReader class in
 // https://github.students.cs.ubc.ca/CPSC210/JsonSerializationDemo
 public class CalendarSaveReader {
+    private static final LatencyHistogram READ = Metrics.histogram("persistence.read");
+    private static final LatencyHistogram READ_STREAMING = Metrics.histogram("persistence.readStreaming");
+    private static final Counter EVENTS_READ = Metrics.counter("persistence.eventsRead");
+
     private String src;
+    // sequence number of the last journal record included in the file most recently read, 0 if none
+    private long journalSeq;
+    // told about the calendar and its events by the read in progress; null if there is no read or no listener
+    private ReadListener listener;
+    // bytes of the file taken by the current or most recent streaming read
+    private volatile long bytesRead;
 
     // EFFECTS: constructs reader to read from source file
     public CalendarSaveReader(String src) {
         this.src = src;
     }
 
-    // EFFECTS: reads calendar from file and returns it;
+    // EFFECTS: reads calendar from file and returns it; the file may be JSON or in the binary format.
     // throws IOException if an error occurs reading data from file
     public Calendar read() throws IOException {
-        String jsonData = readFile(src);
-        JSONObject jsonObject = new JSONObject(jsonData);
-        return parseCalendar(jsonObject);
+        long startNanos = Metrics.start();
+        Calendar cal;
+        if (CalendarBinaryFormat.isBinary(src)) {
+            cal = readBinary();
+        } else {
+            String jsonData = readFile(src);
+            JSONObject jsonObject = new JSONObject(jsonData);
+            cal = parseCalendar(jsonObject);
+        }
+        EVENTS_READ.add(cal.size());
+        READ.recordSince(startNanos);
+        return cal;
+    }
+
+    // MODIFIES: journal
+    // EFFECTS: reads calendar from file, then replays onto it the changes recorded in journal since the file
+    //          was written, and returns it; throws IOException if an error occurs reading either file
+    public Calendar read(CalendarJournal journal) throws IOException {
+        Calendar cal = readStreaming();
+        journal.replay(cal, journalSeq);
+        return cal;
+    }
+
+    // EFFECTS: reads calendar from file and returns it, parsing the file as it is read and creating each event
+    //          as soon as it has been parsed, so that memory used does not grow with the size of the file
+    //          beyond the calendar itself; throws IOException if an error occurs reading data from file
+    public Calendar readStreaming() throws IOException {
+        return readStreaming(null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: same as readStreaming(), also telling listener (unless it is null) about the calendar as soon as
+    //          it has been created and about each event as it is added, so the calendar can be shown while it
+    //          fills in. Interrupting the reading thread stops the read with a ClosedByInterruptException.
+    public Calendar readStreaming(ReadListener listener) throws IOException {
+        long startNanos = Metrics.start();
+        journalSeq = 0;
+        bytesRead = 0;
+        this.listener = listener;
+        Calendar cal;
+        try (FileChannel channel = FileChannel.open(Paths.get(src));
+             InputStream in = new CountingInputStream(Channels.newInputStream(channel))) {
+            if (CalendarBinaryFormat.isBinary(src)) {
+                cal = readBinary(in);
+            } else {
+                Reader chars = new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder());
+                JsonStreamParser parser = new JsonStreamParser(chars);
+                cal = parseCalendar(parser);
+                parser.expectEnd();
+            }
+        } finally {
+            this.listener = null;
+        }
+        EVENTS_READ.add(cal.size());
+        READ_STREAMING.recordSince(startNanos);
+        return cal;
+    }
+
+    // EFFECTS: returns the number of bytes of the file taken so far by the current streaming read, or by the
+    //          most recent one if none is in progress; may be called from any thread
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    // EFFECTS: memory maps the calendar file, which must be in the binary format, without decoding its events;
+    //          throws IOException if the file can not be read or is not in the binary format
+    public MappedCalendarSnapshot readMapped() throws IOException {
+        return new MappedCalendarSnapshot(src);
+    }
+
+    // EFFECTS: reads calendar from a file in the binary format and returns it;
+    //          throws IOException if an error occurs reading data from file
+    private Calendar readBinary() throws IOException {
+        try (InputStream in = new FileInputStream(src)) {
+            return readBinary(in);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads calendar in the binary format from in and returns it, telling the listener about it
+    private Calendar readBinary(InputStream in) throws IOException {
+        CalendarBinaryFormat format = new CalendarBinaryFormat();
+        Calendar cal = format.read(new BufferedInputStream(in), listener);
+        journalSeq = format.getJournalSeq();
+        return cal;
+    }
+
+    // EFFECTS: returns the last journal record included in the file most recently read, 0 if none
+    long getJournalSeq() {
+        return journalSeq;
     }
 
     // EFFECTS: reads source file as string and returns it
@@ -48,11 +162,83 @@ public class CalendarSaveReader {
     private Calendar parseCalendar(JSONObject jsonObject) {
         String month = jsonObject.getString("month");
         int year = jsonObject.getInt("year");
+        journalSeq = jsonObject.optLong("journal", 0);
         Calendar cal = new Calendar(month, year);
         addEvents(cal, jsonObject);
+        JSONArray rules = jsonObject.optJSONArray("Rules");
+        for (int i = 0; rules != null && i < rules.length(); i++) {
+            addRule(cal, parseRule(rules.getJSONObject(i)));
+        }
         return cal;
     }
 
+    // MODIFIES: parser
+    // EFFECTS: parses calendar from the parser and returns it. Events that come before the month and year
+    //          in the file are held until the calendar can be created; recurring events are added once the
+    //          whole calendar has been read.
+    private Calendar parseCalendar(JsonStreamParser parser) throws IOException {
+        String month = null;
+        Integer year = null;
+        Calendar cal = null;
+        ArrayList<CalendarEvent> early = new ArrayList<>();
+        ArrayList<RecurrenceRule> rules = new ArrayList<>();
+        parser.expect('{');
+        do {
+            String key = parser.nextString();
+            parser.expect(':');
+            if (key.equals("month")) {
+                month = parser.nextString();
+            } else if (key.equals("year")) {
+                year = parser.nextInt();
+            } else {
+                parseOtherField(key, cal, early, rules, parser);
+            }
+            if (cal == null && month != null && year != null) {
+                cal = createCalendar(month, year);
+                addAll(cal, early);
+            }
+        } while (parser.tryConsume(','));
+        parser.expect('}');
+        return addRules(checkComplete(cal), rules);
+    }
+
+    // MODIFIES: this, cal, early, rules, parser
+    // EFFECTS: parses the value of the calendar field named key, other than month and year
+    private void parseOtherField(String key, Calendar cal, ArrayList<CalendarEvent> early,
+                                 ArrayList<RecurrenceRule> rules, JsonStreamParser parser) throws IOException {
+        if (key.equals("Events")) {
+            addEvents(cal, early, parser);
+        } else if (key.equals("Rules")) {
+            parseRules(rules, parser);
+        } else if (key.equals("journal")) {
+            journalSeq = parser.nextLong();
+        } else {
+            parser.skipValue();
+        }
+    }
+
+    // MODIFIES: cal, early, parser
+    // EFFECTS: parses events from the parser, adding them to cal, or to early if cal has not been created yet
+    private void addEvents(Calendar cal, ArrayList<CalendarEvent> early, JsonStreamParser parser)
+            throws IOException {
+        parser.expect('[');
+        if (parser.tryConsume(']')) {
+            return;
+        }
+        do {
+            CalendarEvent e = parseEvent(parser);
+            if (e == null) {
+                continue;
+            }
+            if (cal == null) {
+                early.add(e);
+            } else {
+                add(cal, e);
+            }
+        } while (parser.tryConsume(','));
+        parser.expect(']');
+    }
+
     // MODIFIES: cal
     // EFFECTS: parses events from JSON object and adds them to calendar
     private void addEvents(Calendar cal, JSONObject jsonObject) {
@@ -63,6 +249,131 @@ public class CalendarSaveReader {
         }
     }
 
+    // MODIFIES: rules, parser
+    // EFFECTS: parses the recurring events from the parser, adding to rules those that are valid. There is one
+    //          object per rule however often it repeats, so each is read whole.
+    private void parseRules(ArrayList<RecurrenceRule> rules, JsonStreamParser parser) throws IOException {
+        parser.expect('[');
+        if (parser.tryConsume(']')) {
+            return;
+        }
+        do {
+            RecurrenceRule r = parseRule(parser.nextObject());
+            if (r != null) {
+                rules.add(r);
+            }
+        } while (parser.tryConsume(','));
+        parser.expect(']');
+    }
+
+    // EFFECTS: returns the recurring event described by the JSON object, or null if its category or dates are
+    //          invalid; throws JSONException if a field it needs is missing
+    static RecurrenceRule parseRule(JSONObject json) {
+        try {
+            RecurrenceRule r = new RecurrenceRule(json.optLong("id", 0), json.getString("title"),
+                    LocalDate.parse(json.getString("start")), json.getInt("days"), json.getString("category"),
+                    RecurrenceRule.Frequency.valueOf(json.getString("frequency").toUpperCase()),
+                    Math.max(json.optInt("interval", 1), 1),
+                    json.has("until") ? LocalDate.parse(json.getString("until")) : null);
+            JSONArray skipped = json.optJSONArray("exceptions");
+            for (int i = 0; skipped != null && i < skipped.length(); i++) {
+                r.addException(LocalDate.parse(skipped.getString(i)));
+            }
+            return r;
+        } catch (InvalidCategory ex) {
+            System.out.println("The category was invalid... ");
+        } catch (InvalidDates | DateTimeParseException | IllegalArgumentException ex) {
+            System.out.println("The dates were invalid... ");
+        }
+        return null;
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: adds r to cal unless it is null
+    private void addRule(Calendar cal, RecurrenceRule r) {
+        if (r != null) {
+            cal.addRule(r);
+        }
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: adds every recurring event in rules to cal, in order, and returns cal
+    private Calendar addRules(Calendar cal, ArrayList<RecurrenceRule> rules) {
+        for (RecurrenceRule r : rules) {
+            cal.addRule(r);
+        }
+        return cal;
+    }
+
+    // MODIFIES: parser
+    // EFFECTS: parses an event from the parser and returns it, or null if its category or dates are invalid
+    private CalendarEvent parseEvent(JsonStreamParser parser) throws IOException {
+        EventFields fields = new EventFields();
+        parser.expect('{');
+        do {
+            String key = parser.nextString();
+            parser.expect(':');
+            fields.parse(key, parser);
+        } while (parser.tryConsume(','));
+        parser.expect('}');
+        return makeEvent(fields.id, fields.title, fields.startDate, fields.endDate, fields.category);
+    }
+
+    // EFFECTS: returns a new event with the given fields, or null if its category or dates are invalid;
+    //          throws JSONException if the title or category is missing
+    private CalendarEvent makeEvent(long id, String title, int startDate, int endDate, String category) {
+        if (title == null || category == null) {
+            throw new JSONException("Event is missing its title or category in calendar file");
+        }
+        try {
+            return new CalendarEvent(id, title, startDate, endDate, category);
+        } catch (InvalidCategory ex) {
+            System.out.println("The category was invalid... ");
+        } catch (InvalidDates ex) {
+            System.out.println("The dates were invalid... ");
+        }
+        return null;
+    }
+
+    // EFFECTS: returns a new calendar for the given month and year, telling the listener about it
+    private Calendar createCalendar(String month, int year) {
+        Calendar cal = new Calendar(month, year);
+        if (listener != null) {
+            listener.calendarCreated(cal);
+        }
+        return cal;
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: adds e to cal, telling the listener about it, unless e ends after the last day of cal's month
+    private void add(Calendar cal, CalendarEvent e) {
+        if (!cal.fits(e)) {
+            System.out.println("The dates were invalid... ");
+            return;
+        }
+        cal.addEvent(e);
+        if (listener != null) {
+            listener.eventRead(e);
+        }
+    }
+
+    // MODIFIES: cal
+    // EFFECTS: adds every event in events to cal, in order
+    private void addAll(Calendar cal, ArrayList<CalendarEvent> events) {
+        for (CalendarEvent e : events) {
+            add(cal, e);
+        }
+        events.clear();
+    }
+
+    // EFFECTS: returns cal; throws JSONException if it is null because the month or year was missing
+    private Calendar checkComplete(Calendar cal) {
+        if (cal == null) {
+            throw new JSONException("Calendar file is missing its month or year");
+        }
+        return cal;
+    }
+
     // MODIFIES: wr
     // EFFECTS: parses an event from JSON object and adds it to calendar
     private void addEvent(Calendar cal, JSONObject jsonObject) {
@@ -71,7 +382,10 @@ public class CalendarSaveReader {
             int startDate = jsonObject.getInt("start date");
             int endDate = jsonObject.getInt("end date");
             String category = jsonObject.getString("category");
-            CalendarEvent e = new CalendarEvent(title, startDate, endDate, category);
+            CalendarEvent e = new CalendarEvent(jsonObject.optLong("id", 0), title, startDate, endDate, category);
+            if (!cal.fits(e)) {
+                throw new GreaterThanLastDay();
+            }
             cal.addEvent(e);
         } catch (InvalidCategory ex) {
             System.out.println("The category was invalid... ");
@@ -79,4 +393,63 @@ public class CalendarSaveReader {
             System.out.println("The dates were invalid... ");
         }
     }
+
+    // Represents the fields of an event as they are parsed from a calendar file
+    private static class EventFields {
+        long id;
+        String title;
+        int startDate;
+        int endDate;
+        String category;
+
+        // MODIFIES: this, parser
+        // EFFECTS: parses the value of the field named key, skipping it if it is not a field of an event
+        void parse(String key, JsonStreamParser parser) throws IOException {
+            if (key.equals("id")) {
+                id = parser.nextLong();
+            } else if (key.equals("title")) {
+                title = parser.nextString();
+            } else if (key.equals("start date")) {
+                startDate = parser.nextInt();
+            } else if (key.equals("end date")) {
+                endDate = parser.nextInt();
+            } else if (key.equals("category")) {
+                category = parser.nextString();
+            } else {
+                parser.skipValue();
+            }
+        }
+    }
+
+    // Represents a stream that keeps bytesRead up to date with the bytes taken from the stream it wraps
+    private class CountingInputStream extends FilterInputStream {
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytesRead += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytesRead += skipped;
+            return skipped;
+        }
+    }
 }
@@ -1,42 +1,269 @@
 package persistence;
 
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import model.Calendar;
+import model.CalendarSnapshot;
+import model.RecurrenceRule;
 import org.json.JSONObject;
 
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 
 // Represents a writer that writes Calendar as a JSON object
+// The calendar is written to a temporary file next to the destination, with a name no other save is using, which is
+// synced to disk and then renamed over the destination on close (or deleted if that fails), so the destination
+// always holds either the old or the new save and never a partly written one. Optionally the previous saves are
+// kept as backups named dest.1, dest.2, ... (dest.1 being the most recent).
 // Some methods taken from JSONWriter class in
 // https://github.students.cs.ubc.ca/CPSC210/JsonSerializationDemo
 public class CalendarSaveWriter {
     private static final int TAB = 4;
+    private static final String INDENT = "    ";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final LatencyHistogram WRITE = Metrics.histogram("persistence.write");
+    private static final LatencyHistogram WRITE_STREAMING = Metrics.histogram("persistence.writeStreaming");
+    private static final LatencyHistogram WRITE_BINARY = Metrics.histogram("persistence.writeBinary");
+    private static final LatencyHistogram CLOSE = Metrics.histogram("persistence.close");
+    private static final Counter EVENTS_WRITTEN = Metrics.counter("persistence.eventsWritten");
     private PrintWriter writer;
+    // the number of events written since the events array was begun
+    private int eventsWritten;
+    private FileOutputStream out;
+    // the temporary file being written, from open until close
+    private Path temp;
     private String dest;
+    private int backups;
 
-    // EFFECTS: constructs writer to write to destination file
+    // EFFECTS: constructs writer to write to destination file, keeping no backups
     public CalendarSaveWriter(String dest) {
+        this(dest, 0);
+    }
+
+    // REQUIRES: backups >= 0
+    // EFFECTS: constructs writer to write to destination file, keeping the given number of previous saves
+    public CalendarSaveWriter(String dest, int backups) {
         this.dest = dest;
+        this.backups = backups;
     }
 
     // MODIFIES: this
-    // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
-    // be opened for writing
+    // EFFECTS: opens writer on a new temporary file next to the destination, named after it; throws
+    // FileNotFoundException if it cannot be created or opened for writing
     public void open() throws FileNotFoundException {
-        writer = new PrintWriter(new File(dest));
+        try {
+            Path target = Paths.get(dest).toAbsolutePath();
+            temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", TEMP_SUFFIX);
+        } catch (IOException | InvalidPathException e) {
+            FileNotFoundException notFound = new FileNotFoundException("Could not create a file next to " + dest);
+            notFound.initCause(e);
+            throw notFound;
+        }
+        try {
+            out = new FileOutputStream(temp.toFile());
+        } catch (FileNotFoundException e) {
+            deleteTemp();
+            throw e;
+        }
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
     }
 
     // MODIFIES: this
     // EFFECTS: writes JSON representation of workroom to file
     public void write(Calendar cal) {
+        long startNanos = Metrics.start();
         JSONObject json = cal.toJson();
         saveToFile(json.toString(TAB));
+        EVENTS_WRITTEN.add(json.getJSONArray("Events").length());
+        WRITE.recordSince(startNanos);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes calendar to file in the compact binary format (see CalendarBinaryFormat) instead of JSON
+    public void writeBinary(Calendar cal) throws IOException {
+        writeBinary(cal, 0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: same as writeBinary(cal), also recording that the snapshot includes every journal record
+    //          up to journalSeq
+    public void writeBinary(Calendar cal, long journalSeq) throws IOException {
+        long startNanos = Metrics.start();
+        writer.flush();
+        BufferedOutputStream binary = new BufferedOutputStream(out);
+        new CalendarBinaryFormat().write(cal, journalSeq, binary);
+        binary.flush();
+        EVENTS_WRITTEN.add(cal.size());
+        WRITE_BINARY.recordSince(startNanos);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of calendar to file one event at a time, without first building
+    //          the whole document in memory. The output reads back the same as that of write.
+    public void writeStreaming(Calendar cal) {
+        writeStreaming(cal, 0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: same as writeStreaming(cal), also recording that the snapshot includes every journal record
+    //          up to journalSeq (when it is positive). The events are written straight from the calendar, which
+    //          can not change until all of it has been written.
+    public void writeStreaming(Calendar cal, long journalSeq) {
+        long startNanos = Metrics.start();
+        cal.whileUnchanged(() -> {
+            writeStart(cal.getMonth(), cal.getYear(), journalSeq);
+            cal.forEachEvent(e -> writeEvent(e.getId(), e.getTitle(), e.getStartDate(), e.getEndDate(),
+                    e.getCategory()));
+            List<JSONObject> rules = new ArrayList<>();
+            for (RecurrenceRule r : cal.getRules()) {
+                rules.add(r.toJson());
+            }
+            writeEnd(rules);
+        });
+        WRITE_STREAMING.recordSince(startNanos);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the calendar as it was when the snapshot was taken, one event at a time, in the same form as
+    //          writeStreaming(cal); the calendar may keep changing while it is written
+    public void writeStreaming(CalendarSnapshot snapshot) {
+        long startNanos = Metrics.start();
+        writeStart(snapshot.getMonth(), snapshot.getYear(), 0);
+        for (CalendarSnapshot.Entry e : snapshot) {
+            writeEvent(e.getId(), e.getTitle(), e.getStartDate(), e.getEndDate(), e.getCategory());
+        }
+        List<JSONObject> rules = new ArrayList<>();
+        for (CalendarSnapshot.RuleEntry r : snapshot.getRules()) {
+            rules.add(r.toJson());
+        }
+        writeEnd(rules);
+        WRITE_STREAMING.recordSince(startNanos);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the month, the journal sequence number (when it is positive) and the year, and begins the
+    //          events array
+    private void writeStart(String month, int year, long journalSeq) {
+        writer.print("{\n" + INDENT + "\"month\": " + JSONObject.quote(month) + ",\n");
+        if (journalSeq > 0) {
+            writer.print(INDENT + "\"journal\": " + journalSeq + ",\n");
+        }
+        writer.print(INDENT + "\"year\": " + year + ",\n");
+        writer.print(INDENT + "\"Events\": [");
+        eventsWritten = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: ends the events array, writes the recurring events, given in JSON format, and ends the calendar
+    private void writeEnd(List<JSONObject> rules) {
+        writer.print(eventsWritten == 0 ? "],\n" : "\n" + INDENT + "],\n");
+        writeRules(rules);
+        writer.print("\n}");
+        EVENTS_WRITTEN.add(eventsWritten);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the recurring events, given in JSON format, to file as the rules array, one line per rule
+    private void writeRules(List<JSONObject> rules) {
+        writer.print(INDENT + "\"Rules\": [");
+        boolean first = true;
+        for (JSONObject r : rules) {
+            writer.print(first ? "\n" : ",\n");
+            writer.print(INDENT + INDENT + r);
+            first = false;
+        }
+        writer.print(first ? "]" : "\n" + INDENT + "]");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of an event with the given fields to file as the next element of the
+    //          events array
+    private void writeEvent(long id, String title, int startDate, int endDate, String category) {
+        String in = INDENT + INDENT + INDENT;
+        writer.print(eventsWritten == 0 ? "\n" : ",\n");
+        eventsWritten++;
+        writer.print(INDENT + INDENT + "{\n");
+        writer.print(in + "\"id\": " + id + ",\n");
+        writer.print(in + "\"title\": " + JSONObject.quote(title) + ",\n");
+        writer.print(in + "\"start date\": " + startDate + ",\n");
+        writer.print(in + "\"end date\": " + endDate + ",\n");
+        writer.print(in + "\"category\": " + JSONObject.quote(category) + "\n");
+        writer.print(INDENT + INDENT + "}");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes writer, syncs what was written to disk, rotates the backups and then atomically replaces
+    //          the destination file with it; throws IOException (leaving the destination untouched and deleting
+    //          the temporary file) if any of the writing failed
+    public void close() throws IOException {
+        long startNanos = Metrics.start();
+        try {
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Could not write " + temp);
+            }
+            out.getChannel().force(true);
+            writer.close();
+            rotateBackups();
+            replace(temp, Paths.get(dest));
+            temp = null;
+        } finally {
+            writer.close();
+            deleteTemp();
+        }
+        CLOSE.recordSince(startNanos);
     }
 
     // MODIFIES: this
-    // EFFECTS: closes writer
-    public void close() {
-        writer.close();
+    // EFFECTS: deletes the temporary file unless it has been moved to the destination
+    private void deleteTemp() {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            // left behind; it is never reused, since each save has a file of its own
+        }
+        temp = null;
+    }
+
+    // MODIFIES: backup files of dest
+    // EFFECTS: shifts each backup up by one (dropping the oldest) and copies the current destination file,
+    //          if there is one, to the first backup
+    private void rotateBackups() throws IOException {
+        Path current = Paths.get(dest);
+        if (backups == 0 || !Files.exists(current)) {
+            return;
+        }
+        for (int i = backups - 1; i >= 1; i--) {
+            Path older = Paths.get(dest + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, Paths.get(dest + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.copy(current, Paths.get(dest + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // MODIFIES: target
+    // EFFECTS: renames source to target, replacing target; uses an atomic rename where the file system
+    //          supports it
+    private void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     // MODIFIES: this
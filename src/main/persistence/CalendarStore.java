@@ -0,0 +1,245 @@
+package persistence;
+
+import model.Calendar;
+import model.CalendarEvent;
+import model.CalendarObserver;
+import model.RecurrenceRule;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Represents a collection of monthly calendars saved in one directory, one file per month named after the month
+// (e.g. 2022-03.json). A month is only read from disk the first time it is asked for. To keep memory bounded,
+// once the months in memory hold more events than the budget, the least recently used months are saved (if they
+// were changed) and dropped; they are read again when next asked for. The budget is checked whenever a month is
+// asked for and whenever an event is added to a loaded month. A Calendar that has been dropped should not be
+// changed any more, as those changes would not be saved.
+// A store may be used from many threads, and its calendars changed from any thread. The loaded months are guarded
+// by the store's lock, which is taken before any calendar's lock; changes to a calendar are told to the store while
+// that calendar's lock is held, so they only try the store's lock, and leave the budget to whichever thread is
+// using the store if they can not get it.
+public class CalendarStore {
+    private final String directory;
+    private final int eventBudget;
+    private final ReentrantLock lock = new ReentrantLock();
+    // loaded months, least recently used first
+    private final LinkedHashMap<YearMonth, Calendar> months;
+    // the observer on each loaded month's calendar that marks the month as changed
+    private final HashMap<YearMonth, ChangeTracker> trackers;
+    // the loaded months changed since they were read or last saved; marked without the store's lock
+    private final Set<YearMonth> changed;
+    // the error from saving a month dropped after an event was added, thrown from the next get or save; null if
+    // there has been none since
+    private IOException failure;
+
+    // REQUIRES: eventBudget > 0
+    // EFFECTS: constructs a store of the months saved in directory, holding about eventBudget events in memory
+    public CalendarStore(String directory, int eventBudget) {
+        this.directory = directory;
+        this.eventBudget = eventBudget;
+        months = new LinkedHashMap<>(16, 0.75f, true);
+        trackers = new HashMap<>();
+        changed = ConcurrentHashMap.newKeySet();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the calendar for the given month, reading it from disk if it is not in memory, or
+    //          creating an empty one if it was never saved; may drop other months to stay within the budget.
+    //          Throws IOException if the month's file or a dropped month's file can not be read or written, if the
+    //          month's file holds another month, or if a month dropped since the last get or save could not be
+    //          saved.
+    public Calendar get(YearMonth ym) throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            Calendar cal = months.get(ym);
+            if (cal == null) {
+                cal = load(ym);
+                ChangeTracker tracker = new ChangeTracker(ym);
+                cal.addObserver(tracker);
+                trackers.put(ym, tracker);
+                months.put(ym, cal);
+            }
+            evictOverBudget(ym);
+            return cal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // EFFECTS: returns true if the given month is currently in memory
+    public boolean isLoaded(YearMonth ym) {
+        lock.lock();
+        try {
+            return months.containsKey(ym);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // EFFECTS: returns the number of events in all the months in memory
+    public int loadedEvents() {
+        lock.lock();
+        try {
+            int total = 0;
+            for (Calendar cal : months.values()) {
+                total += cal.size();
+            }
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves every month in memory that has changed since it was read or last saved; throws IOException if
+    //          one can not be written, or if a month dropped since the last get or save could not be saved
+    public void save() throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            for (Map.Entry<YearMonth, Calendar> entry : months.entrySet()) {
+                if (changed.contains(entry.getKey())) {
+                    save(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // REQUIRES: the store's lock is held
+    // MODIFIES: this
+    // EFFECTS: throws, and forgets, the error from saving a month dropped after an event was added, if there was one
+    private void checkFailure() throws IOException {
+        IOException found = failure;
+        failure = null;
+        if (found != null) {
+            throw new IOException("A month could not be saved before it was dropped", found);
+        }
+    }
+
+    // REQUIRES: the store's lock is held
+    // MODIFIES: this
+    // EFFECTS: writes cal to the file for the given month and records that it is unchanged; the mark is cleared
+    //          first, so a change made once the calendar has been written marks it again, and put back if the
+    //          calendar can not be written
+    private void save(YearMonth ym, Calendar cal) throws IOException {
+        changed.remove(ym);
+        try {
+            CalendarSaveWriter writer = new CalendarSaveWriter(pathOf(ym));
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+        } catch (IOException e) {
+            changed.add(ym);
+            throw e;
+        }
+    }
+
+    // EFFECTS: returns the path of the file the given month is saved in
+    String pathOf(YearMonth ym) {
+        return directory + File.separator + ym + ".json";
+    }
+
+    // EFFECTS: reads the given month from disk, or returns an empty calendar if it has no file; throws IOException
+    //          if the file can not be read or holds another month
+    private Calendar load(YearMonth ym) throws IOException {
+        String path = pathOf(ym);
+        if (!new File(path).exists()) {
+            return new Calendar(ym.getMonth().toString(), ym.getYear());
+        }
+        Calendar cal = new CalendarSaveReader(path).readStreaming();
+        if (!ym.equals(cal.getYearMonth())) {
+            throw new IOException(path + " holds " + cal.getMonth() + " " + cal.getYear() + ", not " + ym);
+        }
+        return cal;
+    }
+
+    // REQUIRES: the store's lock is held
+    // MODIFIES: this
+    // EFFECTS: while the loaded months hold more events than the budget, saves (if changed) and drops the least
+    //          recently used month other than keep
+    private void evictOverBudget(YearMonth keep) throws IOException {
+        int total = loadedEvents();
+        Iterator<Map.Entry<YearMonth, Calendar>> oldestFirst = months.entrySet().iterator();
+        while (total > eventBudget && oldestFirst.hasNext()) {
+            Map.Entry<YearMonth, Calendar> entry = oldestFirst.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            if (changed.contains(entry.getKey())) {
+                save(entry.getKey(), entry.getValue());
+            }
+            total -= entry.getValue().size();
+            entry.getValue().removeObserver(trackers.remove(entry.getKey()));
+            oldestFirst.remove();
+        }
+    }
+
+    // Marks its month as changed whenever anything on that month's calendar changes, and keeps the store within
+    // its budget as events are added; it is removed from the calendar when the month is dropped, so changes to a
+    // dropped calendar never mark a month reloaded since. It is told of changes by the thread making them, while
+    // that holds the calendar's lock.
+    private class ChangeTracker implements CalendarObserver {
+        private final YearMonth ym;
+
+        ChangeTracker(YearMonth ym) {
+            this.ym = ym;
+        }
+
+        @Override
+        public void eventAdded(CalendarEvent e) {
+            markChanged();
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                if (trackers.get(ym) == this) {
+                    evictOverBudget(ym);
+                }
+            } catch (IOException ex) {
+                failure = ex;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void eventDeleted(CalendarEvent e) {
+            markChanged();
+        }
+
+        @Override
+        public void eventChanged(CalendarEvent e) {
+            markChanged();
+        }
+
+        @Override
+        public void ruleAdded(RecurrenceRule r) {
+            markChanged();
+        }
+
+        @Override
+        public void ruleDeleted(RecurrenceRule r) {
+            markChanged();
+        }
+
+        @Override
+        public void ruleChanged(RecurrenceRule r) {
+            markChanged();
+        }
+
+        private void markChanged() {
+            changed.add(ym);
+        }
+    }
+}
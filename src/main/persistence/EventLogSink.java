@@ -0,0 +1,239 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Represents a background writer that copies the events in the EventLog to a file while the app runs, so the log
+// is kept on disk during the session and there is nothing left to print at exit. Events are read from the log in
+// batches and appended to the file through one reusable buffer. Once the file has grown past its size limit it is
+// renamed to path.1 (older files move up to path.2 and so on, keeping at most the given number) and a new file is
+// started. The log itself is the bounded queue between the app and the writer, and logging never waits for the
+// writer, since changes are logged while their calendar is locked: with DROP_OLDEST, events overwritten before they
+// were written are counted as lost; with DROP_NEWEST, the log keeps the events not written yet and counts the ones
+// it refuses as lost instead. What has been written is forced to disk whenever the writer runs out of events, and
+// otherwise at most once per sync interval, so a steady stream of events does not cost a sync per batch.
+public class EventLogSink {
+    public enum Overflow { DROP_OLDEST, DROP_NEWEST }
+
+    public static final long DEFAULT_SYNC_MILLIS = 1000;
+    static final int BATCH = 256;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final long maxBytes;
+    private final int files;
+    private final Overflow overflow;
+    private final long syncNanos;
+    private final EventLog log = EventLog.getInstance();
+    // the sequence number of the next event to write
+    private final AtomicLong position = new AtomicLong();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ArrayList<Event> batch = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+    private FileChannel channel;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long lost;
+    private long refusedBefore;
+    // true if something has been written since the file was last forced to disk
+    private boolean dirty;
+    private long lastSync;
+    private volatile IOException failure;
+
+    // REQUIRES: maxBytes > 0, files >= 0
+    // EFFECTS: constructs a sink as below that syncs at most once every DEFAULT_SYNC_MILLIS
+    public EventLogSink(String path, long maxBytes, int files, Overflow overflow) {
+        this(path, maxBytes, files, overflow, DEFAULT_SYNC_MILLIS);
+    }
+
+    // REQUIRES: maxBytes > 0, files >= 0, syncMillis >= 0
+    // EFFECTS: constructs a sink writing to path, starting a new file once it is over maxBytes and keeping
+    //          at most files old ones, and forcing a busy file to disk at most once every syncMillis
+    //          (0 forces it after every batch)
+    public EventLogSink(String path, long maxBytes, int files, Overflow overflow, long syncMillis) {
+        this.path = Paths.get(path);
+        this.maxBytes = maxBytes;
+        this.files = files;
+        this.overflow = overflow;
+        this.syncNanos = TimeUnit.MILLISECONDS.toNanos(syncMillis);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the file for appending and starts writing the log to it in the background, beginning with
+    //          the events already in the log; throws IOException if the file can not be opened
+    public void start() throws IOException {
+        channel = open();
+        position.set(log.getFirstSeq());
+        lastSync = System.nanoTime();
+        running = true;
+        if (overflow == Overflow.DROP_NEWEST) {
+            refusedBefore = log.getRefusedCount();
+            log.setProtectedReader(position);
+        }
+        thread = new Thread(this::run, "EventLogSink");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes what is left in the log and stops, waiting at most timeoutMillis for that to finish
+    public void stop(long timeoutMillis) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(timeoutMillis);
+    }
+
+    // EFFECTS: returns the number of events that were overwritten or cleared from the log before they were written,
+    //          or that the log refused to keep them
+    public long getLostCount() {
+        if (overflow == Overflow.DROP_NEWEST) {
+            return lost + log.getRefusedCount() - refusedBefore;
+        }
+        return lost;
+    }
+
+    // EFFECTS: returns the error that stopped the sink, or null if there has been none
+    public IOException getFailure() {
+        return failure;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes batches until stopped, syncing and waiting a little whenever the log has nothing new, then
+    //          writes the rest of the log and closes the file
+    private void run() {
+        try {
+            while (true) {
+                boolean stopping = !running;
+                if (drain() == 0) {
+                    sync();
+                    if (stopping) {
+                        break;
+                    }
+                    LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            if (overflow == Overflow.DROP_NEWEST) {
+                log.setProtectedReader(null);
+            }
+            closeQuietly();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the next batch of events in the log to the file and returns how many were written
+    private int drain() throws IOException {
+        batch.clear();
+        long from = position.get();
+        long next = log.read(from, BATCH, batch);
+        lost += next - from - batch.size();
+        if (!batch.isEmpty()) {
+            write();
+        }
+        position.set(next);
+        return batch.size();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the batch to the file, each event as its date and description on separate lines, forces
+    //          it to disk if the last sync was at least the sync interval ago, and starts a new file if the current
+    //          one is now over the size limit
+    private void write() throws IOException {
+        text.setLength(0);
+        for (Event e : batch) {
+            text.append(e.toString()).append('\n');
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (chars.hasRemaining()) {
+            encoder.encode(chars, buffer, true);
+            flushBuffer();
+        }
+        dirty = true;
+        if (System.nanoTime() - lastSync >= syncNanos) {
+            sync();
+        }
+        if (channel.size() >= maxBytes) {
+            rotate();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes out everything in the buffer and empties it
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forces what has been written since the last sync to disk
+    private void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+            lastSync = System.nanoTime();
+        }
+    }
+
+    // MODIFIES: this, the log files
+    // EFFECTS: syncs and closes the current file, shifts the old files up by one (dropping the oldest), moves the
+    //          current file to path.1 and opens a new one
+    private void rotate() throws IOException {
+        sync();
+        channel.close();
+        if (files == 0) {
+            Files.delete(path);
+        } else {
+            for (int i = files - 1; i >= 1; i--) {
+                Path older = Paths.get(path + "." + i);
+                if (Files.exists(older)) {
+                    Files.move(older, Paths.get(path + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, Paths.get(path + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = open();
+    }
+
+    // EFFECTS: opens the file for appending, creating it if needed
+    private FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the file, ignoring any error since there is nothing left to write
+    private void closeQuietly() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // do nothing
+        }
+    }
+}
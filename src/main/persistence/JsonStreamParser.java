@@ -0,0 +1,256 @@
+package persistence;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Represents a pull parser that reads JSON tokens one at a time from a character stream, so a document
+// can be processed without holding all of it in memory. Only the parts of JSON used by calendar save
+// files are given their own methods (objects, arrays, strings and integers); anything else can be skipped.
+class JsonStreamParser {
+    private static final int BUFFER_SIZE = 8192;
+    // the character after a backslash, and the character that escape stands for, at the same index
+    private static final String ESCAPES = "bfnrt\"\\/";
+    private static final String ESCAPED = "\b\f\n\r\t\"\\/";
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder text = new StringBuilder();
+    private int pos;
+    private int limit;
+
+    // EFFECTS: constructs a parser reading from in
+    JsonStreamParser(Reader in) {
+        this.in = in;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next non-whitespace character, which must be c;
+    //          throws JSONException if it is anything else
+    void expect(char c) throws IOException {
+        int next = peek();
+        if (next != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: if the next non-whitespace character is c, consumes it and returns true;
+    //          otherwise consumes nothing and returns false
+    boolean tryConsume(char c) throws IOException {
+        if (peek() == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a string value and returns it; throws JSONException if the next value is not a string
+    String nextString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return text.toString();
+            } else if (c == '\\') {
+                text.append(readEscape());
+            } else if (c == -1) {
+                throw error("Unterminated string");
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an integer value and returns it; throws JSONException if the next value is not an integer
+    //          that fits in an int
+    int nextInt() throws IOException {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("Integer out of range");
+        }
+        return (int) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an integer value and returns it; throws JSONException if the next value is not an integer
+    //          that fits in a long
+    long nextLong() throws IOException {
+        boolean negative = tryConsume('-');
+        long value = 0;
+        int digits = 0;
+        while (fill() && buffer[pos] >= '0' && buffer[pos] <= '9') {
+            if (value > (Long.MAX_VALUE - 9) / 10) {
+                throw error("Integer out of range");
+            }
+            value = value * 10 + (buffer[pos++] - '0');
+            digits++;
+        }
+        if (digits == 0) {
+            throw error("Expected an integer");
+        }
+        return negative ? -value : value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an object whose values are strings, integers, objects or arrays of these, and returns it as a
+    //          JSONObject; throws JSONException if the next value is not such an object. For small parts of a
+    //          file that are not worth parsing field by field.
+    JSONObject nextObject() throws IOException {
+        JSONObject object = new JSONObject();
+        expect('{');
+        if (tryConsume('}')) {
+            return object;
+        }
+        do {
+            String key = nextString();
+            expect(':');
+            object.put(key, nextValue());
+        } while (tryConsume(','));
+        expect('}');
+        return object;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an array whose elements are strings, integers, objects or arrays of these, and returns it as a
+    //          JSONArray; throws JSONException if the next value is not such an array
+    JSONArray nextArray() throws IOException {
+        JSONArray array = new JSONArray();
+        expect('[');
+        if (tryConsume(']')) {
+            return array;
+        }
+        do {
+            array.put(nextValue());
+        } while (tryConsume(','));
+        expect(']');
+        return array;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a string, integer, object or array and returns it as org.json represents it
+    private Object nextValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            return nextString();
+        } else if (c == '{') {
+            return nextObject();
+        } else if (c == '[') {
+            return nextArray();
+        }
+        return nextLong();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads and discards the next value, whatever its type
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            nextString();
+        } else if (c == '{') {
+            skipContainer('{', '}', true);
+        } else if (c == '[') {
+            skipContainer('[', ']', false);
+        } else {
+            int start = pos;
+            while (fill() && ",}] \t\r\n".indexOf(buffer[pos]) < 0) {
+                pos++;
+            }
+            if (pos == start) {
+                throw error("Expected a value");
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: throws JSONException unless only whitespace remains in the input
+    void expectEnd() throws IOException {
+        if (peek() != -1) {
+            throw error("Unexpected content after end of document");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips an object (when named) or array, including everything nested in it
+    private void skipContainer(char open, char close, boolean named) throws IOException {
+        expect(open);
+        if (tryConsume(close)) {
+            return;
+        }
+        do {
+            if (named) {
+                nextString();
+                expect(':');
+            }
+            skipValue();
+        } while (tryConsume(','));
+        expect(close);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the character(s) following a backslash in a string and returns the character they stand for
+    private char readEscape() throws IOException {
+        int c = read();
+        if (c == 'u') {
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit < 0) {
+                    throw error("Invalid unicode escape");
+                }
+                code = code * 16 + digit;
+            }
+            return (char) code;
+        }
+        int index = c == -1 ? -1 : ESCAPES.indexOf(c);
+        if (index < 0) {
+            throw error("Invalid escape");
+        }
+        return ESCAPED.charAt(index);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips whitespace and returns the next character without consuming it, or -1 at end of input
+    private int peek() throws IOException {
+        while (fill()) {
+            char c = buffer[pos];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes and returns the next character, or -1 at end of input
+    private int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refills the buffer if it has been used up; returns false if there is no more input
+    private boolean fill() throws IOException {
+        if (pos < limit) {
+            return true;
+        }
+        limit = in.read(buffer, 0, BUFFER_SIZE);
+        pos = 0;
+        return limit > 0;
+    }
+
+    // EFFECTS: returns a JSONException describing a syntax error in the input
+    private JSONException error(String message) {
+        return new JSONException(message + " in calendar file");
+    }
+}
@@ -0,0 +1,192 @@
+package persistence;
+
+import model.Calendar;
+import model.CalendarEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+
+// Represents a calendar save file in the binary format that has been memory mapped rather than read. Opening
+// one only reads the header and the positions of the titles; each event is decoded into a CalendarEvent the
+// first time it is asked for, so only the events that are actually used take up memory.
+public class MappedCalendarSnapshot {
+    private final ByteBuffer data;
+    private final String month;
+    private final int year;
+    private final long journalSeq;
+    // whether each event record starts with the event's id, as it does from version 2 of the format
+    private final boolean withIds;
+    // whether the events are followed by a section of recurring events, as they are from version 3 of the format
+    private final boolean withRules;
+    private final int[] titleOffsets;
+    private final String[] titles;
+    // where each event starts, then where the section after the events starts
+    private final int[] eventOffsets;
+    private final CalendarEvent[] events;
+    // number of events whose offsets have been found so far
+    private int indexed;
+
+    // EFFECTS: maps the binary calendar file at path and reads its header; throws IOException if the file can not
+    //          be read, is larger than 2GB or is not in a supported version of the binary format
+    MappedCalendarSnapshot(String path) throws IOException {
+        data = map(path);
+        BufferInput in = new BufferInput(0);
+        int version = CalendarBinaryFormat.readHeader(in);
+        withIds = version >= CalendarBinaryFormat.FIRST_VERSION_WITH_IDS;
+        withRules = version >= CalendarBinaryFormat.FIRST_VERSION_WITH_RULES;
+        month = CalendarBinaryFormat.readString(in);
+        year = CalendarBinaryFormat.unzigzag(CalendarBinaryFormat.readVarLong(in));
+        journalSeq = CalendarBinaryFormat.readVarLong(in);
+        titleOffsets = new int[CalendarBinaryFormat.readCount(in)];
+        titles = new String[titleOffsets.length];
+        for (int i = 0; i < titleOffsets.length; i++) {
+            titleOffsets[i] = in.position;
+            in.skip(CalendarBinaryFormat.readCount(in));
+        }
+        events = new CalendarEvent[CalendarBinaryFormat.readCount(in)];
+        eventOffsets = new int[events.length + 1];
+        eventOffsets[0] = in.position;
+        indexed = 1;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    // EFFECTS: returns the last journal record included in the snapshot, 0 if none
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    // EFFECTS: returns the number of events in the snapshot
+    public int size() {
+        return events.length;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // MODIFIES: this
+    // EFFECTS: returns the event at index, decoding it if this is the first time it has been asked for;
+    //          returns null if the event's dates or category are invalid. Throws IOException if the file is corrupt.
+    public CalendarEvent getEvent(int index) throws IOException {
+        if (events[index] == null) {
+            findOffsets(index);
+            BufferInput in = new BufferInput(eventOffsets[index]);
+            long id = withIds ? CalendarBinaryFormat.readVarLong(in) : 0;
+            int title = CalendarBinaryFormat.readCount(in);
+            int start = (int) CalendarBinaryFormat.readVarLong(in);
+            int end = start + (int) CalendarBinaryFormat.readVarLong(in);
+            events[index] = CalendarBinaryFormat.makeEvent(id, getTitle(title), start, end, in.read());
+        }
+        return events[index];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: decodes every event and recurring event and returns a new calendar holding copies of them, so that
+    //          each calendar returned has events of its own; those with invalid dates or categories, or that end
+    //          after the last day of the month, are left out.
+    //          Throws IOException if the file is corrupt.
+    public Calendar toCalendar() throws IOException {
+        Calendar cal = new Calendar(month, year);
+        for (int i = 0; i < events.length; i++) {
+            CalendarEvent e = getEvent(i);
+            if (e != null) {
+                CalendarBinaryFormat.addIfFits(cal, CalendarBinaryFormat.makeEvent(e.getId(), e.getTitle(),
+                        e.getStartDate(), e.getEndDate(), CalendarBinaryFormat.categoryCode(e.getCategory())));
+            }
+        }
+        if (!withRules) {
+            return cal;
+        }
+        findOffsets(events.length);
+        return CalendarBinaryFormat.readRules(new BufferInput(eventOffsets[events.length]), cal);
+    }
+
+    // EFFECTS: maps the whole file at path into memory, read only
+    private static MappedByteBuffer map(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path))) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Calendar file is too large to map");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the title at the given index of the title table, decoding it on first use
+    private String getTitle(int index) throws IOException {
+        if (index >= titles.length) {
+            throw new IOException("Corrupt binary calendar file");
+        }
+        if (titles[index] == null) {
+            titles[index] = CalendarBinaryFormat.readString(new BufferInput(titleOffsets[index]));
+        }
+        return titles[index];
+    }
+
+    // REQUIRES: 0 <= index <= size()
+    // MODIFIES: this
+    // EFFECTS: finds the offsets of every event up to and including index, or of the section after the events if
+    //          index is size(), by stepping over the records before it without decoding them
+    private void findOffsets(int index) throws IOException {
+        if (index < indexed) {
+            return;
+        }
+        BufferInput in = new BufferInput(eventOffsets[indexed - 1]);
+        while (indexed <= index) {
+            if (withIds) {
+                CalendarBinaryFormat.readVarLong(in);
+            }
+            CalendarBinaryFormat.readVarLong(in);
+            CalendarBinaryFormat.readVarLong(in);
+            CalendarBinaryFormat.readVarLong(in);
+            in.skip(1);
+            eventOffsets[indexed] = in.position;
+            indexed++;
+        }
+    }
+
+    // Represents a read position in the mapped file, so the stream based decoding in CalendarBinaryFormat
+    // can be used on it without copying
+    private class BufferInput extends InputStream {
+        int position;
+
+        BufferInput(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public int read() {
+            if (position >= data.limit()) {
+                return -1;
+            }
+            return data.get(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int n = Math.min(len, data.limit() - position);
+            if (n <= 0) {
+                return len == 0 ? 0 : -1;
+            }
+            for (int i = 0; i < n; i++) {
+                b[off + i] = data.get(position++);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, data.limit() - position));
+            position += (int) skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package persistence;
+
+import model.Calendar;
+import model.CalendarEvent;
+
+// Represents something that follows a calendar file as it is read, so the calendar can be shown while it fills in.
+// It is called on the thread doing the reading.
+public interface ReadListener {
+
+    // EFFECTS: called once the calendar being read has been created, before any events are added to it
+    void calendarCreated(Calendar cal);
+
+    // EFFECTS: called after e, the next event read from the file, has been added to the calendar
+    void eventRead(CalendarEvent e);
+}
@@ -1,23 +1,39 @@
 package ui;
 
 import exceptions.*;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import model.Calendar;
 import model.CalendarEvent;
+import model.CalendarSnapshot;
 import model.EventLog;
+import model.FreeSlotFinder;
 import model.Event;
+import model.RecurrenceRule;
 import persistence.CalendarSaveReader;
 import persistence.CalendarSaveWriter;
+import persistence.EventLogSink;
+import persistence.ReadListener;
 
 
+import javax.management.JMException;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import static java.lang.Integer.parseInt;
 import static java.lang.Integer.valueOf;
@@ -26,12 +42,21 @@ import static java.lang.Integer.valueOf;
 // any necessary constants, and adding, deleting, and editing events
 public class CalendarApp extends JFrame {
     private static final String calData = "./data/calendar.json";
+    private static final LatencyHistogram UPDATE_DATE_BOXES = Metrics.histogram("ui.updateDateBoxes");
+    private static final String logData = "./data/eventlog.txt";
+    private static final long LOG_FILE_BYTES = 1024 * 1024;
+    private static final int LOG_FILES = 3;
     private Calendar cal;
     private Scanner scnr;
     private CalendarSaveReader calReader;
     private CalendarSaveWriter calSaver;
+    private EventLogSink logSink;
     private ArrayList<Day> listOfDays = new ArrayList<>();
     private ArrayList<JLabel> listOfEmptyDays = new ArrayList<>();
+    // the day boxes whose events have changed since they were last painted
+    private Set<Day> changedDays = new LinkedHashSet<>();
+    // the load or save running in the background, if any; only one runs at a time
+    private SwingWorker<?, ?> persistenceTask;
 
 
     private static final int WIDTH = 1000;
@@ -86,11 +111,51 @@ public class CalendarApp extends JFrame {
         scnr.useDelimiter("\n");
         calSaver = new CalendarSaveWriter(calData);
         calReader = new CalendarSaveReader(calData);
+        startLogSink();
+        registerMetrics();
 
         initializeGUI();
 
     }
 
+    // MODIFIES: this
+    // EFFECTS: starts writing the event log to a file in the background; if the file can not be opened, the log
+    //          is printed at exit instead
+    private void startLogSink() {
+        logSink = new EventLogSink(logData, LOG_FILE_BYTES, LOG_FILES, EventLogSink.Overflow.DROP_OLDEST);
+        try {
+            logSink.start();
+        } catch (IOException e) {
+            System.out.println("Could not open the event log file, it will be printed at exit instead");
+            logSink = null;
+        }
+    }
+
+    // EFFECTS: makes the metrics available over JMX (they are only recorded once enabled, e.g. from JConsole
+    //          or with -Dcalendar.metrics=true)
+    private void registerMetrics() {
+        try {
+            Metrics.registerMBean();
+        } catch (JMException e) {
+            System.out.println("Could not make the metrics available over JMX");
+        }
+    }
+
+    // EFFECTS: writes out the rest of the event log, to its file if it has been going there, otherwise to the console
+    private void finishEventLog() {
+        if (logSink == null) {
+            for (Event loggedEvent : EventLog.getInstance()) {
+                System.out.println(loggedEvent.toString());
+            }
+            return;
+        }
+        try {
+            logSink.stop(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     // MODIFIES: this
     // EFFECTS: Adds the menu bar with a menu for adding events, saving, and loading the calendar
     private void addMenu() {
@@ -99,6 +164,7 @@ public class CalendarApp extends JFrame {
         JMenu saveLoadMenu = new JMenu("Calendar");
         saveLoadMenu.add(new JMenuItem(new SaveCalendarEvent()));
         saveLoadMenu.add(new JMenuItem(new LoadCalendarEvent()));
+        saveLoadMenu.add(new JMenuItem(new FindFreeDays()));
         options.add(saveLoadMenu);
 
         JMenu addEventMenu = new JMenu("Add Event");
@@ -132,9 +198,7 @@ public class CalendarApp extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                for (Event loggedEvent: EventLog.getInstance()) {
-                    System.out.println(loggedEvent.toString());
-                }
+                finishEventLog();
                 System.exit(0);
             }
         });
@@ -155,7 +219,7 @@ public class CalendarApp extends JFrame {
         int day = 1;
         setUpEmptySpaceBeforeFirstDay();
         while (day <= maxDay) {
-            Day daySlot = new Day(Integer.toString(day));
+            Day daySlot = new Day(day);
             daySlot.setBorder(BorderFactory.createLineBorder(Color.BLACK));
             daySlot.setHorizontalAlignment(SwingConstants.RIGHT);
             daySlot.setVerticalAlignment(SwingConstants.TOP);
@@ -171,16 +235,28 @@ public class CalendarApp extends JFrame {
 
 
     // MODIFIES: this
-    // EFFECTS: Removes old calendar information and updates it with new information
+    // EFFECTS: Repaints the day boxes whose events have changed, leaving the rest of the grid as it is
     private void updateDateBoxes() {
-        setVisible(true);
-        panel.removeAll();
-        setUpDaysOfWeek();
-        setUpEmptySpaceBeforeFirstDay();
-        for (Day day : listOfDays) {
-            panel.add(day);
+        long startNanos = Metrics.start();
+        for (Day day : changedDays) {
+            day.repaint();
+        }
+        changedDays.clear();
+        UPDATE_DATE_BOXES.recordSince(startNanos);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Marks the day box to be repainted by the next updateDateBoxes
+    private void markChanged(Day day) {
+        changedDays.add(day);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the day boxes from start to end (cut off at the ends of the month) to be repainted
+    private void markChanged(int start, int end) {
+        for (int day = Math.max(start, 1); day <= Math.min(end, listOfDays.size()); day++) {
+            markChanged(listOfDays.get(day - 1));
         }
-        setVisible(true);
     }
 
 
@@ -309,32 +385,31 @@ public class CalendarApp extends JFrame {
 //        }
 //    }
 
-    // EFFECTS: Saves the current state of the CalendarApp to ./data/calendar.json
+    // EFFECTS: Saves the calendar as it was in the given snapshot to ./data/calendar.json; throws IOException if it
+    //          can not be written
     // This method has taken inspiration from the saveWorkRoom method in the WorkRoomApp class in
     // https://github.students.cs.ubc.ca/CPSC210/JsonSerializationDemo
-    private void saveCalendar() {
-        try {
-            calSaver.open();
-            calSaver.write(cal);
-            calSaver.close();
-            System.out.println("\nYour calendar has been saved to " + calData);
-        } catch (IOException e) {
-            System.out.println("\nYour hard drive is corrupted...HAHA JK I couldn't find the save file... ");
-        }
+    private void saveCalendar(CalendarSnapshot toSave) throws IOException {
+        calSaver.open();
+        calSaver.writeStreaming(toSave);
+        calSaver.close();
     }
 
-    // MODIFIES: cal
-    // EFFECTS: Loads any saved Calendar data from ./data/calendar.json
-    // This method has taken inspiration from the loadWorkRoom method in the WorkRoomApp class in
-    private void loadCalendar() {
-        try {
-            cal = calReader.read();
-            System.out.println("\nI have loaded the calendar from the month of " + cal.getMonth()
-                    + "," + cal.getYear() + " from " + calData);
-            //displayCalendar();
-        } catch (IOException e) {
-            System.out.println("\nUnable to read file");
+    // MODIFIES: this
+    // EFFECTS: Shows the given calendar in place of the current one, repainting every day box
+    private void showCalendar(Calendar shown) {
+        cal = shown;
+        markChanged(1, listOfDays.size());
+        updateDateBoxes();
+    }
+
+    // EFFECTS: Returns true, after asking the user to wait, if a load or save is still running
+    private boolean isBusy() {
+        if (persistenceTask != null && !persistenceTask.isDone()) {
+            JOptionPane.showMessageDialog(null, "Please wait for the calendar to finish loading or saving");
+            return true;
         }
+        return false;
     }
 
     // EFFECTS: Displays current calendar
@@ -585,57 +660,44 @@ public class CalendarApp extends JFrame {
 //    }
 
 
-    // EFFECTS: adds event with name, start, end, and category to the calendar and GUI
+    // MODIFIES: this
+    // EFFECTS: shows the event, which has been added to the calendar, on the days it covers, and outlines the
+    //          events it now conflicts with
     private void addEventToGUI(CalendarEvent e) {
-        switch (e.getCategory()) {
+        markWithConflicts(e);
+        updateDateBoxes();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the day boxes of e and of every event and occurrence sharing a day with it to be repainted,
+    //          since whether their chips are outlined may change with e
+    private void markWithConflicts(CalendarEvent e) {
+        markChanged(e.getStartDate(), e.getEndDate());
+        for (CalendarEvent other : cal.conflicts().conflictsWith(e)) {
+            markChanged(other.getStartDate(), other.getEndDate());
+        }
+        YearMonth ym = cal.getYearMonth();
+        for (RecurrenceRule.Occurrence o : cal.conflicts().occurrencesConflictingWith(e)) {
+            markChanged(o.firstDayIn(ym), o.lastDayIn(ym));
+        }
+    }
+
+    // EFFECTS: returns the color events of the given category are shown in
+    private static Color getCategoryColor(String category) {
+        switch (category) {
             case "family":
-                addEventButtons(e, Color.RED);
-                break;
+                return Color.RED;
             case "friends":
-                addEventButtons(e, Color.MAGENTA);
-                break;
+                return Color.MAGENTA;
             case "personal":
-                addEventButtons(e, Color.GREEN);
-                break;
+                return Color.GREEN;
             case "school":
-                addEventButtons(e, Color.BLUE);
-                break;
+                return Color.BLUE;
             default:
-                addEventButtons(e, Color.ORANGE);
-        }
-    }
-
-    // MODIFIES: this
-    // EFFECTS: Add buttons to the day labels corresponding to the new event
-    //          and create the new event
-    private void addEventButtons(CalendarEvent e, Color clr) {
-        int counter = 1;
-        int start = e.getStartDate();
-        int end = e.getEndDate();
-        String name = e.getTitle();
-
-        ArrayList<Day> newListOfDays = new ArrayList<>();
-        for (Day day : listOfDays) {
-            if (counter >= start && counter <= end) {
-                JButton btn = new JButton(name);
-                btn.setOpaque(true);
-                btn.setBackground(clr);
-                day.add(btn);
-                day.addToListOfEventButtons(btn);
-                btn.addMouseListener(new DateClick(btn, e));
-                day.setLayout(new BoxLayout(day, BoxLayout.PAGE_AXIS));
-//                 }
-                //day.setComponentPopupMenu(rightClickMenu);
-
-            }
-            counter++;
-            newListOfDays.add(day);
+                return Color.ORANGE;
         }
-        listOfDays = newListOfDays;
-        updateDateBoxes();
     }
 
-
     // This abstract class handles the add menu and is implemented depending on which category the user selects
     private abstract class AddEvent extends AbstractAction {
         String cat;
@@ -644,6 +706,7 @@ public class CalendarApp extends JFrame {
         JTextField nameField = new JTextField(5);
         JTextField startDateField = new JTextField(5);
         JTextField endDateField = new JTextField(5);
+        JComboBox<String> repeatSelect = new JComboBox<>(new String[] {"never", "daily", "weekly", "monthly"});
 
 
         // EFFECTS: Creates menu option with name cat and stores cat as a field
@@ -668,9 +731,7 @@ public class CalendarApp extends JFrame {
             int endDate = parseInt(endDateField.getText());
             if (result == JOptionPane.OK_OPTION) {
                 try {
-                    CalendarEvent evnt = new CalendarEvent(eventName, startDate, endDate, cat);
-                    cal.addEvent(evnt);
-                    addEventToGUI(evnt);
+                    addEntered(eventName, startDate, endDate);
                 } catch (InvalidCategory ex) {
                     ex.printStackTrace();
                 } catch (InvalidDates ex) {
@@ -681,6 +742,30 @@ public class CalendarApp extends JFrame {
 
         }
 
+        // MODIFIES: CalendarApp
+        // EFFECTS: adds the event entered to the calendar and shows it: as one event, or, if it repeats and the
+        //          calendar's month is a real one, as a rule whose first occurrence is on the dates entered
+        private void addEntered(String name, int start, int end) throws InvalidCategory, InvalidDates {
+            String repeats = (String) repeatSelect.getSelectedItem();
+            YearMonth ym = cal.getYearMonth();
+            if (repeats.equals("never") || ym == null) {
+                CalendarEvent evnt = new CalendarEvent(name, start, end, cat);
+                if (!cal.fits(evnt)) {
+                    throw new GreaterThanLastDay();
+                }
+                cal.addEvent(evnt);
+                addEventToGUI(evnt);
+                return;
+            }
+            if (start < 1 || end < start || end > ym.lengthOfMonth()) {
+                throw new InvalidDates();
+            }
+            cal.addRule(new RecurrenceRule(name, ym.atDay(start), end - start + 1, cat,
+                    RecurrenceRule.Frequency.valueOf(repeats.toUpperCase()), 1, null));
+            markChanged(start, listOfDays.size());
+            updateDateBoxes();
+        }
+
         private void setUpAddMenu(JPanel pnl) {
             pnl.add(new JLabel("Event Name:"));
             pnl.add(nameField);
@@ -690,6 +775,9 @@ public class CalendarApp extends JFrame {
             pnl.add(Box.createHorizontalStrut(15)); // a spacer
             pnl.add(new JLabel("End Date:"));
             pnl.add(endDateField);
+            pnl.add(Box.createHorizontalStrut(15)); // a spacer
+            pnl.add(new JLabel("Repeats:"));
+            pnl.add(repeatSelect);
         }
 
 
@@ -751,6 +839,54 @@ public class CalendarApp extends JFrame {
         }
     }
 
+    // Asks for a number of days and a category, and tells the user the earliest run of that many days with no
+    // events (of that category, unless "any" is chosen), or the least busy run if there is no free one
+    private class FindFreeDays extends AbstractAction {
+        JTextField lengthField = new JTextField(5);
+        JComboBox<String> categorySelect =
+                new JComboBox<>(new String[] {"any", "family", "friends", "personal", "school", "work"});
+
+        FindFreeDays() {
+            super("Find free days");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            JPanel panel = new JPanel();
+            panel.add(new JLabel("Days:"));
+            panel.add(lengthField);
+            panel.add(Box.createHorizontalStrut(15)); // a spacer
+            panel.add(new JLabel("Free of:"));
+            panel.add(categorySelect);
+            int result = JOptionPane.showConfirmDialog(null, panel,
+                    "Find free days", JOptionPane.OK_CANCEL_OPTION);
+            if (result == JOptionPane.OK_OPTION) {
+                try {
+                    showFreeDays(parseInt(lengthField.getText().trim()), (String) categorySelect.getSelectedItem());
+                } catch (NumberFormatException ex) {
+                    JOptionPane.showMessageDialog(null, "INVALID INPUT FOR DAYS");
+                }
+            }
+        }
+
+        // EFFECTS: tells the user where the first run of length days free of the category starts
+        private void showFreeDays(int length, String category) {
+            FreeSlotFinder finder = cal.freeSlots();
+            if (length < 1 || length > finder.getDays()) {
+                JOptionPane.showMessageDialog(null, "INVALID INPUT FOR DAYS");
+                return;
+            }
+            int start = category.equals("any") ? finder.earliestFree(length) : finder.earliestFree(length, category);
+            if (start > 0) {
+                JOptionPane.showMessageDialog(null, "Days " + start + " to " + (start + length - 1) + " are free");
+            } else {
+                start = finder.leastLoaded(length);
+                JOptionPane.showMessageDialog(null, "There are no " + length + " free days in a row; days " + start
+                        + " to " + (start + length - 1) + " are the least busy");
+            }
+        }
+    }
+
     // this class implements the save function of the calendar
     private class SaveCalendarEvent extends AbstractAction {
 
@@ -764,9 +900,40 @@ public class CalendarApp extends JFrame {
             int result = JOptionPane.showConfirmDialog(null,
                     "Do you wish to save this Calendar?", "Calendar Saver", JOptionPane.YES_NO_OPTION,
                     JOptionPane.QUESTION_MESSAGE);
-            if (result == JOptionPane.YES_OPTION) {
-                saveCalendar();
+            if (result == JOptionPane.YES_OPTION && !isBusy()) {
+                persistenceTask = new SaveWorker();
+                persistenceTask.execute();
+            }
+        }
+    }
+
+    // Saves the calendar on a background thread, so the window keeps responding while the file is written. What is
+    // saved is a snapshot of the calendar taken on the event thread when the save started, so every event is saved
+    // as it was at that moment however it is edited while the file is written; those edits are left for the next.
+    private class SaveWorker extends SwingWorker<Void, Void> {
+        private final CalendarSnapshot toSave = cal.snapshot();
+
+        SaveWorker() {
+            setTitle("CalendarApp (saving...)");
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            saveCalendar(toSave);
+            return null;
+        }
+
+        // EFFECTS: Tells the user whether the calendar was saved
+        @Override
+        protected void done() {
+            setTitle("CalendarApp");
+            try {
+                get();
+                System.out.println("\nYour calendar has been saved to " + calData);
                 JOptionPane.showMessageDialog(null, "Your calendar has been saved!");
+            } catch (InterruptedException | ExecutionException e) {
+                System.out.println("\nYour hard drive is corrupted...HAHA JK I couldn't find the save file... ");
+                JOptionPane.showMessageDialog(null, "Unable to save the calendar to " + calData);
             }
         }
     }
@@ -786,39 +953,87 @@ public class CalendarApp extends JFrame {
                     "Do you wish to load a previously saved calendar?",
                     "Calendar Loader", JOptionPane.YES_NO_OPTION,
                     JOptionPane.QUESTION_MESSAGE);
-            if (result == JOptionPane.YES_OPTION) {
-                loadCalendar();
-                clearEachDay();
-                JOptionPane.showMessageDialog(null, "Loaded calendar from " + calData);
-                addLoadedCalendarToGUI();
-                setVisible(true);
-                // TODO: FIGURE OUT HOW TO MAKE SURE FRAME UPDATES WITHOUT RESIZING
+            if (result == JOptionPane.YES_OPTION && !isBusy()) {
+                persistenceTask = new LoadWorker();
+                persistenceTask.execute();
             }
         }
+    }
 
-        private void clearEachDay() {
-            for (Day day : listOfDays) {
-                day.removeAll();
-                day.clearListOfEventButtons();
-            }
+    // Loads the saved calendar on a background thread. The new calendar is shown as soon as it has been created
+    // and its events appear in batches as they are read, while a progress dialog (shown if the load takes more
+    // than a moment) follows how much of the file has been read. Cancelling the dialog stops the load; the
+    // calendar that was showing before is then put back, as it is if the load fails.
+    private class LoadWorker extends SwingWorker<Calendar, CalendarEvent> implements ReadListener {
+        private final Calendar previous = cal;
+        private final long fileSize = new File(calData).length();
+        private final ProgressMonitor monitor =
+                new ProgressMonitor(CalendarApp.this, "Loading " + calData, null, 0, 100);
+        private int eventsShown;
+
+        @Override
+        protected Calendar doInBackground() throws IOException {
+            return calReader.readStreaming(this);
         }
 
+        // EFFECTS: Shows the new calendar, still empty, in place of the previous one unless the load has ended
+        @Override
+        public void calendarCreated(Calendar loaded) {
+            SwingUtilities.invokeLater(() -> {
+                if (!isDone()) {
+                    showCalendar(loaded);
+                }
+            });
+        }
 
-        // MODIFIES: this
-        // EFFECTS: Adds all events from saved calendar onto the GUI as buttons
-        private void addLoadedCalendarToGUI() {
-            for (CalendarEvent e : cal.getListOfEvents()) {
-                addEventToGUI(e);
+        // EFFECTS: Passes the event on to be shown and records how much of the file has been read
+        @Override
+        public void eventRead(CalendarEvent e) {
+            publish(e);
+            setProgress((int) Math.min(100, 100 * calReader.getBytesRead() / Math.max(1, fileSize)));
+        }
+
+        // MODIFIES: CalendarApp
+        // EFFECTS: Shows the events read since the last batch and the progress, or stops the load if the user
+        //          cancelled it
+        @Override
+        protected void process(List<CalendarEvent> events) {
+            if (monitor.isCanceled()) {
+                cancel(true);
+                return;
+            }
+            for (CalendarEvent e : events) {
+                markChanged(e.getStartDate(), e.getEndDate());
+            }
+            updateDateBoxes();
+            eventsShown += events.size();
+            monitor.setNote(eventsShown + " events");
+            monitor.setProgress(getProgress());
+        }
+
+        // MODIFIES: CalendarApp
+        // EFFECTS: Shows the loaded calendar, or puts back the previous one if the load was cancelled or failed
+        @Override
+        protected void done() {
+            monitor.close();
+            try {
+                showCalendar(get());
+                System.out.println("\nI have loaded the calendar from the month of " + cal.getMonth()
+                        + "," + cal.getYear() + " from " + calData);
+                JOptionPane.showMessageDialog(null, "Loaded calendar from " + calData);
+            } catch (CancellationException e) {
+                showCalendar(previous);
+            } catch (InterruptedException | ExecutionException e) {
+                showCalendar(previous);
+                System.out.println("\nUnable to read file");
+                JOptionPane.showMessageDialog(null, "Unable to read " + calData);
             }
-            setVisible(true);
         }
     }
 
 
-    // this code has taken inspiration from this tutorial:
-    // http://www.java2s.com/Tutorial/Java/0260__Swing-Event/DetectingDoubleandTripleClicks.htm
-    private class DateClick extends MouseAdapter {
-        JButton clickedButton;
+    // Represents the menu for editing one event; it is created when the event is clicked
+    private class EditEvent {
         CalendarEvent event;
 
         String oldTitle;
@@ -838,25 +1053,18 @@ public class CalendarApp extends JFrame {
         String[] categories = {"family", "friends", "personal", "school", "work"};
         JComboBox categorySelect = new JComboBox(categories);
 
-        DateClick(JButton btn, CalendarEvent event) {
-            clickedButton = btn;
+        EditEvent(CalendarEvent event) {
             this.event = event;
 
             oldTitle = event.getTitle();
             oldStart = event.getStartDate();
             oldEnd = event.getEndDate();
             oldCategory = event.getCategory();
-
-
         }
 
-        public void mouseClicked(MouseEvent mouseEvent) {
-            if (mouseEvent.getClickCount() == 1) {
-                editMenu();
-            }
-        }
-
-        private void editMenu() {
+        // MODIFIES: CalendarApp
+        // EFFECTS: Asks the user for the new details of the event and applies them
+        void editMenu() {
             setUpEditMenu();
             int result = JOptionPane.showConfirmDialog(null, editMenuPanel,
                     "Please enter event details", JOptionPane.OK_CANCEL_OPTION);
@@ -869,14 +1077,16 @@ public class CalendarApp extends JFrame {
                 applyChange();
                 updateDateBoxes();
             }
-            //displayCalendar();
         }
 
+        // MODIFIES: CalendarApp
+        // EFFECTS: Changes the event and marks the days it and the events it conflicts with were and are now on
+        //          to be repainted
         private void applyChange() {
+            markWithConflicts(event);
             if (oldStart != newStart || oldEnd != newEnd) {
                 try {
                     event.setDates(newStart, newEnd);
-                    changeEventButtonDates();
                 } catch (InvalidDates e) {
                     JOptionPane.showMessageDialog(null, "INVALID INPUT FOR DATE(S)");
                 }
@@ -884,72 +1094,16 @@ public class CalendarApp extends JFrame {
             if (!oldCategory.equals(newCategory)) {
                 try {
                     event.setCategory(newCategory);
-                    changeEventButtonCategory();
                 } catch (InvalidCategory e) {
                     System.out.println("INVALID CATEGORY");
                 }
             }
             if (!oldTitle.equals(newTitle)) {
                 event.setTitle(newTitle);
-                changeEventButtonName();
-            }
-            clickedButton.addMouseListener(new DateClick(clickedButton, event));
-        }
-
-        private void changeEventButtonDates() {
-            for (Day d : listOfDays) {
-                for (JButton eventButton : d.getListOfEventButtons()) {
-                    if (eventButton.getText().equals(oldTitle)) {
-                        if (parseInt(d.getText()) < newStart || parseInt(d.getText()) > newEnd) {
-                            d.remove(eventButton);
-                            d.getListOfEventButtons().remove(eventButton);
-                        }
-                    }
-                }
-                if ((parseInt(d.getText()) >= newStart && parseInt(d.getText()) < oldStart)
-                        || (parseInt(d.getText()) <= newEnd && parseInt(d.getText()) > oldEnd)) {
-                    d.add(clickedButton);
-                    d.getListOfEventButtons().add(clickedButton);
-                }
-            }
-        }
-
-        private void changeEventButtonName() {
-            for (Day d : listOfDays) {
-                for (JButton eventButton : d.getListOfEventButtons()) {
-                    if (eventButton.getText().equals(oldTitle)) {
-                        eventButton.setText(newTitle);
-                    }
-                }
-            }
-        }
-
-        private void changeEventButtonCategory() {
-            for (Day d : listOfDays) {
-                for (JButton eventButton : d.getListOfEventButtons()) {
-                    if (eventButton.getText().equals(oldTitle)) {
-                        eventButton.setBackground(getCategoryColor(newCategory));
-                    }
-                }
-            }
-        }
-
-        private Color getCategoryColor(String category) {
-            switch (category) {
-                case "family":
-                    return Color.RED;
-                case "friends":
-                    return Color.MAGENTA;
-                case "personal":
-                    return Color.GREEN;
-                case "school":
-                    return Color.BLUE;
-                default:
-                    return Color.ORANGE;
             }
+            markWithConflicts(event);
         }
 
-
         private void setUpEditMenu() {
             editMenuPanel.add(new JLabel("Name:"));
             editMenuPanel.add(nameField);
@@ -970,48 +1124,163 @@ public class CalendarApp extends JFrame {
             editMenuPanel.add(categorySelect);
             categorySelect.setSelectedItem(oldCategory);
         }
-
-
     }
 
 
-//
+    // Represents the box of one day on the month grid. The day's events are drawn as colored chips, read from the
+    // calendar each time the box is painted, so the box holds no components however many events there are. If they
+    // do not all fit, the last row says how many more there are and offers them in a list. The occurrences of
+    // repeating events on the day follow the events, with their titles in italics. The chips of events and
+    // occurrences that share a day with another event or occurrence are outlined. Clicking a chip opens the edit
+    // menu for its event, or, for an occurrence, asks whether to skip it or delete every occurrence.
+    private class Day extends JLabel {
+        static final int CHIP_HEIGHT = 18;
+        static final int CHIP_GAP = 2;
+        private final Color conflictColor = new Color(139, 0, 0);
+
+        private final int dayOfMonth;
+
+        Day(int dayOfMonth) {
+            super(Integer.toString(dayOfMonth));
+            this.dayOfMonth = dayOfMonth;
+            // this code has taken inspiration from this tutorial:
+            // http://www.java2s.com/Tutorial/Java/0260__Swing-Event/DetectingDoubleandTripleClicks.htm
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent mouseEvent) {
+                    if (mouseEvent.getClickCount() == 1) {
+                        editEventAt(mouseEvent.getY());
+                    }
+                }
+            });
+        }
 
+        // EFFECTS: Draws the day's number and a chip for each of its events and then each of its occurrences of
+        //          repeating events that fits
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            List<CalendarEvent> events = cal.eventsOn(dayOfMonth);
+            List<RecurrenceRule.Occurrence> repeats = cal.occurrencesOn(dayOfMonth);
+            int total = events.size() + repeats.size();
+            int shown = chipsShown(total);
+            for (int i = 0; i < shown; i++) {
+                if (i < events.size()) {
+                    CalendarEvent e = events.get(i);
+                    paintChip(g, i, getCategoryColor(e.getCategory()), e.getTitle(), cal.conflicts().hasConflict(e));
+                } else {
+                    paintOccurrenceChip(g, i, repeats.get(i - events.size()));
+                }
+            }
+            if (shown < total) {
+                paintChip(g, shown, null, "+" + (total - shown) + " more", false);
+            }
+        }
 
-    private class Day extends JLabel {
-        ArrayList<JButton> listOfEventButtons;
+        // EFFECTS: Draws a chip for the occurrence in the given row, with its title in italics, outlined if
+        //          conflicting
+        private void paintOccurrenceChip(Graphics g, int row, RecurrenceRule.Occurrence o) {
+            Graphics italic = g.create();
+            try {
+                italic.setFont(getFont().deriveFont(Font.ITALIC));
+                boolean conflicting = cal.conflicts().hasConflict(o);
+                paintChip(italic, row, getCategoryColor(o.getCategory()), o.getTitle(), conflicting);
+            } finally {
+                italic.dispose();
+            }
+        }
 
-        Day(String dayOfMonth) {
-            super(dayOfMonth);
-            listOfEventButtons = new ArrayList<>();
+        // EFFECTS: Draws a chip with the given text in the given row, filled with color unless it is null and
+        //          outlined if conflicting; text that does not fit is cut off
+        private void paintChip(Graphics g, int row, Color color, String text, boolean conflicting) {
+            int width = getWidth() - 2 * CHIP_GAP;
+            int height = CHIP_HEIGHT - CHIP_GAP;
+            Graphics chip = g.create(CHIP_GAP, chipsTop() + row * CHIP_HEIGHT, width, height);
+            try {
+                if (color != null) {
+                    chip.setColor(color);
+                    chip.fillRect(0, 0, width, height);
+                }
+                if (conflicting) {
+                    chip.setColor(conflictColor);
+                    chip.drawRect(0, 0, width - 1, height - 1);
+                    chip.drawRect(1, 1, width - 3, height - 3);
+                }
+                chip.setColor(Color.BLACK);
+                FontMetrics metrics = chip.getFontMetrics();
+                chip.drawString(text, CHIP_GAP, (height + metrics.getAscent() - metrics.getDescent()) / 2);
+            } finally {
+                chip.dispose();
+            }
         }
 
-        public void addToListOfEventButtons(JButton btn) {
-            listOfEventButtons.add(btn);
+        // EFFECTS: Returns the y coordinate of the top of the first row of chips, just below the day's number
+        private int chipsTop() {
+            return getInsets().top + getFontMetrics(getFont()).getHeight();
         }
 
-        public void removeFromListOfEventButtons(JButton btn) {
-            listOfEventButtons.remove(btn);
+        // EFFECTS: Returns how many of the given number of events get a chip of their own: all of them if they fit,
+        //          otherwise one fewer than the rows that fit, leaving the last row to say how many more there are
+        private int chipsShown(int events) {
+            int rows = Math.max(0, (getHeight() - getInsets().bottom - chipsTop()) / CHIP_HEIGHT);
+            return events <= rows ? events : Math.max(0, rows - 1);
         }
 
-        public void clearListOfEventButtons() {
-            listOfEventButtons.clear();
+        // MODIFIES: CalendarApp
+        // EFFECTS: Opens the edit menu for the event or occurrence whose chip is at the given height, first asking
+        //          which one to edit if the row saying how many more there are was clicked
+        private void editEventAt(int y) {
+            if (y < chipsTop()) {
+                return;
+            }
+            int row = (y - chipsTop()) / CHIP_HEIGHT;
+            List<CalendarEvent> events = cal.eventsOn(dayOfMonth);
+            List<RecurrenceRule.Occurrence> repeats = cal.occurrencesOn(dayOfMonth);
+            int total = events.size() + repeats.size();
+            int shown = chipsShown(total);
+            int clicked = -1;
+            if (row < shown) {
+                clicked = row;
+            } else if (row == shown && shown < total) {
+                clicked = chooseRow(events, repeats);
+            }
+            if (clicked >= events.size()) {
+                editOccurrence(repeats.get(clicked - events.size()));
+            } else if (clicked >= 0) {
+                new EditEvent(events.get(clicked)).editMenu();
+            }
         }
 
-        public ArrayList<JButton> getListOfEventButtons() {
-            return listOfEventButtons;
+        // EFFECTS: Asks the user to pick one of the events or occurrences and returns its row, counting the
+        //          events first, or -1 if they cancel
+        private int chooseRow(List<CalendarEvent> events, List<RecurrenceRule.Occurrence> repeats) {
+            String[] choices = new String[events.size() + repeats.size()];
+            for (int i = 0; i < choices.length; i++) {
+                choices[i] = (i + 1) + ". " + (i < events.size() ? events.get(i).getTitle()
+                        : repeats.get(i - events.size()).getTitle() + " (repeats)");
+            }
+            Object choice = JOptionPane.showInputDialog(null, "Events on " + month + " " + dayOfMonth + ":",
+                    "Choose an event", JOptionPane.PLAIN_MESSAGE, null, choices, choices[0]);
+            return choice == null ? -1 : Arrays.asList(choices).indexOf(choice);
         }
 
+        // MODIFIES: CalendarApp
+        // EFFECTS: Asks whether to skip the occurrence or delete every occurrence of its event, and does so
+        private void editOccurrence(RecurrenceRule.Occurrence o) {
+            String[] options = {"Skip this one", "Delete every one", "Cancel"};
+            int choice = JOptionPane.showOptionDialog(null, o.getTitle() + " repeats", "Edit a repeating event",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[2]);
+            try {
+                if (choice == 0) {
+                    o.getRule().addException(o.getStart());
+                } else if (choice == 1) {
+                    cal.deleteRule(o.getRule());
+                }
+            } catch (CanNotFindEvent ex) {
+                JOptionPane.showMessageDialog(null, "That event is no longer on the calendar");
+            }
+            markChanged(1, listOfDays.size());
+            updateDateBoxes();
+        }
     }
 }
-
-
-
-
-
-
-
-
-
-
-
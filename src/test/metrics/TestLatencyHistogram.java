@@ -0,0 +1,72 @@
+package metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLatencyHistogram {
+    LatencyHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        Metrics.setEnabled(true);
+        histogram = new LatencyHistogram("test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(false);
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    void testBucketsRoundTrip() {
+        for (long value : new long[] {0, 1, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket < LatencyHistogram.BUCKETS);
+            long low = LatencyHistogram.lowestValueOf(bucket);
+            assertTrue(low <= value);
+            assertTrue(value - low <= value / 32);
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getMean(), 1);
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500000, histogram.getPercentile(50), 500000 / 32);
+        assertEquals(990000, histogram.getPercentile(99), 990000 / 32);
+        assertEquals(1000000, histogram.getPercentile(100), 1000000 / 32);
+    }
+
+    @Test
+    void testDisabledRecordsNothing() {
+        Metrics.setEnabled(false);
+        histogram.record(5);
+        histogram.recordSince(Metrics.start());
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    void testReset() {
+        histogram.record(5);
+        histogram.recordSince(Metrics.start());
+        assertEquals(2, histogram.getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+}
@@ -0,0 +1,78 @@
+package metrics;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMetrics {
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    void testCounter() {
+        Counter counter = Metrics.counter("test.counter");
+        assertSame(counter, Metrics.counter("test.counter"));
+        counter.increment();
+        counter.add(4);
+        assertEquals(5, counter.get());
+        Metrics.setEnabled(false);
+        counter.increment();
+        assertEquals(5, counter.get());
+    }
+
+    @Test
+    void testCalendarIsInstrumented() {
+        try {
+            Calendar cal = new Calendar("March", 2022);
+            cal.addEvent(new CalendarEvent("Event A", 2, 5, "school"));
+            cal.getEvent("Event A");
+            JSONObject latencies = Metrics.toJson().getJSONObject("latencies");
+            assertEquals(1, latencies.getJSONObject("calendar.addEvent").getLong("count"));
+            assertEquals(1, latencies.getJSONObject("calendar.getEvent").getLong("count"));
+            assertTrue(Metrics.toText().contains("calendar.addEvent"));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually correct");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually correct");
+        }
+    }
+
+    @Test
+    void testMBean() {
+        try {
+            Metrics.registerMBean();
+            Metrics.registerMBean();
+            Metrics.counter("test.counter").add(3);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(Metrics.MBEAN_NAME);
+            assertEquals(true, server.getAttribute(name, "Enabled"));
+            assertTrue(((String) server.getAttribute(name, "Json")).contains("test.counter"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0, Metrics.counter("test.counter").get());
+        } catch (JMException e) {
+            fail("The MBean should be registered");
+        }
+    }
+}
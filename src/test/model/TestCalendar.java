@@ -6,6 +6,11 @@ import exceptions.InvalidDates;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TestCalendar {
@@ -36,9 +41,11 @@ public class TestCalendar {
 
     @Test
     void testAddEvent() {
+        assertEquals(0, testCalendar.size());
         testCalendar.addEvent(eventA);
         testCalendar.addEvent(eventB);
         assertFalse(testCalendar.getListOfEvents().isEmpty());
+        assertEquals(2, testCalendar.size());
         assertTrue(testCalendar.isOnCalendar(eventA));
         assertTrue(testCalendar.isOnCalendar(eventB));
     }
@@ -187,4 +194,378 @@ public class TestCalendar {
         assertFalse(testCalendar.isEventOnCalendar("Event B"));
     }
 
+    @Test
+    void testEventsOnNoEvents() {
+        assertTrue(testCalendar.eventsOn(3).isEmpty());
+        assertTrue(testCalendar.eventsOn(0).isEmpty());
+        assertTrue(testCalendar.eventsOn(40).isEmpty());
+    }
+
+    @Test
+    void testEventsOnAddTwo() {
+        testCalendar.addEvent(eventA);
+        testCalendar.addEvent(eventB);
+        assertEquals(1, testCalendar.eventsOn(2).size());
+        assertEquals(eventA, testCalendar.eventsOn(5).get(0));
+        assertEquals(eventB, testCalendar.eventsOn(15).get(0));
+        assertTrue(testCalendar.eventsOn(10).isEmpty());
+    }
+
+    @Test
+    void testEventsOnAfterDelete() {
+        try {
+            testCalendar.addEvent(eventA);
+            testCalendar.deleteEvent(eventA);
+            assertTrue(testCalendar.eventsOn(3).isEmpty());
+        } catch (CanNotFindEvent e) {
+            fail("eventA is on the calendar");
+        }
+    }
+
+    @Test
+    void testEventsOnAfterSetDates() {
+        try {
+            testCalendar.addEvent(eventA);
+            eventA.setDates(10, 12);
+            assertTrue(testCalendar.eventsOn(2).isEmpty());
+            assertEquals(eventA, testCalendar.eventsOn(11).get(0));
+        } catch (InvalidDates e) {
+            fail("Dates are actually valid");
+        }
+    }
+
+    @Test
+    void testEventsBetween() {
+        testCalendar.addEvent(eventA);
+        testCalendar.addEvent(eventB);
+        assertEquals(2, testCalendar.eventsBetween(1, 28).size());
+        assertEquals(1, testCalendar.eventsBetween(4, 14).size());
+        assertEquals(eventB, testCalendar.eventsBetween(18, 40).get(0));
+        assertTrue(testCalendar.eventsBetween(6, 14).isEmpty());
+    }
+
+    @Test
+    void testGetEventByNameNotOnCalendar() {
+        testCalendar.addEvent(eventA);
+        assertNull(testCalendar.getEvent("Event B"));
+        assertNull(testCalendar.getEvent("Event B", 15, 20));
+    }
+
+    @Test
+    void testGetEventAfterSetTitle() {
+        testCalendar.addEvent(eventA);
+        eventA.setTitle("Renamed");
+        assertNull(testCalendar.getEvent("Event A"));
+        assertFalse(testCalendar.isEventOnCalendar("Event A"));
+        assertEquals(eventA, testCalendar.getEvent("Renamed"));
+        assertEquals(eventA, testCalendar.getEvent("Renamed", 2, 5));
+    }
+
+    @Test
+    void testIsThereSimilarEventAfterDelete() {
+        try {
+            CalendarEvent eventACopy = new CalendarEvent("Event A", 3, 9, "work");
+            testCalendar.addEvent(eventA);
+            testCalendar.addEvent(eventACopy);
+            testCalendar.deleteEvent(eventACopy);
+            assertFalse(testCalendar.isThereSimilarEvent("Event A"));
+            assertEquals(eventA, testCalendar.getEvent("Event A"));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (CanNotFindEvent e) {
+            fail("eventACopy is on the calendar");
+        }
+    }
+
+    @Test
+    void testIdsAreGivenOnAdd() {
+        assertEquals(0, eventA.getId());
+        testCalendar.addEvent(eventA);
+        testCalendar.addEvent(eventB);
+        assertEquals(1, eventA.getId());
+        assertEquals(2, eventB.getId());
+        assertEquals(eventA, testCalendar.getEventById(1));
+        assertEquals(eventB, testCalendar.getEventById(2));
+        assertNull(testCalendar.getEventById(3));
+        testCalendar.addEvent(eventA);
+        assertEquals(2, testCalendar.getListOfEvents().size());
+    }
+
+    @Test
+    void testSavedIdsAreKept() {
+        try {
+            CalendarEvent saved = new CalendarEvent(7, "Saved", 1, 1, "work");
+            CalendarEvent clash = new CalendarEvent(7, "Clash", 2, 2, "work");
+            testCalendar.addEvent(saved);
+            testCalendar.addEvent(clash);
+            testCalendar.addEvent(eventA);
+            assertEquals(7, saved.getId());
+            assertEquals(8, clash.getId());
+            assertEquals(9, eventA.getId());
+            assertEquals(clash, testCalendar.getEventById(8));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        }
+    }
+
+    @Test
+    void testManyEventsWithSameTitle() {
+        try {
+            CalendarEvent[] shifts = new CalendarEvent[5];
+            for (int i = 0; i < shifts.length; i++) {
+                shifts[i] = new CalendarEvent("Shift", i + 1, i + 1, "work");
+                testCalendar.addEvent(shifts[i]);
+            }
+            testCalendar.deleteEvent(shifts[4]);
+            assertSame(shifts[3], testCalendar.getEvent("Shift"));
+            testCalendar.deleteEvent(shifts[1]);
+            assertNull(testCalendar.getEvent("Shift", 2, 2));
+            assertSame(shifts[2], testCalendar.getEvent("Shift", 3, 3));
+            shifts[3].setTitle("Late shift");
+            assertSame(shifts[2], testCalendar.getEvent("Shift"));
+            shifts[0].setTitle("Late shift");
+            shifts[2].setTitle("Late shift");
+            assertFalse(testCalendar.isThereSimilarEvent("Shift"));
+            assertNull(testCalendar.getEvent("Shift"));
+            assertSame(shifts[2], testCalendar.getEvent("Late shift"));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The events are valid");
+        } catch (CanNotFindEvent e) {
+            fail("The events are on the calendar");
+        }
+    }
+
+    @Test
+    void testEventsMustFitInMonth() {
+        Calendar february = new Calendar("FEBRUARY", 2022);
+        assertEquals(28, february.getLastDay());
+        assertEquals(29, new Calendar("February", 2024).getLastDay());
+        assertEquals(31, new Calendar("Smarch", 2022).getLastDay());
+        try {
+            CalendarEvent late = new CalendarEvent("Late", 27, 30, "work");
+            assertFalse(february.fits(late));
+            assertTrue(testCalendar.fits(late));
+            february.addEvent(late);
+            fail("February 2022 has no 30th");
+        } catch (IllegalArgumentException e) {
+            assertTrue(february.getListOfEvents().isEmpty());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The event is valid");
+        }
+        try {
+            february.addEvent(eventA);
+            eventA.setDates(28, 29);
+            fail("February 2022 has no 29th");
+        } catch (InvalidDates e) {
+            assertEquals(2, eventA.getStartDate());
+            assertEquals(5, eventA.getEndDate());
+        }
+    }
+
+    @Test
+    void testAddEventOnAnotherCalendar() {
+        Calendar other = new Calendar("APRIL", 2022);
+        testCalendar.addEvent(eventA);
+        testCalendar.addEvent(eventB);
+        try {
+            other.addEvent(eventA);
+            fail("eventA is on testCalendar");
+        } catch (IllegalArgumentException e) {
+            // do nothing
+        }
+        assertTrue(other.getListOfEvents().isEmpty());
+        assertEquals(eventA, testCalendar.getEventById(1));
+        try {
+            testCalendar.deleteEvent(eventB);
+            testCalendar.deleteEvent(eventA);
+            other.addEvent(eventA);
+            assertTrue(other.isOnCalendar(eventA));
+        } catch (CanNotFindEvent e) {
+            fail("The events are on testCalendar");
+        }
+    }
+
+    @Test
+    void testDeleteKeepsOrderAndIds() {
+        try {
+            CalendarEvent eventC = new CalendarEvent("Event C", 1, 1, "work");
+            testCalendar.addEvent(eventA);
+            testCalendar.addEvent(eventB);
+            testCalendar.addEvent(eventC);
+            testCalendar.deleteEvent(eventB);
+            assertFalse(testCalendar.isOnCalendar(eventB));
+            assertNull(testCalendar.getEventById(2));
+            assertEquals(eventA, testCalendar.getListOfEvents().get(0));
+            assertEquals(eventC, testCalendar.getListOfEvents().get(1));
+            testCalendar.deleteEvent(eventC);
+            testCalendar.addEvent(eventB);
+            assertEquals(eventB, testCalendar.getListOfEvents().get(1));
+            assertEquals(eventB, testCalendar.getEventById(2));
+            testCalendar.deleteEvent(eventC);
+            fail("eventC is no longer on the calendar");
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (CanNotFindEvent e) {
+            // expected
+        }
+    }
+
+    @Test
+    void testListOfEventsIsUnmodifiableSnapshot() {
+        testCalendar.addEvent(eventA);
+        List<CalendarEvent> events = testCalendar.getListOfEvents();
+        testCalendar.addEvent(eventB);
+        assertEquals(1, events.size());
+        assertEquals(2, testCalendar.getListOfEvents().size());
+        try {
+            events.add(eventB);
+            fail("The list should be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // do nothing
+        }
+    }
+
+    @Test
+    void testForEachEvent() {
+        testCalendar.addEvent(eventA);
+        testCalendar.addEvent(eventB);
+        List<CalendarEvent> seen = new ArrayList<>();
+        testCalendar.forEachEvent(seen::add);
+        assertEquals(Arrays.asList(eventA, eventB), seen);
+        seen.clear();
+        try {
+            testCalendar.forEachEvent(e -> {
+                seen.add(e);
+                throw new InvalidDates();
+            });
+            fail("The action threw");
+        } catch (InvalidDates e) {
+            assertEquals(1, seen.size());
+        }
+    }
+
+    @Test
+    void testWhileUnchangedHoldsOffWriters() throws InterruptedException {
+        testCalendar.addEvent(eventA);
+        Thread writer = new Thread(() -> testCalendar.addEvent(eventB));
+        testCalendar.whileUnchanged(() -> {
+            writer.start();
+            writer.join(100);
+            assertTrue(writer.isAlive());
+            assertEquals(1, testCalendar.size());
+        });
+        writer.join();
+        assertEquals(2, testCalendar.size());
+    }
+
+    @Test
+    void testConcurrentReadersAndWriters() throws InterruptedException {
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(t % 2 == 0 ? () -> addChangeDelete(errors) : () -> readAll(errors));
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty(), "Errors: " + errors);
+        assertEquals(4 * 500, testCalendar.getListOfEvents().size());
+        for (int d = 1; d <= CalendarEvent.maxDay; d++) {
+            for (CalendarEvent e : testCalendar.eventsOn(d)) {
+                assertTrue(e.occursOn(d));
+                assertTrue(testCalendar.isOnCalendar(e));
+            }
+        }
+    }
+
+    @Test
+    void testChangesWhileMovingBetweenCalendars() throws InterruptedException {
+        Calendar other = new Calendar("APRIL", 2022);
+        testCalendar.snapshot();
+        other.snapshot();
+        testCalendar.addEvent(eventA);
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        Thread mover = new Thread(() -> moveBackAndForth(errors, other));
+        Thread changer = new Thread(() -> changeOver(errors));
+        mover.start();
+        changer.start();
+        mover.join();
+        changer.join();
+        assertTrue(errors.isEmpty(), "Errors: " + errors);
+        assertTrue(testCalendar.isOnCalendar(eventA));
+        for (int d = 1; d <= CalendarEvent.maxDay; d++) {
+            assertEquals(eventA.occursOn(d), testCalendar.eventsOn(d).contains(eventA));
+        }
+        assertEquals(eventA, testCalendar.getEvent(eventA.getTitle()));
+        assertEquals(eventA.getTitle(), testCalendar.snapshot().get(0).getTitle());
+        assertEquals(0, other.snapshot().size());
+    }
+
+    // moves eventA from testCalendar to other and back 10000 times, ending on testCalendar
+    void moveBackAndForth(ConcurrentLinkedQueue<Throwable> errors, Calendar other) {
+        try {
+            for (int i = 0; i < 20000; i++) {
+                Calendar from = i % 2 == 0 ? testCalendar : other;
+                from.deleteEvent(eventA);
+                (i % 2 == 0 ? other : testCalendar).addEvent(eventA);
+            }
+        } catch (Throwable t) {
+            errors.add(t);
+        }
+    }
+
+    // changes the dates and title of eventA 20000 times
+    void changeOver(ConcurrentLinkedQueue<Throwable> errors) {
+        try {
+            for (int i = 0; i < 20000; i++) {
+                eventA.setDates(i % 20 + 1, i % 20 + 5);
+                eventA.setTitle("Title " + i);
+            }
+        } catch (Throwable t) {
+            errors.add(t);
+        }
+    }
+
+    // adds 1000 events, changes each, then deletes every other one
+    void addChangeDelete(ConcurrentLinkedQueue<Throwable> errors) {
+        try {
+            for (int i = 0; i < 1000; i++) {
+                CalendarEvent e = new CalendarEvent("Event " + i, i % 28 + 1, i % 28 + 3, "work");
+                testCalendar.addEvent(e);
+                e.setDates(i % 20 + 1, i % 20 + 10);
+                e.setTitle("Changed " + i);
+                if (i % 2 == 0) {
+                    testCalendar.deleteEvent(e);
+                }
+            }
+        } catch (Throwable t) {
+            errors.add(t);
+        }
+    }
+
+    // reads the calendar over and over while it is being changed, checking what it sees is consistent
+    void readAll(ConcurrentLinkedQueue<Throwable> errors) {
+        try {
+            for (int i = 0; i < 500; i++) {
+                for (CalendarEvent e : testCalendar.getListOfEvents()) {
+                    e.getTitle();
+                }
+                for (CalendarEvent e : testCalendar.eventsBetween(1, 31)) {
+                    e.getStartDate();
+                }
+                testCalendar.eventsOn(i % 31 + 1).size();
+                testCalendar.getEvent("Changed " + i);
+                testCalendar.toJson();
+            }
+        } catch (Throwable t) {
+            errors.add(t);
+        }
+    }
 }
@@ -0,0 +1,127 @@
+package model;
+
+import exceptions.CanNotFindEvent;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCalendarSnapshot {
+    Calendar cal;
+    CalendarEvent eventA;
+    CalendarEvent eventB;
+
+    @BeforeEach
+    void setUp() {
+        cal = new Calendar("March", 2022);
+        try {
+            eventA = new CalendarEvent("Event A", 2, 5, "school");
+            eventB = new CalendarEvent("Event B", 15, 20, "family");
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually correct");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually correct");
+        }
+        cal.addEvent(eventA);
+    }
+
+    @Test
+    void testSnapshotOfCurrentState() {
+        CalendarSnapshot snapshot = cal.snapshot();
+        assertEquals("March", snapshot.getMonth());
+        assertEquals(2022, snapshot.getYear());
+        assertEquals(1, snapshot.size());
+        assertEquals(eventA, snapshot.get(0).getEvent());
+        assertEquals("Event A", snapshot.get(0).getTitle());
+        assertEquals(2, snapshot.get(0).getStartDate());
+        assertEquals(5, snapshot.get(0).getEndDate());
+        assertEquals("school", snapshot.get(0).getCategory());
+        assertSame(snapshot, cal.snapshot());
+    }
+
+    @Test
+    void testSnapshotUnchangedByLaterChanges() {
+        try {
+            CalendarSnapshot before = cal.snapshot();
+            cal.addEvent(eventB);
+            eventA.setTitle("Renamed");
+            eventA.setDates(7, 8);
+            eventA.setCategory("work");
+            cal.deleteEvent(eventB);
+            assertEquals(1, before.size());
+            assertEquals("Event A", before.get(0).getTitle());
+            assertTrue(before.get(0).occursOn(2));
+
+            CalendarSnapshot after = cal.snapshot();
+            assertEquals(1, after.size());
+            assertEquals("Renamed", after.get(0).getTitle());
+            assertEquals(7, after.get(0).getStartDate());
+            assertEquals("work", after.get(0).getCategory());
+            assertTrue(after.eventsOn(2).isEmpty());
+            assertEquals(1, after.eventsOn(8).size());
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually correct");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually correct");
+        } catch (CanNotFindEvent e) {
+            fail("Event B is on the calendar");
+        }
+    }
+
+    @Test
+    void testIterateSnapshot() {
+        cal.snapshot();
+        cal.addEvent(eventB);
+        int count = 0;
+        for (CalendarSnapshot.Entry e : cal.snapshot()) {
+            assertEquals(count == 0 ? eventA : eventB, e.getEvent());
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    void testSnapshotKeepsRules() {
+        try {
+            RecurrenceRule gym = new RecurrenceRule("Gym", LocalDate.of(2022, 3, 1), 1, "personal",
+                    RecurrenceRule.Frequency.WEEKLY, 1, null);
+            cal.addRule(gym);
+            CalendarSnapshot before = cal.snapshot();
+            gym.addException(LocalDate.of(2022, 3, 8));
+            CalendarSnapshot skipped = cal.snapshot();
+            cal.deleteRule(gym);
+            CalendarSnapshot after = cal.snapshot();
+
+            assertEquals(1, before.getRules().size());
+            CalendarSnapshot.RuleEntry entry = before.getRules().get(0);
+            assertSame(gym, entry.getRule());
+            assertEquals(gym.getId(), entry.getId());
+            assertEquals("Gym", entry.getTitle());
+            assertEquals(RecurrenceRule.Frequency.WEEKLY, entry.getFrequency());
+            assertTrue(entry.getExceptions().isEmpty());
+            assertEquals(0, entry.toJson().getJSONArray("exceptions").length());
+            assertEquals(Collections.singletonList(LocalDate.of(2022, 3, 8)),
+                    skipped.getRules().get(0).getExceptions());
+            assertTrue(after.getRules().isEmpty());
+            assertEquals(1, after.size());
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The rule is valid and on the calendar");
+        }
+    }
+
+    @Test
+    void testFirstSnapshotHasRules() {
+        try {
+            cal.addRule(new RecurrenceRule("Rent", LocalDate.of(2022, 1, 31), 1, "personal",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        }
+        assertEquals("Rent", cal.snapshot().getRules().get(0).getTitle());
+    }
+}
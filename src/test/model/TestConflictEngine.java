@@ -0,0 +1,235 @@
+package model;
+
+import exceptions.CanNotFindEvent;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestConflictEngine {
+    Calendar testCalendar;
+    CalendarEvent eventA;
+    CalendarEvent eventB;
+    CalendarEvent eventC;
+
+    @BeforeEach
+    void setUp() {
+        testCalendar = new Calendar("March", 2022);
+        try {
+            eventA = new CalendarEvent("Event A", 2, 5, "school");
+            eventB = new CalendarEvent("Event B", 4, 8, "family");
+            eventC = new CalendarEvent("Event C", 15, 20, "friends");
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually correct");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually correct");
+        }
+        testCalendar.addEvent(eventA);
+        testCalendar.addEvent(eventB);
+        testCalendar.addEvent(eventC);
+    }
+
+    @Test
+    void testOccupancy() {
+        ConflictEngine conflicts = testCalendar.conflicts();
+        assertEquals(0, conflicts.occupancy(1));
+        assertEquals(1, conflicts.occupancy(2));
+        assertEquals(2, conflicts.occupancy(4));
+        assertEquals(2, conflicts.occupancy(5));
+        assertEquals(1, conflicts.occupancy(15));
+        assertEquals(0, conflicts.occupancy(0));
+        assertEquals(0, conflicts.occupancy(32));
+        assertEquals(Arrays.asList(4, 5), conflicts.doubleBookedDays());
+        assertSame(conflicts, testCalendar.conflicts());
+    }
+
+    @Test
+    void testOverlappingPairs() {
+        List<ConflictEngine.Conflict> pairs = testCalendar.conflicts().overlappingPairs();
+        assertEquals(1, pairs.size());
+        assertSame(eventA, pairs.get(0).getFirst());
+        assertSame(eventB, pairs.get(0).getSecond());
+        assertEquals(4, pairs.get(0).getFirstSharedDay());
+        assertEquals(5, pairs.get(0).getLastSharedDay());
+        assertSame(pairs, testCalendar.conflicts().overlappingPairs());
+    }
+
+    @Test
+    void testHasConflictAndConflictsWith() {
+        ConflictEngine conflicts = testCalendar.conflicts();
+        assertTrue(conflicts.hasConflict(eventA));
+        assertTrue(conflicts.hasConflict(eventB));
+        assertFalse(conflicts.hasConflict(eventC));
+        assertEquals(Collections.singletonList(eventB), conflicts.conflictsWith(eventA));
+        assertEquals(Collections.singletonList(eventA), conflicts.conflictsWith(eventB));
+        assertTrue(conflicts.conflictsWith(eventC).isEmpty());
+    }
+
+    @Test
+    void testFollowsAddDeleteAndSetDates() {
+        ConflictEngine conflicts = testCalendar.conflicts();
+        try {
+            CalendarEvent eventD = new CalendarEvent("Event D", 18, 18, "personal");
+            testCalendar.addEvent(eventD);
+            assertTrue(conflicts.hasConflict(eventC));
+            assertEquals(2, conflicts.overlappingPairs().size());
+            assertEquals(Arrays.asList(4, 5, 18), conflicts.doubleBookedDays());
+
+            eventB.setDates(6, 8);
+            assertFalse(conflicts.hasConflict(eventA));
+            assertEquals(1, conflicts.occupancy(4));
+            assertEquals(1, conflicts.occupancy(6));
+            assertEquals(Collections.singletonList(18), conflicts.doubleBookedDays());
+
+            eventB.setTitle("Event B2");
+            assertEquals(1, conflicts.occupancy(6));
+
+            testCalendar.deleteEvent(eventD);
+            assertFalse(conflicts.hasConflict(eventD));
+            assertFalse(conflicts.hasConflict(eventC));
+            assertEquals(1, conflicts.occupancy(18));
+            assertTrue(conflicts.overlappingPairs().isEmpty());
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The event is valid and on the calendar");
+        }
+    }
+
+    @Test
+    void testCountsOccurrences() {
+        ConflictEngine conflicts = testCalendar.conflicts();
+        try {
+            RecurrenceRule gym = new RecurrenceRule("Gym", LocalDate.of(2022, 3, 10), 1, "personal",
+                    RecurrenceRule.Frequency.WEEKLY, 1, null);
+            testCalendar.addRule(gym);
+            assertEquals(1, conflicts.occupancy(10));
+            assertEquals(2, conflicts.occupancy(17));
+            assertTrue(conflicts.hasConflict(eventC));
+            assertEquals(Arrays.asList(4, 5, 17), conflicts.doubleBookedDays());
+            assertTrue(conflicts.hasConflict(testCalendar.occurrencesOn(17).get(0)));
+            assertFalse(conflicts.hasConflict(testCalendar.occurrencesOn(10).get(0)));
+            List<RecurrenceRule.Occurrence> found = conflicts.occurrencesConflictingWith(eventC);
+            assertEquals(1, found.size());
+            assertEquals(LocalDate.of(2022, 3, 17), found.get(0).getStart());
+            assertTrue(conflicts.occurrencesConflictingWith(eventA).isEmpty());
+
+            gym.addException(LocalDate.of(2022, 3, 17));
+            assertFalse(conflicts.hasConflict(eventC));
+            assertFalse(conflicts.hasConflict(found.get(0)));
+            assertEquals(1, conflicts.occupancy(17));
+
+            testCalendar.deleteRule(gym);
+            assertEquals(0, conflicts.occupancy(10));
+            assertEquals(Arrays.asList(4, 5), conflicts.doubleBookedDays());
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The rule is valid and on the calendar");
+        }
+    }
+
+    @Test
+    void testCountsOccurrencesAddedBefore() {
+        try {
+            testCalendar.addRule(new RecurrenceRule("Trip", LocalDate.of(2022, 2, 26), 4, "family",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        }
+        ConflictEngine conflicts = testCalendar.conflicts();
+        assertEquals(1, conflicts.occupancy(1));
+        assertEquals(1, conflicts.occupancy(26));
+        assertEquals(0, conflicts.occupancy(30));
+        assertFalse(conflicts.hasConflict(testCalendar.occurrencesOn(1).get(0)));
+        try {
+            eventA.setDates(1, 2);
+        } catch (InvalidDates e) {
+            fail("The dates are valid");
+        }
+        assertTrue(conflicts.hasConflict(testCalendar.occurrencesOn(1).get(0)));
+        assertFalse(conflicts.hasConflict(testCalendar.occurrencesOn(26).get(0)));
+    }
+
+    @Test
+    void testEventNotOnCalendar() {
+        try {
+            CalendarEvent other = new CalendarEvent("Other", 3, 3, "school");
+            assertFalse(testCalendar.conflicts().hasConflict(other));
+            assertEquals(Collections.singletonList(eventA), testCalendar.conflicts().conflictsWith(other));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The event is valid");
+        }
+    }
+
+    @Test
+    void testMatchesEveryPairCompared() {
+        Random random = new Random(2022);
+        ConflictEngine conflicts = testCalendar.conflicts();
+        List<CalendarEvent> events = new ArrayList<>(testCalendar.getListOfEvents());
+        try {
+            for (int i = 0; i < 500; i++) {
+                changeRandomly(random, events);
+            }
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The events are valid and on the calendar");
+        }
+        assertEquals(comparePairs(events), describe(conflicts.overlappingPairs()));
+        for (int d = 1; d <= CalendarEvent.maxDay; d++) {
+            int count = 0;
+            for (CalendarEvent e : events) {
+                count += e.getStartDate() <= d && d <= e.getEndDate() ? 1 : 0;
+            }
+            assertEquals(count, conflicts.occupancy(d));
+        }
+    }
+
+    // MODIFIES: testCalendar, events
+    // EFFECTS: adds, moves, or deletes a random event
+    private void changeRandomly(Random random, List<CalendarEvent> events) throws InvalidCategory, InvalidDates,
+            CanNotFindEvent {
+        int start = 1 + random.nextInt(28);
+        int end = Math.min(28, start + random.nextInt(5));
+        int pick = random.nextInt(3);
+        if (pick == 0 || events.isEmpty()) {
+            CalendarEvent e = new CalendarEvent("Random", start, end, "work");
+            testCalendar.addEvent(e);
+            events.add(e);
+        } else if (pick == 1) {
+            events.get(random.nextInt(events.size())).setDates(start, end);
+        } else {
+            testCalendar.deleteEvent(events.remove(random.nextInt(events.size())));
+        }
+    }
+
+    // EFFECTS: returns the ids of every overlapping pair, found by comparing each event with each later one
+    private List<String> comparePairs(List<CalendarEvent> events) {
+        List<String> pairs = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            for (int j = i + 1; j < events.size(); j++) {
+                CalendarEvent first = events.get(i);
+                CalendarEvent second = events.get(j);
+                if (first.getStartDate() <= second.getEndDate() && second.getStartDate() <= first.getEndDate()) {
+                    pairs.add(first.getId() + "-" + second.getId());
+                }
+            }
+        }
+        Collections.sort(pairs);
+        return pairs;
+    }
+
+    // EFFECTS: returns the ids of the given pairs, sorted
+    private List<String> describe(List<ConflictEngine.Conflict> conflicts) {
+        List<String> pairs = new ArrayList<>();
+        for (ConflictEngine.Conflict c : conflicts) {
+            pairs.add(c.getFirst().getId() + "-" + c.getSecond().getId());
+        }
+        Collections.sort(pairs);
+        return pairs;
+    }
+}
@@ -3,14 +3,14 @@ package model;
 import exceptions.GreaterThanLastDay;
 import exceptions.InvalidCategory;
 import exceptions.InvalidDates;
+import exceptions.LessThanFirstDay;
 import exceptions.StartGreaterThanEnd;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 public class TestEvent {
@@ -168,5 +168,57 @@ public class TestEvent {
         }
     }
 
+    @Test
+    void testSetDatesLessThanFirstDay() {
+        try {
+            testEvent.setDates(0, 5);
+            fail("LessThanFirstDay exception expected");
+        } catch (LessThanFirstDay e) {
+            // do nothing
+        } catch (InvalidDates e) {
+            fail("Should have caught LessThanFirstDay");
+        }
+    }
+
+    @Test
+    void testGetListOfDaysAfterSetDates() {
+        try {
+            testEvent.getListOfDays();
+            testEvent.setDates(20, 22);
+            ArrayList<Integer> listOfDays = new ArrayList<>();
+            listOfDays.add(20);
+            listOfDays.add(21);
+            listOfDays.add(22);
+            assertEquals(listOfDays, testEvent.getListOfDays());
+        } catch (InvalidDates e) {
+            fail("Dates are actually valid");
+        }
+    }
+
+    @Test
+    void testOccursOn() {
+        assertTrue(testEvent.occursOn(3));
+        assertTrue(testEvent.occursOn(9));
+        assertTrue(testEvent.occursOn(15));
+        assertFalse(testEvent.occursOn(2));
+        assertFalse(testEvent.occursOn(16));
+        assertFalse(testEvent.occursOn(0));
+        assertFalse(testEvent.occursOn(64));
+    }
+
+    @Test
+    void testOverlaps() {
+        try {
+            CalendarEvent touching = new CalendarEvent("Touching", 15, 20, "work");
+            CalendarEvent apart = new CalendarEvent("Apart", 16, 20, "work");
+            assertTrue(testEvent.overlaps(touching));
+            assertTrue(touching.overlaps(testEvent));
+            assertFalse(testEvent.overlaps(apart));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        }
+    }
 
 }
@@ -0,0 +1,236 @@
+package model;
+
+import exceptions.CanNotFindEvent;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEventLog {
+    EventLog log;
+
+    @BeforeEach
+    void setUp() {
+        log = EventLog.getInstance();
+        log.setCapacity(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        log.setCapacity(EventLog.DEFAULT_CAPACITY);
+    }
+
+    ArrayList<String> descriptions() {
+        ArrayList<String> descriptions = new ArrayList<>();
+        for (Event e : log) {
+            descriptions.add(e.getDescription());
+        }
+        return descriptions;
+    }
+
+    @Test
+    void testLogUnderCapacity() {
+        log.logEvent(new Event("a"));
+        log.logEvent(new Event("b"));
+        assertEquals(2, descriptions().size());
+        assertEquals("a", descriptions().get(0));
+        assertEquals("b", descriptions().get(1));
+        assertEquals(0, log.getDroppedCount());
+    }
+
+    @Test
+    void testLogOverwritesOldest() {
+        for (String s : new String[] {"a", "b", "c", "d", "e"}) {
+            log.logEvent(new Event(s));
+        }
+        assertEquals(3, log.getCapacity());
+        assertEquals(2, log.getDroppedCount());
+        ArrayList<String> descriptions = descriptions();
+        assertEquals(3, descriptions.size());
+        assertEquals("c", descriptions.get(0));
+        assertEquals("e", descriptions.get(2));
+    }
+
+    @Test
+    void testClear() {
+        for (String s : new String[] {"a", "b", "c", "d"}) {
+            log.logEvent(new Event(s));
+        }
+        log.clear();
+        assertEquals(0, log.getDroppedCount());
+        assertEquals(1, descriptions().size());
+        assertEquals("Event log cleared.", descriptions().get(0));
+    }
+
+    @Test
+    void testIteratorIsSnapshot() {
+        log.logEvent(new Event("a"));
+        Iterator<Event> iterator = log.iterator();
+        log.logEvent(new Event("b"));
+        assertEquals("a", iterator.next().getDescription());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testStructuredEntriesDescribeChangeAtTheTime() {
+        log.setCapacity(10);
+        try {
+            Calendar cal = new Calendar("APRIL", 2021);
+            CalendarEvent party = new CalendarEvent("Party", 3, 4, "friends");
+            cal.addEvent(party);
+            party.setTitle("Big Party");
+            party.setDates(5, 6);
+            party.setCategory("family");
+            cal.deleteEvent(party);
+            party.setTitle("Later");
+            ArrayList<String> descriptions = descriptions();
+            assertEquals("Event created with... \tTitle: Party\tStart date: 3\tEnd date: 4\tCategory: friends",
+                    descriptions.get(0));
+            assertEquals("Event title changed from Party  to Big Party", descriptions.get(1));
+            assertEquals("Event titled Big Party: Start date changed to 5 and end date changed to 6",
+                    descriptions.get(2));
+            assertEquals("Event titled Big Party: Category changed from friends to family", descriptions.get(3));
+            assertEquals("Event named Big Party deleted.", descriptions.get(4));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (CanNotFindEvent e) {
+            fail("Event is on the calendar");
+        }
+    }
+
+    @Test
+    void testStructuredEntryTimestamp() {
+        try {
+            long before = System.currentTimeMillis();
+            log.logDeleted(new CalendarEvent("Party", 3, 4, "friends"));
+            long after = System.currentTimeMillis();
+            Event logged = log.iterator().next();
+            assertTrue(logged.getDate().getTime() >= before);
+            assertTrue(logged.getDate().getTime() <= after);
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        }
+    }
+
+    @Test
+    void testReadFollowsLog() {
+        ArrayList<Event> read = new ArrayList<>();
+        log.logEvent(new Event("a"));
+        log.logEvent(new Event("b"));
+        long next = log.read(log.getFirstSeq(), 1, read);
+        assertEquals(1, read.size());
+        assertEquals("a", read.get(0).getDescription());
+        next = log.read(next, 10, read);
+        assertEquals(2, read.size());
+        assertEquals("b", read.get(1).getDescription());
+        assertEquals(next, log.read(next, 10, read));
+        assertEquals(2, read.size());
+    }
+
+    @Test
+    void testReadSkipsOverwrittenAndCleared() {
+        ArrayList<Event> read = new ArrayList<>();
+        long first = log.getFirstSeq();
+        for (String s : new String[] {"a", "b", "c", "d", "e"}) {
+            log.logEvent(new Event(s));
+        }
+        assertEquals(first + 2, log.getFirstSeq());
+        long next = log.read(first, 10, read);
+        assertEquals(first + 5, next);
+        assertEquals("c", read.get(0).getDescription());
+        log.logEvent(new Event("f"));
+        log.clear();
+        read.clear();
+        assertEquals(first + 7, log.read(next, 10, read));
+        assertEquals(1, read.size());
+        assertEquals("Event log cleared.", read.get(0).getDescription());
+    }
+
+    @Test
+    void testProtectedReaderKeepsUnread() {
+        AtomicLong position = new AtomicLong(log.getFirstSeq());
+        long refused = log.getRefusedCount();
+        log.setProtectedReader(position);
+        try {
+            for (String s : new String[] {"a", "b", "c", "d", "e"}) {
+                log.logEvent(new Event(s));
+            }
+            assertEquals(2, log.getRefusedCount() - refused);
+            assertEquals(0, log.getDroppedCount());
+            ArrayList<Event> read = new ArrayList<>();
+            position.set(log.read(position.get(), 1, read));
+            assertEquals("a", read.get(0).getDescription());
+            log.logEvent(new Event("f"));
+            assertEquals(2, log.getRefusedCount() - refused);
+            assertEquals("b", descriptions().get(0));
+            assertEquals("f", descriptions().get(2));
+        } finally {
+            log.setProtectedReader(null);
+        }
+    }
+
+    @Test
+    void testSetCapacityInvalid() {
+        try {
+            log.setCapacity(0);
+            fail("Capacity must be positive");
+        } catch (IllegalArgumentException e) {
+            // do nothing
+        }
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        log.setCapacity(100);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    log.logEvent(new Event("event " + i));
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(20000 - 100, log.getDroppedCount());
+        assertTrue(descriptions().size() <= 100);
+        assertFalse(descriptions().isEmpty());
+    }
+
+    @Test
+    void testConcurrentProducersWhileResizing() throws InterruptedException {
+        log.setCapacity(1 << 16);
+        long first = log.getFirstSeq();
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    log.logEvent(new Event("event " + i));
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            while (producer.isAlive()) {
+                log.setCapacity(1 << 16);
+            }
+        }
+        ArrayList<Event> read = new ArrayList<>();
+        long end = log.read(log.getFirstSeq(), 1 << 16, read);
+        assertEquals(20000, end - first);
+        assertEquals(end - log.getFirstSeq(), read.size());
+    }
+}
@@ -0,0 +1,48 @@
+package model;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEventSlots {
+
+    @Test
+    void testEmpty() {
+        EventSlots slots = new EventSlots();
+        assertEquals(0, slots.size());
+        assertFalse(slots.iterator().hasNext());
+        assertTrue(slots.toList().isEmpty());
+    }
+
+    @Test
+    void testRandomChangesMatchArrayList() {
+        Random random = new Random(42);
+        ArrayList<CalendarEvent> expected = new ArrayList<>();
+        EventSlots actual = new EventSlots();
+        try {
+            for (int step = 0; step < 5000; step++) {
+                if (expected.isEmpty() || random.nextInt(5) < 2) {
+                    CalendarEvent e = new CalendarEvent("Event " + step, 1, 1, "work");
+                    expected.add(e);
+                    actual.add(e);
+                } else {
+                    actual.remove(expected.remove(random.nextInt(expected.size())));
+                }
+                assertEquals(expected.size(), actual.size());
+            }
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The events are valid");
+        }
+        assertEquals(expected, actual.toList());
+        while (!expected.isEmpty()) {
+            actual.remove(expected.remove(0));
+        }
+        assertEquals(0, actual.size());
+        assertTrue(actual.toList().isEmpty());
+    }
+}
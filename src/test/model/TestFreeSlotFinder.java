@@ -0,0 +1,253 @@
+package model;
+
+import exceptions.CanNotFindEvent;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFreeSlotFinder {
+    Calendar testCalendar;
+    CalendarEvent eventA;
+    CalendarEvent eventB;
+    CalendarEvent eventC;
+
+    @BeforeEach
+    void setUp() {
+        testCalendar = new Calendar("March", 2022);
+        try {
+            eventA = new CalendarEvent("Event A", 1, 3, "school");
+            eventB = new CalendarEvent("Event B", 3, 6, "family");
+            eventC = new CalendarEvent("Event C", 10, 20, "school");
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually correct");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually correct");
+        }
+        testCalendar.addEvent(eventA);
+        testCalendar.addEvent(eventB);
+        testCalendar.addEvent(eventC);
+    }
+
+    @Test
+    void testDaysInMonth() {
+        assertEquals(31, testCalendar.freeSlots().getDays());
+        assertEquals(28, new Calendar("FEBRUARY", 2022).freeSlots().getDays());
+        assertEquals(29, new Calendar("February", 2024).freeSlots().getDays());
+        assertEquals(30, new Calendar("april", 2022).freeSlots().getDays());
+        assertEquals(CalendarEvent.maxDay, new Calendar("Smarch", 2022).freeSlots().getDays());
+    }
+
+    @Test
+    void testEarliestFree() {
+        FreeSlotFinder finder = testCalendar.freeSlots();
+        assertEquals(7, finder.earliestFree(1));
+        assertEquals(7, finder.earliestFree(3));
+        assertEquals(21, finder.earliestFree(4));
+        assertEquals(21, finder.earliestFree(11));
+        assertEquals(-1, finder.earliestFree(12));
+        assertEquals(-1, finder.earliestFree(32));
+        assertSame(finder, testCalendar.freeSlots());
+    }
+
+    @Test
+    void testEarliestFreeOfCategory() {
+        FreeSlotFinder finder = testCalendar.freeSlots();
+        assertEquals(4, finder.earliestFree(6, "school"));
+        assertEquals(21, finder.earliestFree(7, "school"));
+        assertEquals(1, finder.earliestFree(2, "family"));
+        assertEquals(7, finder.earliestFree(3, "family"));
+        assertEquals(1, finder.earliestFree(31, "work"));
+        assertEquals(-1, finder.earliestFree(32, "work"));
+    }
+
+    @Test
+    void testLoadAndLeastLoaded() {
+        FreeSlotFinder finder = testCalendar.freeSlots();
+        assertEquals(2, finder.load(3, 3));
+        assertEquals(5, finder.load(1, 4));
+        assertEquals(18, finder.load(0, 40));
+        assertEquals(0, finder.load(5, 4));
+        assertEquals(7, finder.leastLoaded(3));
+        assertEquals(1, finder.leastLoaded(31));
+        assertEquals(-1, finder.leastLoaded(32));
+        try {
+            testCalendar.addEvent(new CalendarEvent("Event D", 7, 9, "work"));
+            testCalendar.addEvent(new CalendarEvent("Event E", 21, 31, "work"));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The events are valid");
+        }
+        assertEquals(-1, finder.earliestFree(1));
+        assertEquals(4, finder.leastLoaded(3));
+    }
+
+    @Test
+    void testCountsOccurrences() {
+        FreeSlotFinder finder = testCalendar.freeSlots();
+        try {
+            RecurrenceRule gym = new RecurrenceRule("Gym", LocalDate.of(2022, 3, 8), 2, "personal",
+                    RecurrenceRule.Frequency.WEEKLY, 1, null);
+            testCalendar.addRule(gym);
+            assertEquals(7, finder.earliestFree(1));
+            assertEquals(24, finder.earliestFree(5));
+            assertEquals(-1, finder.earliestFree(6));
+            assertEquals(1, finder.earliestFree(7, "personal"));
+            assertEquals(-1, finder.earliestFree(8, "personal"));
+            assertEquals(2, finder.load(8, 9));
+            assertEquals(24, finder.leastLoaded(3));
+
+            gym.addException(LocalDate.of(2022, 3, 22));
+            assertEquals(21, finder.earliestFree(6));
+            assertEquals(0, finder.load(22, 23));
+
+            testCalendar.deleteRule(gym);
+            assertEquals(7, finder.earliestFree(2));
+            assertEquals(7, finder.leastLoaded(3));
+            assertEquals(1, finder.earliestFree(31, "personal"));
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The rule is valid and on the calendar");
+        }
+    }
+
+    @Test
+    void testCountsOccurrencesAddedBefore() {
+        try {
+            testCalendar.addRule(new RecurrenceRule("Rent", LocalDate.of(2022, 1, 31), 1, "personal",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        }
+        assertEquals(21, testCalendar.freeSlots().earliestFree(10));
+        assertEquals(-1, testCalendar.freeSlots().earliestFree(11));
+        assertEquals(1, testCalendar.freeSlots().load(31, 31));
+    }
+
+    @Test
+    void testFollowsChanges() {
+        FreeSlotFinder finder = testCalendar.freeSlots();
+        try {
+            eventC.setDates(7, 8);
+            assertEquals(9, finder.earliestFree(4));
+            eventB.setCategory("school");
+            assertEquals(9, finder.earliestFree(4, "school"));
+            assertEquals(1, finder.earliestFree(31, "family"));
+            eventA.setTitle("Event A2");
+            assertEquals(9, finder.load(1, 31));
+            testCalendar.deleteEvent(eventB);
+            assertEquals(4, finder.earliestFree(3));
+            assertEquals(9, finder.earliestFree(4));
+            assertEquals(5, finder.load(1, 31));
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The changes are valid");
+        }
+    }
+
+    @Test
+    void testMatchesEveryDayCounted() {
+        Random random = new Random(2022);
+        FreeSlotFinder finder = testCalendar.freeSlots();
+        List<CalendarEvent> events = new ArrayList<>(testCalendar.getListOfEvents());
+        try {
+            for (int i = 0; i < 300; i++) {
+                changeRandomly(random, events);
+                int length = 1 + random.nextInt(6);
+                int[] counts = countDays(events);
+                assertEquals(firstFree(counts, length), finder.earliestFree(length));
+                int start = 1 + random.nextInt(31);
+                int end = start + random.nextInt(32 - start);
+                assertEquals(sum(counts, start, end), finder.load(start, end));
+            }
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The events are valid and on the calendar");
+        }
+    }
+
+    @Test
+    void testLeastLoadedMatchesEveryRun() {
+        Random random = new Random(31);
+        FreeSlotFinder finder = testCalendar.freeSlots();
+        List<CalendarEvent> events = new ArrayList<>(testCalendar.getListOfEvents());
+        try {
+            for (int i = 0; i < 300; i++) {
+                changeRandomly(random, events);
+                int[] counts = countDays(events);
+                for (int length = 1; length <= 31; length += 1 + random.nextInt(5)) {
+                    assertEquals(leastLoaded(counts, length), finder.leastLoaded(length));
+                }
+            }
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The events are valid and on the calendar");
+        }
+    }
+
+    // MODIFIES: testCalendar, events
+    // EFFECTS: adds, moves, or deletes a random event, deleting more often than adding once there are many
+    private void changeRandomly(Random random, List<CalendarEvent> events) throws InvalidCategory, InvalidDates,
+            CanNotFindEvent {
+        int start = 1 + random.nextInt(31);
+        int end = Math.min(31, start + random.nextInt(4));
+        int pick = random.nextInt(3);
+        if (events.isEmpty() || pick == 0 && events.size() < 12) {
+            CalendarEvent e = new CalendarEvent("Random", start, end, "work");
+            testCalendar.addEvent(e);
+            events.add(e);
+        } else if (pick == 1) {
+            events.get(random.nextInt(events.size())).setDates(start, end);
+        } else {
+            testCalendar.deleteEvent(events.remove(random.nextInt(events.size())));
+        }
+    }
+
+    // EFFECTS: returns the number of events on each day, counted one event at a time
+    private int[] countDays(List<CalendarEvent> events) {
+        int[] counts = new int[32];
+        for (CalendarEvent e : events) {
+            for (int d = e.getStartDate(); d <= e.getEndDate(); d++) {
+                counts[d]++;
+            }
+        }
+        return counts;
+    }
+
+    // EFFECTS: returns the first day of the earliest run of length days with count 0, or -1, looking at each day
+    private int firstFree(int[] counts, int length) {
+        int run = 0;
+        for (int d = 1; d <= 31; d++) {
+            run = counts[d] == 0 ? run + 1 : 0;
+            if (run == length) {
+                return d - length + 1;
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns the first day of the earliest run of length days with the smallest sum, trying each run
+    private int leastLoaded(int[] counts, int length) {
+        int best = -1;
+        long bestLoad = Long.MAX_VALUE;
+        for (int start = 1; start + length - 1 <= 31; start++) {
+            long load = sum(counts, start, start + length - 1);
+            if (load < bestLoad) {
+                best = start;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    // EFFECTS: returns the sum of the counts from start to end
+    private long sum(int[] counts, int start, int end) {
+        long total = 0;
+        for (int d = start; d <= end; d++) {
+            total += counts[d];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPersistentList {
+
+    void checkSame(ArrayList<Integer> expected, PersistentList<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        ArrayList<Integer> iterated = new ArrayList<>();
+        for (Integer i : actual) {
+            iterated.add(i);
+        }
+        assertEquals(expected, iterated);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void testOf() {
+        checkSame(new ArrayList<>(), PersistentList.of(new ArrayList<Integer>()));
+        ArrayList<Integer> items = new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+        checkSame(items, PersistentList.of(items));
+    }
+
+    @Test
+    void testOldVersionsUnchanged() {
+        PersistentList<Integer> first = PersistentList.of(Arrays.asList(1, 2, 3));
+        PersistentList<Integer> second = first.add(4).set(0, 10).remove(1);
+        checkSame(new ArrayList<>(Arrays.asList(1, 2, 3)), first);
+        checkSame(new ArrayList<>(Arrays.asList(10, 3, 4)), second);
+    }
+
+    @Test
+    void testIndexOf() {
+        PersistentList<Integer> list = PersistentList.of(Arrays.asList(2, 4, 6, 8, 10, 12, 14));
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i, list.indexOf(x -> x, 2 * i + 2));
+        }
+        assertEquals(-1, list.indexOf(x -> x, 5));
+        assertEquals(-1, list.indexOf(x -> x, 16));
+        assertEquals(2, list.remove(1).indexOf(x -> x, 8));
+        assertEquals(-1, PersistentList.<Integer>of(new ArrayList<>()).indexOf(x -> x, 1));
+    }
+
+    @Test
+    void testRandomChangesMatchArrayList() {
+        Random random = new Random(42);
+        ArrayList<Integer> expected = new ArrayList<>();
+        PersistentList<Integer> actual = PersistentList.of(expected);
+        for (int step = 0; step < 5000; step++) {
+            int choice = random.nextInt(3);
+            if (expected.isEmpty() || choice == 0) {
+                expected.add(step);
+                actual = actual.add(step);
+            } else if (choice == 1) {
+                int index = random.nextInt(expected.size());
+                expected.set(index, -step);
+                actual = actual.set(index, -step);
+            } else {
+                int index = random.nextInt(expected.size());
+                expected.remove(index);
+                actual = actual.remove(index);
+            }
+        }
+        checkSame(expected, actual);
+    }
+}
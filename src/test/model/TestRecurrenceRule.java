@@ -0,0 +1,289 @@
+package model;
+
+import exceptions.CanNotFindEvent;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRecurrenceRule {
+    static final YearMonth MARCH = YearMonth.of(2022, 3);
+
+    Calendar testCalendar;
+
+    @BeforeEach
+    void setUp() {
+        testCalendar = new Calendar("March", 2022);
+    }
+
+    @Test
+    void testDaily() {
+        try {
+            RecurrenceRule standup = new RecurrenceRule("Standup", LocalDate.of(2022, 3, 1), 1, "work",
+                    RecurrenceRule.Frequency.DAILY, 2, null);
+            List<RecurrenceRule.Occurrence> found = standup.occurrencesIn(MARCH);
+            assertEquals(16, found.size());
+            assertEquals(LocalDate.of(2022, 3, 1), found.get(0).getStart());
+            assertEquals(LocalDate.of(2022, 3, 31), found.get(15).getEnd());
+            assertSame(found, standup.occurrencesIn(MARCH));
+            assertTrue(standup.occurrencesIn(YearMonth.of(2022, 2)).isEmpty());
+            assertEquals(15, standup.occurrencesIn(YearMonth.of(2031, 4)).size());
+
+            testCalendar.addRule(standup);
+            assertTrue(testCalendar.occurrencesOn(2).isEmpty());
+            assertEquals(1, testCalendar.occurrencesOn(3).size());
+            assertEquals("Standup", testCalendar.occurrencesOn(3).get(0).getTitle());
+            assertEquals("work", testCalendar.occurrencesOn(3).get(0).getCategory());
+            assertSame(standup, testCalendar.occurrencesOn(3).get(0).getRule());
+            assertEquals(8, testCalendar.occurrencesBetween(1, 15).size());
+            assertTrue(testCalendar.occurrencesOn(32).isEmpty());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        }
+    }
+
+    @Test
+    void testWeeklyFromPreviousMonth() {
+        try {
+            RecurrenceRule trip = new RecurrenceRule("Trip", LocalDate.of(2022, 2, 26), 4, "family",
+                    RecurrenceRule.Frequency.WEEKLY, 1, null);
+            List<RecurrenceRule.Occurrence> found = trip.occurrencesIn(MARCH);
+            assertEquals(5, found.size());
+            assertEquals(LocalDate.of(2022, 2, 26), found.get(0).getStart());
+            assertEquals(LocalDate.of(2022, 3, 1), found.get(0).getEnd());
+            assertTrue(found.get(0).isOn(LocalDate.of(2022, 2, 28)));
+            assertFalse(found.get(0).isOn(LocalDate.of(2022, 3, 2)));
+            assertEquals(5, trip.occurrencesIn(YearMonth.of(2022, 4)).size());
+
+            testCalendar.addRule(trip);
+            assertEquals(1, testCalendar.occurrencesOn(1).size());
+            assertTrue(testCalendar.occurrencesOn(2).isEmpty());
+            assertEquals(1, testCalendar.occurrencesOn(29).size());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        }
+    }
+
+    @Test
+    void testMonthly() {
+        try {
+            RecurrenceRule rent = new RecurrenceRule("Rent", LocalDate.of(2022, 1, 31), 1, "personal",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null);
+            assertEquals(LocalDate.of(2022, 2, 28), rent.occurrencesIn(YearMonth.of(2022, 2)).get(0).getStart());
+            assertEquals(LocalDate.of(2022, 3, 31), rent.occurrencesIn(MARCH).get(0).getStart());
+            assertEquals(LocalDate.of(2022, 4, 30), rent.occurrencesIn(YearMonth.of(2022, 4)).get(0).getStart());
+            List<RecurrenceRule.Occurrence> far = rent.occurrencesIn(YearMonth.of(2030, 6));
+            assertEquals(1, far.size());
+            assertEquals(LocalDate.of(2030, 6, 30), far.get(0).getStart());
+
+            RecurrenceRule review = new RecurrenceRule("Review", LocalDate.of(2022, 1, 15), 1, "work",
+                    RecurrenceRule.Frequency.MONTHLY, 3, null);
+            assertTrue(review.occurrencesIn(YearMonth.of(2022, 5)).isEmpty());
+            assertEquals(LocalDate.of(2022, 7, 15), review.occurrencesIn(YearMonth.of(2022, 7)).get(0).getStart());
+            assertTrue(review.occurrencesIn(YearMonth.of(2021, 12)).isEmpty());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rules are valid");
+        }
+    }
+
+    @Test
+    void testUntilAndExceptions() {
+        try {
+            RecurrenceRule camp = new RecurrenceRule("Camp", LocalDate.of(2022, 3, 10), 1, "school",
+                    RecurrenceRule.Frequency.DAILY, 1, LocalDate.of(2022, 3, 20));
+            testCalendar.addRule(camp);
+            List<RecurrenceRule.Occurrence> before = camp.occurrencesIn(MARCH);
+            assertEquals(11, before.size());
+            assertTrue(camp.occurrencesIn(YearMonth.of(2022, 4)).isEmpty());
+
+            camp.addException(LocalDate.of(2022, 3, 15));
+            camp.addException(LocalDate.of(2022, 3, 12));
+            assertEquals(9, camp.occurrencesIn(MARCH).size());
+            assertEquals(11, before.size());
+            assertTrue(testCalendar.occurrencesOn(15).isEmpty());
+            assertEquals(1, testCalendar.occurrencesOn(16).size());
+            assertEquals(Arrays.asList(LocalDate.of(2022, 3, 12), LocalDate.of(2022, 3, 15)),
+                    camp.getExceptions());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        }
+    }
+
+    @Test
+    void testOnlyRecentMonthsKept() {
+        try {
+            RecurrenceRule standup = new RecurrenceRule("Standup", LocalDate.of(2022, 3, 1), 1, "work",
+                    RecurrenceRule.Frequency.DAILY, 1, null);
+            List<RecurrenceRule.Occurrence> march = standup.occurrencesIn(MARCH);
+            List<RecurrenceRule.Occurrence> april = standup.occurrencesIn(MARCH.plusMonths(1));
+            for (int i = 2; i < RecurrenceRule.EXPANDED_MONTHS; i++) {
+                standup.occurrencesIn(MARCH.plusMonths(i));
+            }
+            assertSame(march, standup.occurrencesIn(MARCH));
+            standup.occurrencesIn(MARCH.plusMonths(RecurrenceRule.EXPANDED_MONTHS));
+            assertSame(march, standup.occurrencesIn(MARCH));
+            List<RecurrenceRule.Occurrence> againApril = standup.occurrencesIn(MARCH.plusMonths(1));
+            assertNotSame(april, againApril);
+            assertEquals(30, againApril.size());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        }
+    }
+
+    @Test
+    void testExceptionsOnlyOnOccurrences() {
+        int[] changes = new int[1];
+        testCalendar.addObserver(new CalendarObserver() {
+            @Override
+            public void eventAdded(CalendarEvent e) {
+                // only rules are added
+            }
+
+            @Override
+            public void eventDeleted(CalendarEvent e) {
+                // only rules are added
+            }
+
+            @Override
+            public void eventChanged(CalendarEvent e) {
+                // only rules are added
+            }
+
+            @Override
+            public void ruleChanged(RecurrenceRule r) {
+                changes[0]++;
+            }
+        });
+        try {
+            RecurrenceRule gym = new RecurrenceRule("Gym", LocalDate.of(2022, 3, 2), 1, "personal",
+                    RecurrenceRule.Frequency.WEEKLY, 2, LocalDate.of(2022, 4, 30));
+            RecurrenceRule rent = new RecurrenceRule("Rent", LocalDate.of(2022, 1, 31), 1, "personal",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null);
+            testCalendar.addRule(gym);
+            testCalendar.addRule(rent);
+            gym.addException(LocalDate.of(2022, 3, 9));
+            gym.addException(LocalDate.of(2022, 2, 16));
+            gym.addException(LocalDate.of(2022, 5, 11));
+            rent.addException(LocalDate.of(2022, 2, 27));
+            rent.addException(LocalDate.of(2022, 3, 30));
+            assertEquals(0, changes[0]);
+            assertTrue(gym.getExceptions().isEmpty());
+            assertTrue(rent.getExceptions().isEmpty());
+
+            gym.addException(LocalDate.of(2022, 3, 16));
+            gym.addException(LocalDate.of(2022, 3, 16));
+            rent.addException(LocalDate.of(2022, 2, 28));
+            assertEquals(2, changes[0]);
+            assertEquals(Arrays.asList(LocalDate.of(2022, 3, 16)), gym.getExceptions());
+            assertEquals(Arrays.asList(LocalDate.of(2022, 2, 28)), rent.getExceptions());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rules are valid");
+        }
+    }
+
+    @Test
+    void testInvalidDates() {
+        LocalDate start = LocalDate.of(2022, 3, 1);
+        checkInvalidDates(start, 0, null);
+        checkInvalidDates(start, 32, null);
+        checkInvalidDates(start, 1, start.minusDays(1));
+    }
+
+    @Test
+    void testInvalidCategory() {
+        try {
+            new RecurrenceRule("Chores", LocalDate.of(2022, 3, 1), 1, "chores", RecurrenceRule.Frequency.DAILY, 1,
+                    null);
+            fail("chores is an invalid category");
+        } catch (InvalidCategory ic) {
+            // do nothing
+        } catch (InvalidDates id) {
+            fail("The dates are actually valid");
+        }
+    }
+
+    // EFFECTS: checks that a rule starting on start, lasting days days and repeating until until is rejected
+    void checkInvalidDates(LocalDate start, int days, LocalDate until) {
+        try {
+            new RecurrenceRule("Invalid", start, days, "work", RecurrenceRule.Frequency.DAILY, 1, until);
+            fail("InvalidDates exception should have been thrown");
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            // do nothing
+        }
+    }
+
+    @Test
+    void testCalendarRules() {
+        try {
+            RecurrenceRule first = new RecurrenceRule("First", LocalDate.of(2022, 3, 1), 1, "work",
+                    RecurrenceRule.Frequency.DAILY, 1, null);
+            RecurrenceRule saved = new RecurrenceRule(7, "Saved", LocalDate.of(2022, 3, 1), 1, "work",
+                    RecurrenceRule.Frequency.WEEKLY, 1, null);
+            RecurrenceRule clash = new RecurrenceRule(7, "Clash", LocalDate.of(2022, 3, 1), 1, "work",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null);
+            testCalendar.addRule(first);
+            testCalendar.addRule(saved);
+            testCalendar.addRule(clash);
+            testCalendar.addRule(first);
+            assertEquals(1, first.getId());
+            assertEquals(7, saved.getId());
+            assertEquals(8, clash.getId());
+            assertEquals(Arrays.asList(first, saved, clash), testCalendar.getRules());
+            assertSame(saved, testCalendar.getRuleById(7));
+            assertEquals(3, testCalendar.occurrencesOn(1).size());
+
+            testCalendar.deleteRule(saved);
+            assertNull(testCalendar.getRuleById(7));
+            assertEquals(Arrays.asList(first, clash), testCalendar.getRules());
+            assertTrue(new Calendar("Smarch", 2022).occurrencesOn(1).isEmpty());
+        } catch (InvalidCategory | InvalidDates | CanNotFindEvent e) {
+            fail("The rules are valid and on the calendar");
+        }
+    }
+
+    @Test
+    void testAddRuleOnAnotherCalendar() {
+        Calendar other = new Calendar("April", 2022);
+        try {
+            RecurrenceRule gym = new RecurrenceRule("Gym", LocalDate.of(2022, 3, 1), 1, "personal",
+                    RecurrenceRule.Frequency.WEEKLY, 1, null);
+            testCalendar.addRule(gym);
+            try {
+                other.addRule(gym);
+                fail("gym is on testCalendar");
+            } catch (IllegalArgumentException e) {
+                assertTrue(other.getRules().isEmpty());
+            }
+            testCalendar.deleteRule(gym);
+            other.addRule(gym);
+            assertSame(gym, other.getRuleById(gym.getId()));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        } catch (CanNotFindEvent e) {
+            fail("The rule is on testCalendar");
+        }
+    }
+
+    @Test
+    void testDeleteRuleNotOnCalendar() {
+        try {
+            RecurrenceRule other = new RecurrenceRule("Other", LocalDate.of(2022, 3, 1), 1, "work",
+                    RecurrenceRule.Frequency.DAILY, 1, null);
+            testCalendar.deleteRule(other);
+            fail("CanNotFindEvent exception should have been thrown");
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The rule is valid");
+        } catch (CanNotFindEvent e) {
+            // do nothing
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package model;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSameTitle {
+
+    @Test
+    void testEmpty() {
+        SameTitle same = new SameTitle();
+        assertTrue(same.isEmpty());
+        assertNull(same.last());
+        assertFalse(same.iterator().hasNext());
+    }
+
+    @Test
+    void testRandomChangesMatchArrayList() {
+        Random random = new Random(7);
+        ArrayList<CalendarEvent> expected = new ArrayList<>();
+        SameTitle actual = new SameTitle();
+        try {
+            for (int step = 0; step < 2000; step++) {
+                if (expected.isEmpty() || random.nextInt(5) < 3) {
+                    CalendarEvent e = new CalendarEvent("Shift", 1, 1, "work");
+                    expected.add(e);
+                    actual.add(e);
+                } else {
+                    actual.remove(expected.remove(random.nextInt(expected.size())));
+                }
+                assertEquals(expected.size(), actual.size());
+                assertEquals(expected.isEmpty() ? null : expected.get(expected.size() - 1), actual.last());
+            }
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The events are valid");
+        }
+        ArrayList<CalendarEvent> listed = new ArrayList<>();
+        for (CalendarEvent e : actual) {
+            listed.add(e);
+        }
+        assertEquals(expected, listed);
+    }
+}
@@ -1,6 +1,10 @@
 package persistence;
 
 import model.CalendarEvent;
+import model.RecurrenceRule;
+
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class JsonTest {
@@ -10,4 +14,15 @@ public class JsonTest {
         assertEquals(endDate, e.getEndDate());
         assertEquals(cat, e.getCategory());
     }
+
+    protected void checkRule(String title, LocalDate start, int days, String cat, RecurrenceRule.Frequency frequency,
+                             int interval, LocalDate until, RecurrenceRule r) {
+        assertEquals(title, r.getTitle());
+        assertEquals(start, r.getStart());
+        assertEquals(days, r.getDays());
+        assertEquals(cat, r.getCategory());
+        assertEquals(frequency, r.getFrequency());
+        assertEquals(interval, r.getInterval());
+        assertEquals(until, r.getUntil());
+    }
 }
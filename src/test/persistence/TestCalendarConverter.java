@@ -0,0 +1,99 @@
+package persistence;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCalendarConverter extends JsonTest {
+    static final String BINARY = "./data/testConverter.bin";
+    static final String JSON = "./data/testConverter.json";
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(BINARY));
+        Files.deleteIfExists(Paths.get(JSON));
+    }
+
+    @Test
+    void testWriteBinaryGeneral() {
+        try {
+            Calendar cal = new Calendar("SEPTEMBER", 2018);
+            cal.addEvent(new CalendarEvent("Park Day", 2, 2, "family"));
+            cal.addEvent(new CalendarEvent("Caf\u00e9 shift", 10, 17, "work"));
+            cal.addEvent(new CalendarEvent("Park Day", 20, 21, "friends"));
+            CalendarSaveWriter writer = new CalendarSaveWriter(BINARY);
+            writer.open();
+            writer.writeBinary(cal);
+            writer.close();
+
+            cal = new CalendarSaveReader(BINARY).read();
+            assertEquals("SEPTEMBER", cal.getMonth());
+            assertEquals(2018, cal.getYear());
+            assertEquals(3, cal.getListOfEvents().size());
+            checkEvent("Park Day", 2, 2, "family", cal.getListOfEvents().get(0));
+            checkEvent("Caf\u00e9 shift", 10, 17, "work", cal.getListOfEvents().get(1));
+            checkEvent("Park Day", 20, 21, "friends", cal.getListOfEvents().get(2));
+        } catch (InvalidCategory invalidCategory) {
+            fail("All events added should be correct");
+        } catch (InvalidDates invalidDates) {
+            fail("All events added should be correct");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testWriteBinaryEmpty() {
+        try {
+            CalendarSaveWriter writer = new CalendarSaveWriter(BINARY);
+            writer.open();
+            writer.writeBinary(new Calendar("JANUARY", -44));
+            writer.close();
+
+            Calendar cal = new CalendarSaveReader(BINARY).readStreaming();
+            assertEquals("JANUARY", cal.getMonth());
+            assertEquals(-44, cal.getYear());
+            assertTrue(cal.getListOfEvents().isEmpty());
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testConvertRoundTrip() {
+        try {
+            CalendarConverter.toBinary("./data/testGeneralReader.json", BINARY);
+            assertTrue(Files.size(Paths.get(BINARY)) < Files.size(Paths.get("./data/testGeneralReader.json")));
+            CalendarConverter.toJson(BINARY, JSON);
+
+            Calendar cal = new CalendarSaveReader(JSON).read();
+            assertEquals("APRIL", cal.getMonth());
+            assertEquals(2021, cal.getYear());
+            assertEquals(5, cal.getListOfEvents().size());
+            checkEvent("Final Exams", 12, 26, "school", cal.getEvent("Final Exams"));
+            checkEvent("Dentist Appointment", 19, 19, "personal", cal.getEvent("Dentist Appointment"));
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testReadNotBinary() {
+        try {
+            Files.write(Paths.get(BINARY), new byte[] {'C', 'A', 'L', 'B', 9});
+            new CalendarSaveReader(BINARY).read();
+            fail("Version 9 is not supported");
+        } catch (IOException e) {
+            // do nothing
+        }
+    }
+}
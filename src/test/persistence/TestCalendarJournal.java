@@ -0,0 +1,342 @@
+package persistence;
+
+import exceptions.CanNotFindEvent;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import model.RecurrenceRule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCalendarJournal extends JsonTest {
+    static final String SNAPSHOT = "./data/testJournalSnapshot.json";
+    static final String JOURNAL = "./data/testJournal.log";
+
+    Calendar cal;
+    CalendarEvent exams;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            cal = new Calendar("APRIL", 2021);
+            exams = new CalendarEvent("Final Exams", 12, 26, "school");
+            cal.addEvent(exams);
+            CalendarSaveWriter writer = new CalendarSaveWriter(SNAPSHOT);
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(SNAPSHOT));
+        Files.deleteIfExists(Paths.get(JOURNAL));
+    }
+
+    @Test
+    void testReadNoJournal() {
+        try {
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(1, loaded.getListOfEvents().size());
+            checkEvent("Final Exams", 12, 26, "school", loaded.getListOfEvents().get(0));
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testReplayEveryKindOfChange() {
+        try {
+            CalendarJournal journal = new CalendarJournal(JOURNAL);
+            journal.attach(cal);
+            CalendarEvent party = new CalendarEvent("Party", 3, 3, "friends");
+            cal.addEvent(party);
+            cal.addEvent(new CalendarEvent("Shift", 5, 6, "work"));
+            party.setTitle("Big Party");
+            party.setDates(4, 5);
+            party.setCategory("family");
+            cal.deleteEvent(exams);
+            journal.detach(cal);
+            assertEquals(6, journal.getLastSeq());
+
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(2, loaded.getListOfEvents().size());
+            checkEvent("Big Party", 4, 5, "family", loaded.getListOfEvents().get(0));
+            checkEvent("Shift", 5, 6, "work", loaded.getListOfEvents().get(1));
+            assertEquals(party.getId(), loaded.getListOfEvents().get(0).getId());
+            assertEquals(3, loaded.getListOfEvents().get(1).getId());
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (CanNotFindEvent e) {
+            fail("Event is on the calendar");
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testReplayRuleChanges() {
+        try {
+            CalendarJournal journal = new CalendarJournal(JOURNAL);
+            journal.attach(cal);
+            RecurrenceRule lab = new RecurrenceRule("Lab", LocalDate.of(2021, 4, 6), 1, "school",
+                    RecurrenceRule.Frequency.WEEKLY, 1, null);
+            RecurrenceRule shift = new RecurrenceRule("Shift", LocalDate.of(2021, 4, 1), 1, "work",
+                    RecurrenceRule.Frequency.DAILY, 3, LocalDate.of(2021, 4, 30));
+            cal.addRule(lab);
+            cal.addRule(shift);
+            lab.addException(LocalDate.of(2021, 4, 13));
+            cal.deleteRule(shift);
+            journal.detach(cal);
+            assertEquals(4, journal.getLastSeq());
+
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(1, loaded.getRules().size());
+            RecurrenceRule replayed = loaded.getRules().get(0);
+            checkRule("Lab", LocalDate.of(2021, 4, 6), 1, "school", RecurrenceRule.Frequency.WEEKLY, 1, null,
+                    replayed);
+            assertEquals(lab.getId(), replayed.getId());
+            assertEquals(Collections.singletonList(LocalDate.of(2021, 4, 13)), replayed.getExceptions());
+            assertEquals(3, loaded.occurrencesBetween(1, 30).size());
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (CanNotFindEvent e) {
+            fail("Rule is on the calendar");
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testCompactThenKeepJournaling() {
+        try {
+            CalendarJournal journal = new CalendarJournal(JOURNAL);
+            journal.attach(cal);
+            cal.addEvent(new CalendarEvent("Party", 3, 3, "friends"));
+            journal.compact(cal, new CalendarSaveWriter(SNAPSHOT));
+            assertEquals(0, Files.size(Paths.get(JOURNAL)));
+            cal.addEvent(new CalendarEvent("Shift", 5, 6, "work"));
+            journal.detach(cal);
+
+            CalendarJournal reopened = new CalendarJournal(JOURNAL);
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(reopened);
+            assertEquals(3, loaded.getListOfEvents().size());
+            checkEvent("Shift", 5, 6, "work", loaded.getListOfEvents().get(2));
+            assertEquals(2, reopened.getLastSeq());
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testCompactWhileChanging() throws InterruptedException {
+        Thread adder = new Thread(() -> {
+            for (int i = 0; i < 300; i++) {
+                try {
+                    cal.addEvent(new CalendarEvent("Event " + i, 1 + i % 28, 1 + i % 28, "work"));
+                } catch (InvalidCategory | InvalidDates e) {
+                    return;
+                }
+            }
+        });
+        try {
+            CalendarJournal journal = new CalendarJournal(JOURNAL);
+            journal.attach(cal);
+            adder.start();
+            while (adder.isAlive()) {
+                journal.compact(cal, new CalendarSaveWriter(SNAPSHOT));
+            }
+            journal.detach(cal);
+
+            CalendarJournal reopened = new CalendarJournal(JOURNAL);
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(reopened);
+            assertEquals(301, loaded.getListOfEvents().size());
+            checkEvent("Event 299", 20, 20, "work", loaded.getListOfEvents().get(300));
+            assertEquals(300, reopened.getLastSeq());
+        } catch (IOException e) {
+            fail("The files should be correct");
+        } finally {
+            adder.join();
+        }
+    }
+
+    @Test
+    void testAttachWithoutReplayContinuesNumbering() {
+        try {
+            CalendarJournal journal = new CalendarJournal(JOURNAL);
+            journal.attach(cal);
+            cal.addEvent(new CalendarEvent("Party", 3, 3, "friends"));
+            journal.detach(cal);
+
+            CalendarJournal reattached = new CalendarJournal(JOURNAL);
+            reattached.attach(cal);
+            assertEquals(1, reattached.getLastSeq());
+            cal.addEvent(new CalendarEvent("Shift", 5, 6, "work"));
+            reattached.detach(cal);
+            assertEquals(2, reattached.getLastSeq());
+
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(3, loaded.getListOfEvents().size());
+            checkEvent("Shift", 5, 6, "work", loaded.getListOfEvents().get(2));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testWriteFailureReportedLater() {
+        CalendarJournal journal = new CalendarJournal(JOURNAL) {
+            @Override
+            BufferedWriter openWriter(boolean append) {
+                return new BufferedWriter(new Writer() {
+                    @Override
+                    public void write(char[] chars, int off, int len) throws IOException {
+                        throw new IOException("Disk full");
+                    }
+
+                    @Override
+                    public void flush() {
+                        // nothing is buffered
+                    }
+
+                    @Override
+                    public void close() {
+                        // nothing to release
+                    }
+                });
+            }
+        };
+        try {
+            journal.attach(cal);
+            cal.addEvent(new CalendarEvent("Party", 3, 3, "friends"));
+            cal.addEvent(new CalendarEvent("Shift", 5, 6, "work"));
+            assertEquals(3, cal.getListOfEvents().size());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The events are valid");
+        } catch (IOException e) {
+            fail("The journal can be attached");
+        }
+        checkFails(() -> journal.compact(cal, new CalendarSaveWriter(SNAPSHOT)));
+        checkFails(() -> journal.detach(cal));
+    }
+
+    // Represents a journal operation that may throw IOException
+    interface JournalAction {
+        void run() throws IOException;
+    }
+
+    // EFFECTS: checks that action throws the failed write's IOException, or one caused by it
+    void checkFails(JournalAction action) {
+        try {
+            action.run();
+            fail("IOException should have been thrown");
+        } catch (IOException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            assertEquals("Disk full", cause.getMessage());
+        }
+    }
+
+    @Test
+    void testReplaySkipsRecordsAlreadyInSnapshot() {
+        try {
+            CalendarJournal journal = new CalendarJournal(JOURNAL);
+            journal.attach(cal);
+            cal.addEvent(new CalendarEvent("Party", 3, 3, "friends"));
+            journal.detach(cal);
+            CalendarSaveWriter writer = new CalendarSaveWriter(SNAPSHOT);
+            writer.open();
+            writer.writeStreaming(cal, journal.getLastSeq());
+            writer.close();
+
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(2, loaded.getListOfEvents().size());
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testReplayRecordsWithoutIds() {
+        try {
+            Files.write(Paths.get(JOURNAL), ("{\"seq\":1,\"op\":\"add\",\"title\":\"Party\",\"start\":3,"
+                    + "\"end\":3,\"category\":\"friends\"}\n{\"seq\":2,\"op\":\"delete\",\"index\":0}\n").getBytes());
+
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(1, loaded.getListOfEvents().size());
+            checkEvent("Party", 3, 3, "friends", loaded.getListOfEvents().get(0));
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testReplaySkipsEventsPastEndOfMonth() {
+        try {
+            Files.write(Paths.get(JOURNAL), ("{\"seq\":1,\"op\":\"add\",\"title\":\"Party\",\"start\":30,"
+                    + "\"end\":31,\"category\":\"friends\"}\n").getBytes());
+
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(1, loaded.getListOfEvents().size());
+            checkEvent("Final Exams", 12, 26, "school", loaded.getListOfEvents().get(0));
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+
+    @Test
+    void testReplayStopsAtTornRecord() {
+        try {
+            CalendarJournal journal = new CalendarJournal(JOURNAL);
+            journal.attach(cal);
+            cal.addEvent(new CalendarEvent("Party", 3, 3, "friends"));
+            journal.detach(cal);
+            Files.write(Paths.get(JOURNAL), "{\"seq\":2,\"op\":\"add\",\"ti".getBytes(),
+                    StandardOpenOption.APPEND);
+
+            Calendar loaded = new CalendarSaveReader(SNAPSHOT).read(new CalendarJournal(JOURNAL));
+            assertEquals(2, loaded.getListOfEvents().size());
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The files should be correct");
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package persistence;
 
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
 import model.Calendar;
+import model.CalendarEvent;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -57,4 +65,151 @@ public class TestCalendarSaveReader extends JsonTest{
         }
     }
 
+    @Test
+    void testReadStreamingNoSuchFile() {
+        CalendarSaveReader reader = new CalendarSaveReader("./data/noSuchFile.json");
+        try {
+            Calendar cal = reader.readStreaming();
+            fail("This file should not exist");
+        } catch (IOException e) {
+            // do nothing
+        }
+    }
+
+    @Test
+    void testReadStreamingEmptyFile() {
+        CalendarSaveReader reader = new CalendarSaveReader("./data/testEmptyFileReader.json");
+        try {
+            Calendar cal = reader.readStreaming();
+            assertEquals("FEBRUARY", cal.getMonth());
+            assertEquals(2022, cal.getYear());
+            assertTrue(cal.getListOfEvents().isEmpty());
+        } catch (IOException e) {
+            fail("File actually exists");
+        }
+    }
+
+    @Test
+    void testReadStreamingGeneral() {
+        CalendarSaveReader reader = new CalendarSaveReader("./data/testGeneralReader.json");
+        try {
+            Calendar cal = reader.readStreaming();
+            assertEquals("APRIL", cal.getMonth());
+            assertEquals(2021, cal.getYear());
+            assertEquals(5, cal.getListOfEvents().size());
+            checkEvent("Final Exams", 12, 26, "school",
+                    cal.getListOfEvents().get(0));
+            checkEvent("Auditing", 27, 27, "work",
+                    cal.getListOfEvents().get(1));
+            checkEvent("Weekend Road trip", 3, 4, "family",
+                    cal.getListOfEvents().get(2));
+            checkEvent("Birthday Party", 13, 13, "friends",
+                    cal.getListOfEvents().get(3));
+            checkEvent("Dentist Appointment", 19, 19, "personal",
+                    cal.getListOfEvents().get(4));
+        } catch (IOException e) {
+            fail("File exists and exception should not be thrown");
+        }
+    }
+
+    @Test
+    void testReadStreamingEventsBeforeMonthAndYear() {
+        CalendarSaveReader reader = new CalendarSaveReader("./data/testStreamingReader.json");
+        try {
+            Calendar cal = reader.readStreaming();
+            assertEquals("MAY", cal.getMonth());
+            assertEquals(2020, cal.getYear());
+            assertEquals(1, cal.getListOfEvents().size());
+            checkEvent("Quote \"Night\"\tA\u00e9", 5, 6, "friends",
+                    cal.getListOfEvents().get(0));
+        } catch (IOException e) {
+            fail("File exists and exception should not be thrown");
+        }
+    }
+
+    @Test
+    void testReadStreamingListener() {
+        CalendarSaveReader reader = new CalendarSaveReader("./data/testStreamingReader.json");
+        RecordingListener listener = new RecordingListener();
+        try {
+            Calendar cal = reader.readStreaming(listener);
+            assertSame(cal, listener.cal);
+            assertEquals(cal.getListOfEvents(), listener.events);
+            assertEquals(Files.size(Paths.get("./data/testStreamingReader.json")), reader.getBytesRead());
+        } catch (IOException e) {
+            fail("File exists and exception should not be thrown");
+        }
+    }
+
+    @Test
+    void testReadStreamingListenerBinary() {
+        String binary = "./data/testListenerReader.bin";
+        CalendarSaveReader reader = new CalendarSaveReader(binary);
+        RecordingListener listener = new RecordingListener();
+        try {
+            CalendarConverter.toBinary("./data/testGeneralReader.json", binary);
+            Calendar cal = reader.readStreaming(listener);
+            assertSame(cal, listener.cal);
+            assertEquals(5, listener.events.size());
+            assertEquals(cal.getListOfEvents(), listener.events);
+            assertEquals(Files.size(Paths.get(binary)), reader.getBytesRead());
+            Files.delete(Paths.get(binary));
+        } catch (IOException e) {
+            fail("File exists and exception should not be thrown");
+        }
+    }
+
+    @Test
+    void testReadStreamingInterrupted() {
+        String large = "./data/testInterruptedReader.json";
+        try {
+            Calendar cal = new Calendar("JUNE", 2022);
+            for (int i = 0; i < 5000; i++) {
+                cal.addEvent(new CalendarEvent("Event " + i, 1 + i % 30, 1 + i % 30, "work"));
+            }
+            CalendarSaveWriter writer = new CalendarSaveWriter(large);
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+        } catch (InvalidCategory | InvalidDates | IOException e) {
+            fail("The calendar should be written");
+        }
+        CalendarSaveReader reader = new CalendarSaveReader(large);
+        RecordingListener listener = new RecordingListener() {
+            @Override
+            public void eventRead(CalendarEvent e) {
+                super.eventRead(e);
+                Thread.currentThread().interrupt();
+            }
+        };
+        try {
+            reader.readStreaming(listener);
+            fail("The read should have been stopped");
+        } catch (IOException e) {
+            assertTrue(listener.events.size() < 5000);
+        } finally {
+            Thread.interrupted();
+            new File(large).delete();
+        }
+    }
+
+    // Records what it is told, checking that the calendar is created before any events are read
+    private static class RecordingListener implements ReadListener {
+        Calendar cal;
+        List<CalendarEvent> events = new ArrayList<>();
+
+        @Override
+        public void calendarCreated(Calendar cal) {
+            assertNull(this.cal);
+            assertTrue(cal.getListOfEvents().isEmpty());
+            this.cal = cal;
+        }
+
+        @Override
+        public void eventRead(CalendarEvent e) {
+            assertNotNull(cal);
+            assertSame(e, cal.getListOfEvents().get(events.size()));
+            events.add(e);
+        }
+    }
 }
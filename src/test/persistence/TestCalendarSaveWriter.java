@@ -4,15 +4,34 @@ import exceptions.InvalidCategory;
 import exceptions.InvalidDates;
 import model.Calendar;
 import model.CalendarEvent;
+import model.CalendarSnapshot;
+import model.RecurrenceRule;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class TestCalendarSaveWriter extends JsonTest{
+    // written by the tests that switch between formats, so that none of the committed files are overwritten
+    static final String SCRATCH = "./data/testScratchWriter.bin";
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(SCRATCH));
+    }
+
     @Test
     void testWriterInvalidFile() {
         try {
@@ -92,4 +111,313 @@ public class TestCalendarSaveWriter extends JsonTest{
             fail("The file should be correct");
         }
     }
+
+    @Test
+    void testWriteStreamingEmptyFile() {
+        try {
+            Calendar cal = new Calendar("JANUARY", 2022);
+            CalendarSaveWriter writer = new CalendarSaveWriter("./data/testEmptyWriter.json");
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+
+            CalendarSaveReader reader = new CalendarSaveReader("./data/testEmptyWriter.json");
+            cal = reader.read();
+            assertEquals("JANUARY", cal.getMonth());
+            assertEquals(2022, cal.getYear());
+            assertTrue(cal.getListOfEvents().isEmpty());
+        } catch (FileNotFoundException e) {
+            fail("File should exist");
+        } catch (IOException e) {
+            fail("File exists and is in correct form");
+        }
+    }
+
+    @Test
+    void testWriteStreamingGeneral() {
+        try {
+            Calendar cal = new Calendar("SEPTEMBER", 2018);
+            CalendarSaveWriter writer = new CalendarSaveWriter("./data/testGeneralWriter.json");
+            cal.addEvent(new CalendarEvent("Park \"Day\"", 2, 2, "family"));
+            cal.addEvent(new CalendarEvent("PD week", 10, 17, "work"));
+
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+
+            CalendarSaveReader reader = new CalendarSaveReader("./data/testGeneralWriter.json");
+            cal = reader.read();
+            assertEquals("SEPTEMBER", cal.getMonth());
+            assertEquals(2018, cal.getYear());
+            assertEquals(2, cal.getListOfEvents().size());
+            checkEvent("Park \"Day\"", 2, 2, "family",
+                    cal.getEvent("Park \"Day\""));
+            checkEvent("PD week", 10, 17, "work",
+                    cal.getEvent("PD week"));
+
+            cal = reader.readStreaming();
+            checkEvent("Park \"Day\"", 2, 2, "family",
+                    cal.getListOfEvents().get(0));
+            checkEvent("PD week", 10, 17, "work",
+                    cal.getListOfEvents().get(1));
+        } catch (InvalidCategory invalidCategory) {
+            fail("All events added should be correct");
+        } catch (InvalidDates invalidDates) {
+            fail("All events added should be correct");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testWritersKeepIds() {
+        try {
+            Calendar cal = new Calendar("SEPTEMBER", 2018);
+            cal.addEvent(new CalendarEvent(40, "Park Day", 2, 2, "family"));
+            cal.addEvent(new CalendarEvent("PD week", 10, 17, "work"));
+            cal.addEvent(new CalendarEvent(3, "Quiz", 5, 5, "school"));
+            CalendarSaveWriter writer = new CalendarSaveWriter(SCRATCH);
+            CalendarSaveReader reader = new CalendarSaveReader(SCRATCH);
+
+            writer.open();
+            writer.write(cal);
+            writer.close();
+            checkIds(reader.read(), 40, 41, 3);
+
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+            checkIds(reader.readStreaming(), 40, 41, 3);
+
+            writer.open();
+            writer.writeBinary(cal);
+            writer.close();
+            checkIds(reader.read(), 40, 41, 3);
+            assertEquals(41, reader.readMapped().getEvent(1).getId());
+        } catch (InvalidCategory invalidCategory) {
+            fail("All events added should be correct");
+        } catch (InvalidDates invalidDates) {
+            fail("All events added should be correct");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    // EFFECTS: checks that the events on cal have the given ids, in order, and a new event gets the next id
+    void checkIds(Calendar cal, long... ids) {
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], cal.getListOfEvents().get(i).getId());
+            assertEquals(cal.getListOfEvents().get(i), cal.getEventById(ids[i]));
+        }
+        try {
+            CalendarEvent next = new CalendarEvent("Next", 1, 1, "work");
+            cal.addEvent(next);
+            assertEquals(42, next.getId());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The event is valid");
+        }
+    }
+
+    @Test
+    void testWritersKeepRules() {
+        try {
+            Calendar cal = new Calendar("MARCH", 2022);
+            cal.addEvent(new CalendarEvent("Quiz", 5, 5, "school"));
+            RecurrenceRule gym = new RecurrenceRule(4, "Gym", LocalDate.of(2022, 2, 28), 2, "personal",
+                    RecurrenceRule.Frequency.WEEKLY, 2, LocalDate.of(2022, 12, 31));
+            gym.addException(LocalDate.of(2022, 3, 14));
+            cal.addRule(gym);
+            cal.addRule(new RecurrenceRule("Rent", LocalDate.of(2021, 1, 31), 1, "family",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null));
+            CalendarSaveWriter writer = new CalendarSaveWriter(SCRATCH);
+            CalendarSaveReader reader = new CalendarSaveReader(SCRATCH);
+
+            writer.open();
+            writer.write(cal);
+            writer.close();
+            checkRules(reader.read());
+
+            writer.open();
+            writer.writeStreaming(cal);
+            writer.close();
+            checkRules(reader.readStreaming());
+
+            writer.open();
+            writer.writeBinary(cal);
+            writer.close();
+            checkRules(reader.read());
+        } catch (InvalidCategory invalidCategory) {
+            fail("All events added should be correct");
+        } catch (InvalidDates invalidDates) {
+            fail("All events added should be correct");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    // EFFECTS: checks that cal has the event and the two rules written by testWritersKeepRules
+    void checkRules(Calendar cal) {
+        assertEquals(1, cal.getListOfEvents().size());
+        List<RecurrenceRule> rules = cal.getRules();
+        assertEquals(2, rules.size());
+        checkRule("Gym", LocalDate.of(2022, 2, 28), 2, "personal", RecurrenceRule.Frequency.WEEKLY, 2,
+                LocalDate.of(2022, 12, 31), rules.get(0));
+        checkRule("Rent", LocalDate.of(2021, 1, 31), 1, "family", RecurrenceRule.Frequency.MONTHLY, 1, null,
+                rules.get(1));
+        assertEquals(4, rules.get(0).getId());
+        assertEquals(5, rules.get(1).getId());
+        assertEquals(Collections.singletonList(LocalDate.of(2022, 3, 14)), rules.get(0).getExceptions());
+        assertTrue(rules.get(1).getExceptions().isEmpty());
+        assertTrue(cal.occurrencesOn(14).isEmpty());
+        assertEquals(1, cal.occurrencesOn(1).size());
+        assertEquals(1, cal.occurrencesOn(31).size());
+    }
+
+    @Test
+    void testWriteSnapshot() {
+        try {
+            Calendar cal = new Calendar("MARCH", 2022);
+            CalendarEvent quiz = new CalendarEvent(7, "Quiz", 5, 5, "school");
+            cal.addEvent(quiz);
+            RecurrenceRule gym = new RecurrenceRule(4, "Gym", LocalDate.of(2022, 2, 28), 2, "personal",
+                    RecurrenceRule.Frequency.WEEKLY, 2, LocalDate.of(2022, 12, 31));
+            gym.addException(LocalDate.of(2022, 3, 14));
+            cal.addRule(gym);
+            cal.addRule(new RecurrenceRule("Rent", LocalDate.of(2021, 1, 31), 1, "family",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null));
+            CalendarSnapshot snapshot = cal.snapshot();
+            quiz.setDates(8, 9);
+            gym.addException(LocalDate.of(2022, 3, 28));
+            cal.addEvent(new CalendarEvent("Later", 1, 1, "work"));
+
+            CalendarSaveWriter writer = new CalendarSaveWriter(SCRATCH);
+            writer.open();
+            writer.writeStreaming(snapshot);
+            writer.close();
+            Calendar saved = new CalendarSaveReader(SCRATCH).readStreaming();
+            checkRules(saved);
+            assertEquals(7, saved.getListOfEvents().get(0).getId());
+            checkEvent("Quiz", 5, 5, "school", saved.getListOfEvents().get(0));
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("All events added should be correct");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testSaveSnapshotWhileEditing() throws InterruptedException {
+        Calendar cal = new Calendar("MARCH", 2022);
+        CalendarEvent trip;
+        try {
+            trip = new CalendarEvent("Trip", 1, 2, "family");
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The event is valid");
+            return;
+        }
+        cal.addEvent(trip);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread editor = new Thread(() -> {
+            for (int i = 0; !done.get(); i++) {
+                try {
+                    trip.setDates(i % 2 == 0 ? 10 : 1, i % 2 == 0 ? 20 : 2);
+                } catch (InvalidDates e) {
+                    return;
+                }
+            }
+        });
+        editor.start();
+        try {
+            CalendarSaveWriter writer = new CalendarSaveWriter(SCRATCH);
+            for (int i = 0; i < 50; i++) {
+                writer.open();
+                writer.writeStreaming(cal.snapshot());
+                writer.close();
+                CalendarEvent saved = new CalendarSaveReader(SCRATCH).readStreaming().getListOfEvents().get(0);
+                int length = saved.getEndDate() - saved.getStartDate();
+                assertTrue(saved.getStartDate() == 1 && length == 1 || saved.getStartDate() == 10 && length == 10);
+            }
+        } catch (IOException e) {
+            fail("The file should be correct");
+        } finally {
+            done.set(true);
+            editor.join();
+        }
+    }
+
+    @Test
+    void testWritersUseTheirOwnTempFiles() {
+        try {
+            CalendarSaveWriter first = new CalendarSaveWriter(SCRATCH);
+            CalendarSaveWriter second = new CalendarSaveWriter(SCRATCH);
+            first.open();
+            second.open();
+            first.writeStreaming(new Calendar("MARCH", 2021));
+            second.writeStreaming(new Calendar("MARCH", 2022));
+            first.close();
+            assertEquals(2021, new CalendarSaveReader(SCRATCH).read().getYear());
+            second.close();
+            assertEquals(2022, new CalendarSaveReader(SCRATCH).read().getYear());
+            assertEquals(0, countTempFiles());
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testFailedCloseDeletesTempFile() throws IOException {
+        Path dest = Paths.get(SCRATCH);
+        Files.createDirectory(dest);
+        Files.createFile(dest.resolve("inside"));
+        try {
+            CalendarSaveWriter writer = new CalendarSaveWriter(SCRATCH);
+            writer.open();
+            writer.writeStreaming(new Calendar("MARCH", 2022));
+            writer.close();
+            fail("A non-empty directory can not be replaced");
+        } catch (IOException e) {
+            assertEquals(0, countTempFiles());
+            assertTrue(Files.exists(dest.resolve("inside")));
+        } finally {
+            Files.deleteIfExists(dest.resolve("inside"));
+        }
+    }
+
+    // EFFECTS: returns the number of temporary files next to SCRATCH
+    long countTempFiles() throws IOException {
+        String prefix = Paths.get(SCRATCH).getFileName() + ".";
+        try (Stream<Path> files = Files.list(Paths.get(SCRATCH).toAbsolutePath().getParent())) {
+            return files.filter(p -> p.getFileName().toString().startsWith(prefix)
+                    && p.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+
+    @Test
+    void testWriterKeepsBackups() {
+        String dest = "./data/testBackupWriter.json";
+        try {
+            CalendarSaveWriter writer = new CalendarSaveWriter(dest, 2);
+            for (int year = 2020; year <= 2023; year++) {
+                writer.open();
+                writer.write(new Calendar("MARCH", year));
+                writer.close();
+            }
+
+            assertFalse(Files.exists(Paths.get(dest + ".tmp")));
+            assertFalse(Files.exists(Paths.get(dest + ".3")));
+            assertEquals(2023, new CalendarSaveReader(dest).read().getYear());
+            assertEquals(2022, new CalendarSaveReader(dest + ".1").read().getYear());
+            assertEquals(2021, new CalendarSaveReader(dest + ".2").read().getYear());
+        } catch (IOException e) {
+            fail("The file should be correct");
+        } finally {
+            try {
+                Files.deleteIfExists(Paths.get(dest));
+                Files.deleteIfExists(Paths.get(dest + ".1"));
+                Files.deleteIfExists(Paths.get(dest + ".2"));
+            } catch (IOException e) {
+                fail("Could not clean up backup files");
+            }
+        }
+    }
 }
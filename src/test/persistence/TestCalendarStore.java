@@ -0,0 +1,214 @@
+package persistence;
+
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCalendarStore extends JsonTest {
+    static final YearMonth JAN = YearMonth.of(2022, 1);
+    static final YearMonth FEB = YearMonth.of(2022, 2);
+    static final YearMonth MAR = YearMonth.of(2022, 3);
+
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("calendarStore");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (File f : directory.toFile().listFiles()) {
+            Files.delete(f.toPath());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void testGetMonthNeverSaved() {
+        try {
+            CalendarStore store = new CalendarStore(directory.toString(), 10);
+            assertFalse(store.isLoaded(JAN));
+            Calendar cal = store.get(JAN);
+            assertTrue(store.isLoaded(JAN));
+            assertEquals("JANUARY", cal.getMonth());
+            assertEquals(2022, cal.getYear());
+            assertTrue(cal.getListOfEvents().isEmpty());
+            assertSame(cal, store.get(JAN));
+        } catch (IOException e) {
+            fail("The directory should be usable");
+        }
+    }
+
+    @Test
+    void testSaveAndReopen() {
+        try {
+            CalendarStore store = new CalendarStore(directory.toString(), 10);
+            store.get(JAN).addEvent(new CalendarEvent("Ski trip", 30, 31, "friends"));
+            store.get(FEB);
+            store.save();
+            assertTrue(new File(store.pathOf(JAN)).exists());
+            assertFalse(new File(store.pathOf(FEB)).exists());
+
+            CalendarStore reopened = new CalendarStore(directory.toString(), 10);
+            checkEvent("Ski trip", 30, 31, "friends", reopened.get(JAN).getEvent("Ski trip"));
+            assertFalse(reopened.isLoaded(FEB));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The directory should be usable");
+        }
+    }
+
+    @Test
+    void testEvictOverBudget() {
+        try {
+            CalendarStore store = new CalendarStore(directory.toString(), 2);
+            Calendar jan = store.get(JAN);
+            jan.addEvent(new CalendarEvent("Exam", 10, 10, "school"));
+            jan.addEvent(new CalendarEvent("Shift", 11, 12, "work"));
+            Calendar feb = store.get(FEB);
+            feb.addEvent(new CalendarEvent("Party", 14, 14, "friends"));
+            store.get(FEB);
+            assertFalse(store.isLoaded(JAN));
+            assertEquals(1, store.loadedEvents());
+
+            Calendar reloaded = store.get(JAN);
+            assertNotSame(jan, reloaded);
+            assertEquals(2, reloaded.getListOfEvents().size());
+            assertFalse(store.isLoaded(FEB));
+            checkEvent("Party", 14, 14, "friends", store.get(FEB).getEvent("Party"));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The directory should be usable");
+        }
+    }
+
+    @Test
+    void testChangesDoNotCountAsUse() {
+        try {
+            CalendarStore store = new CalendarStore(directory.toString(), 2);
+            CalendarEvent exam = new CalendarEvent("Exam", 10, 10, "school");
+            store.get(JAN).addEvent(exam);
+            store.get(FEB).addEvent(new CalendarEvent("Party", 14, 14, "friends"));
+            exam.setTitle("Final Exam");
+            store.get(MAR).addEvent(new CalendarEvent("Shift", 11, 12, "work"));
+            store.get(MAR);
+            assertFalse(store.isLoaded(JAN));
+            assertTrue(store.isLoaded(FEB));
+            checkEvent("Final Exam", 10, 10, "school", store.get(JAN).getEvent("Final Exam"));
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The directory should be usable");
+        }
+    }
+
+    @Test
+    void testEvictAfterAdd() {
+        try {
+            CalendarStore store = new CalendarStore(directory.toString(), 2);
+            Calendar jan = store.get(JAN);
+            jan.addEvent(new CalendarEvent("Exam", 10, 10, "school"));
+            jan.addEvent(new CalendarEvent("Shift", 11, 12, "work"));
+            Calendar feb = store.get(FEB);
+            assertTrue(store.isLoaded(JAN));
+            feb.addEvent(new CalendarEvent("Party", 14, 14, "friends"));
+            assertFalse(store.isLoaded(JAN));
+            assertEquals(1, store.loadedEvents());
+            assertEquals(2, store.get(JAN).getListOfEvents().size());
+        } catch (InvalidCategory | InvalidDates e) {
+            fail("The events are valid");
+        } catch (IOException e) {
+            fail("The directory should be usable");
+        }
+    }
+
+    @Test
+    void testRejectFileOfAnotherMonth() {
+        CalendarStore store = new CalendarStore(directory.toString(), 10);
+        try {
+            CalendarSaveWriter writer = new CalendarSaveWriter(store.pathOf(JAN));
+            writer.open();
+            writer.writeStreaming(new Calendar("MARCH", 2022));
+            writer.close();
+        } catch (IOException e) {
+            fail("The directory should be usable");
+        }
+        try {
+            store.get(JAN);
+            fail("The file holds March");
+        } catch (IOException e) {
+            assertFalse(store.isLoaded(JAN));
+        }
+    }
+
+    @Test
+    void testConcurrentChangesAndSaves() throws InterruptedException {
+        CalendarStore store = new CalendarStore(directory.toString(), 10_000);
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        YearMonth[] yms = {JAN, FEB, MAR};
+        Thread[] threads = new Thread[yms.length + 1];
+        for (int t = 0; t < yms.length; t++) {
+            YearMonth ym = yms[t];
+            threads[t] = new Thread(() -> addEvents(store, ym, errors));
+        }
+        threads[yms.length] = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                try {
+                    store.save();
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+            }
+        });
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        try {
+            store.save();
+            CalendarStore reopened = new CalendarStore(directory.toString(), 10_000);
+            for (YearMonth ym : yms) {
+                assertEquals(200, reopened.get(ym).size());
+            }
+        } catch (IOException e) {
+            fail("The directory should be usable");
+        }
+        assertTrue(errors.isEmpty(), "Errors: " + errors);
+    }
+
+    // MODIFIES: store
+    // EFFECTS: adds 200 events to the given month of store, recording any error in errors
+    void addEvents(CalendarStore store, YearMonth ym, ConcurrentLinkedQueue<Throwable> errors) {
+        try {
+            for (int i = 0; i < 200; i++) {
+                store.get(ym).addEvent(new CalendarEvent("Event " + i, 1 + i % 28, 1 + i % 28, "work"));
+            }
+        } catch (InvalidCategory | InvalidDates | IOException e) {
+            errors.add(e);
+        }
+    }
+}
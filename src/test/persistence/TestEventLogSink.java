@@ -0,0 +1,138 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEventLogSink {
+    static final String PATH = "./data/testEventLogSink.txt";
+
+    EventLog log;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        deleteFiles();
+        log = EventLog.getInstance();
+        log.setCapacity(8);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        log.setCapacity(EventLog.DEFAULT_CAPACITY);
+        deleteFiles();
+    }
+
+    void deleteFiles() throws IOException {
+        for (String suffix : new String[] {"", ".1", ".2", ".3"}) {
+            Files.deleteIfExists(Paths.get(PATH + suffix));
+        }
+    }
+
+    List<String> lines(String path) throws IOException {
+        return Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+    }
+
+    // logs e again and again, pausing in between, until the log has not refused it
+    void logUntilKept(Event e) throws InterruptedException {
+        long refused = log.getRefusedCount();
+        log.logEvent(e);
+        while (log.getRefusedCount() != refused) {
+            Thread.sleep(1);
+            refused = log.getRefusedCount();
+            log.logEvent(e);
+        }
+    }
+
+    @Test
+    void testWritesEventsLoggedBeforeAndAfterStart() {
+        try {
+            log.logEvent(new Event("before"));
+            EventLogSink sink = new EventLogSink(PATH, 1024 * 1024, 2, EventLogSink.Overflow.DROP_OLDEST);
+            sink.start();
+            log.logEvent(new Event("after"));
+            sink.stop(5000);
+            List<String> lines = lines(PATH);
+            assertEquals(4, lines.size());
+            assertEquals("before", lines.get(1));
+            assertEquals("after", lines.get(3));
+            assertEquals(0, sink.getLostCount());
+            assertNull(sink.getFailure());
+        } catch (IOException e) {
+            fail("The file should be writable");
+        } catch (InterruptedException e) {
+            fail("Not interrupted");
+        }
+    }
+
+    @Test
+    void testRotatesBySize() {
+        try {
+            EventLogSink sink = new EventLogSink(PATH, 100, 2, EventLogSink.Overflow.DROP_NEWEST);
+            sink.start();
+            for (int i = 0; i < 40; i++) {
+                logUntilKept(new Event("event number " + i));
+            }
+            sink.stop(5000);
+            assertTrue(Files.exists(Paths.get(PATH + ".1")));
+            assertTrue(Files.exists(Paths.get(PATH + ".2")));
+            assertFalse(Files.exists(Paths.get(PATH + ".3")));
+            assertTrue(Files.size(Paths.get(PATH + ".1")) >= 100);
+        } catch (IOException e) {
+            fail("The file should be writable");
+        } catch (InterruptedException e) {
+            fail("Not interrupted");
+        }
+    }
+
+    @Test
+    void testDropNewestKeepsUnwritten() {
+        try {
+            EventLogSink sink = new EventLogSink(PATH, 1024 * 1024, 0, EventLogSink.Overflow.DROP_NEWEST, 0);
+            sink.start();
+            for (int i = 0; i < 1000; i++) {
+                log.logEvent(new Event("event " + i));
+            }
+            sink.stop(5000);
+            List<String> lines = lines(PATH);
+            assertEquals(1000, sink.getLostCount() + lines.size() / 2);
+            assertEquals("event 0", lines.get(1));
+            int last = -1;
+            for (int i = 1; i < lines.size(); i += 2) {
+                int number = Integer.parseInt(lines.get(i).substring("event ".length()));
+                assertTrue(number > last);
+                last = number;
+            }
+        } catch (IOException e) {
+            fail("The file should be writable");
+        } catch (InterruptedException e) {
+            fail("Not interrupted");
+        }
+    }
+
+    @Test
+    void testDropOldestCountsLost() {
+        try {
+            EventLogSink sink = new EventLogSink(PATH, 1024 * 1024, 0, EventLogSink.Overflow.DROP_OLDEST);
+            sink.start();
+            for (int i = 0; i < 1000; i++) {
+                log.logEvent(new Event("event " + i));
+            }
+            sink.stop(5000);
+            assertEquals(1000, sink.getLostCount() + lines(PATH).size() / 2);
+        } catch (IOException e) {
+            fail("The file should be writable");
+        } catch (InterruptedException e) {
+            fail("Not interrupted");
+        }
+    }
+}
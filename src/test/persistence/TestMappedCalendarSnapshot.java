@@ -0,0 +1,144 @@
+package persistence;
+
+import exceptions.CanNotFindEvent;
+import exceptions.InvalidCategory;
+import exceptions.InvalidDates;
+import model.Calendar;
+import model.CalendarEvent;
+import model.RecurrenceRule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMappedCalendarSnapshot extends JsonTest {
+    static final String BINARY = "./data/testMapped.bin";
+
+    @BeforeEach
+    void setUp() {
+        try {
+            Calendar cal = new Calendar("APRIL", 2021);
+            cal.addEvent(new CalendarEvent("Final Exams", 12, 26, "school"));
+            cal.addEvent(new CalendarEvent("Auditing", 27, 27, "work"));
+            cal.addEvent(new CalendarEvent("Final Exams", 3, 4, "family"));
+            RecurrenceRule lab = new RecurrenceRule(5, "Lab", LocalDate.of(2021, 3, 30), 2, "school",
+                    RecurrenceRule.Frequency.WEEKLY, 1, LocalDate.of(2021, 6, 1));
+            lab.addException(LocalDate.of(2021, 4, 13));
+            cal.addRule(lab);
+            cal.addRule(new RecurrenceRule("Rent", LocalDate.of(2021, 1, 31), 1, "family",
+                    RecurrenceRule.Frequency.MONTHLY, 1, null));
+            CalendarSaveWriter writer = new CalendarSaveWriter(BINARY);
+            writer.open();
+            writer.writeBinary(cal, 7);
+            writer.close();
+        } catch (InvalidCategory invalidCategory) {
+            fail("Category is actually valid");
+        } catch (InvalidDates invalidDates) {
+            fail("Dates are actually valid");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get(BINARY));
+    }
+
+    @Test
+    void testReadMappedHeader() {
+        try {
+            MappedCalendarSnapshot snapshot = new CalendarSaveReader(BINARY).readMapped();
+            assertEquals("APRIL", snapshot.getMonth());
+            assertEquals(2021, snapshot.getYear());
+            assertEquals(7, snapshot.getJournalSeq());
+            assertEquals(3, snapshot.size());
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testGetEventOutOfOrder() {
+        try {
+            MappedCalendarSnapshot snapshot = new CalendarSaveReader(BINARY).readMapped();
+            checkEvent("Final Exams", 3, 4, "family", snapshot.getEvent(2));
+            checkEvent("Final Exams", 12, 26, "school", snapshot.getEvent(0));
+            checkEvent("Auditing", 27, 27, "work", snapshot.getEvent(1));
+            assertSame(snapshot.getEvent(2), snapshot.getEvent(2));
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testToCalendar() {
+        try {
+            Calendar cal = new CalendarSaveReader(BINARY).readMapped().toCalendar();
+            assertEquals("APRIL", cal.getMonth());
+            assertEquals(3, cal.getListOfEvents().size());
+            assertTrue(cal.isThereSimilarEvent("Final Exams"));
+            checkEvent("Auditing", 27, 27, "work", cal.getEvent("Auditing"));
+            assertEquals(2, cal.getEvent("Auditing").getId());
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testToCalendarWithRules() {
+        try {
+            MappedCalendarSnapshot snapshot = new CalendarSaveReader(BINARY).readMapped();
+            Calendar cal = snapshot.toCalendar();
+            List<RecurrenceRule> rules = cal.getRules();
+            assertEquals(2, rules.size());
+            checkRule("Lab", LocalDate.of(2021, 3, 30), 2, "school", RecurrenceRule.Frequency.WEEKLY, 1,
+                    LocalDate.of(2021, 6, 1), rules.get(0));
+            assertEquals(5, rules.get(0).getId());
+            assertEquals(Arrays.asList(LocalDate.of(2021, 4, 13)), rules.get(0).getExceptions());
+            checkRule("Rent", LocalDate.of(2021, 1, 31), 1, "family", RecurrenceRule.Frequency.MONTHLY, 1, null,
+                    rules.get(1));
+            assertTrue(cal.occurrencesOn(13).isEmpty());
+            assertEquals(1, cal.occurrencesOn(30).size());
+            assertNotSame(rules.get(0), snapshot.toCalendar().getRules().get(0));
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testToCalendarTwice() {
+        try {
+            MappedCalendarSnapshot snapshot = new CalendarSaveReader(BINARY).readMapped();
+            Calendar first = snapshot.toCalendar();
+            Calendar second = snapshot.toCalendar();
+            assertNotSame(first.getEventById(1), second.getEventById(1));
+            first.deleteEvent(first.getEventById(1));
+            first.deleteEvent(first.getEventById(2));
+            assertEquals(3, second.getListOfEvents().size());
+            checkEvent("Final Exams", 3, 4, "family", second.getEventById(3));
+        } catch (CanNotFindEvent e) {
+            fail("The events are on the first calendar");
+        } catch (IOException e) {
+            fail("The file should be correct");
+        }
+    }
+
+    @Test
+    void testReadMappedJsonFile() {
+        try {
+            new CalendarSaveReader("./data/testGeneralReader.json").readMapped();
+            fail("JSON files can not be mapped");
+        } catch (IOException e) {
+            // do nothing
+        }
+    }
+}